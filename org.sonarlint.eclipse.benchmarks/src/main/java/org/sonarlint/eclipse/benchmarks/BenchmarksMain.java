@@ -0,0 +1,47 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.runner.RunnerException;
+
+/**
+ * Runs JMH, recording results as JSON by default so that they can be compared between commits. Options are the ones of JMH, and
+ * {@code -rf} still selects another result format.
+ */
+public class BenchmarksMain {
+
+  private BenchmarksMain() {
+    // only a main
+  }
+
+  public static void main(String[] args) throws RunnerException, IOException {
+    List<String> arguments = new ArrayList<>(Arrays.asList(args));
+    if (!arguments.contains("-rf")) {
+      arguments.addAll(0, Arrays.asList("-rf", "json"));
+    }
+    Main.main(arguments.toArray(new String[arguments.size()]));
+  }
+
+}
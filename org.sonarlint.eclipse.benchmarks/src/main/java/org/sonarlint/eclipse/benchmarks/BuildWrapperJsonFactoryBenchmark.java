@@ -0,0 +1,87 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.benchmarks;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonarlint.eclipse.cdt.internal.BuildWrapperJsonFactory;
+import org.sonarlint.eclipse.cdt.internal.ConfiguredFile;
+
+/**
+ * Build wrapper output generated for CDT projects before each analysis of C/C++ files.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BuildWrapperJsonFactoryBenchmark {
+
+  /**
+   * Each file has its own compiler probes, so the JSON is a few KB per file
+   */
+  @Param({"10", "1000", "10000"})
+  public int fileCount;
+
+  private final BuildWrapperJsonFactory factory = new BuildWrapperJsonFactory();
+  private List<ConfiguredFile> files;
+
+  @Setup(Level.Trial)
+  public void prepare() {
+    String[] includes = new String[10];
+    for (int i = 0; i < includes.length; i++) {
+      includes[i] = "/usr/include/library" + i;
+    }
+    Map<String, String> symbols = new LinkedHashMap<>();
+    for (int i = 0; i < 20; i++) {
+      symbols.put("SYMBOL_" + i, "\"value\\t" + i + "\"");
+    }
+    files = new ArrayList<>(fileCount);
+    for (int i = 0; i < fileCount; i++) {
+      files.add(new ConfiguredFile.Builder(null)
+        .includes(includes)
+        .symbols(symbols)
+        .path("/home/user/project/src/module" + (i % 100) + "/file" + i + ".cpp")
+        .build());
+    }
+  }
+
+  @Benchmark
+  public String create() {
+    return factory.create(files, "/home/user/project");
+  }
+
+}
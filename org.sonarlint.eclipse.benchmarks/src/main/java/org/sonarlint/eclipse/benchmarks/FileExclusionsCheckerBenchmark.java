@@ -0,0 +1,117 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonarlint.eclipse.core.internal.resources.ExclusionItem;
+import org.sonarlint.eclipse.core.internal.resources.ExclusionItem.Type;
+import org.sonarlint.eclipse.core.internal.utils.FileExclusionsChecker;
+import org.sonarlint.eclipse.core.resource.ISonarLintFile;
+import org.sonarlint.eclipse.core.resource.ISonarLintProject;
+
+/**
+ * Filtering of the files of an unbound project by global and project exclusions, like before each analysis. Exclusions are given
+ * explicitly, since preferences can't be read outside of Eclipse.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileExclusionsCheckerBenchmark {
+
+  @Param({"10", "1000", "100000"})
+  public int fileCount;
+
+  @Param({"10", "100"})
+  public int exclusionCount;
+
+  private ISonarLintProject project;
+  private List<ISonarLintFile> files;
+  private FileExclusionsChecker checker;
+
+  @Setup(Level.Trial)
+  public void prepare() {
+    project = (ISonarLintProject) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {ISonarLintProject.class},
+      (proxy, method, args) -> "isBound".equals(method.getName()) ? Boolean.FALSE : null);
+    files = new ArrayList<>(fileCount);
+    for (int i = 0; i < fileCount; i++) {
+      files.add(file("src/main/java/org/example/package" + (i % 100) + "/File" + i + ".java"));
+    }
+    List<ExclusionItem> globalExclusions = new ArrayList<>();
+    List<ExclusionItem> projectExclusions = new ArrayList<>();
+    for (int i = 0; i < exclusionCount; i++) {
+      switch (i % 4) {
+        case 0:
+          globalExclusions.add(new ExclusionItem(Type.GLOB, "**/generated" + i + "/**"));
+          break;
+        case 1:
+          projectExclusions.add(new ExclusionItem(Type.GLOB, "src/main/java/**/*Generated" + i + ".java"));
+          break;
+        case 2:
+          projectExclusions.add(new ExclusionItem(Type.DIRECTORY, "src/main/java/org/example/package" + i));
+          break;
+        default:
+          projectExclusions.add(new ExclusionItem(Type.FILE, "src/main/java/org/example/package" + (i % 100) + "/File" + i + ".java"));
+      }
+    }
+    checker = new FileExclusionsChecker(globalExclusions, projectExclusions);
+  }
+
+  private ISonarLintFile file(String relativePath) {
+    String name = relativePath.substring(relativePath.lastIndexOf('/') + 1);
+    return (ISonarLintFile) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {ISonarLintFile.class},
+      (proxy, method, args) -> {
+        switch (method.getName()) {
+          case "getProjectRelativePath":
+            return relativePath;
+          case "getName":
+            return name;
+          case "getProject":
+            return project;
+          default:
+            return null;
+        }
+      });
+  }
+
+  @Benchmark
+  public Collection<ISonarLintFile> filterExcludedFiles() {
+    return checker.filterExcludedFiles(project, files, false);
+  }
+
+}
@@ -0,0 +1,147 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.benchmarks;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sonarlint.eclipse.core.internal.proto.Sonarlint;
+import org.sonarlint.eclipse.core.internal.tracking.IssueStore;
+import org.sonarlint.eclipse.core.internal.tracking.ProtobufIssueTrackable;
+import org.sonarlint.eclipse.core.internal.tracking.Trackable;
+import org.sonarlint.eclipse.core.resource.ISonarLintProject;
+import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
+
+/**
+ * Compares the layouts of {@link IssueStore} on the operations done for all files of a project at once: persisting issues on shutdown,
+ * reading them back after a restart, and opening the store.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IssueStoreBenchmark {
+
+  @Param({"FILE_PER_KEY", "SEGMENTED"})
+  public IssueStore.Layout layout;
+
+  /**
+   * From 10 to 100k issues in total
+   */
+  @Param({"2", "200", "20000"})
+  public int fileCount;
+
+  @Param({"5"})
+  public int issuesPerFile;
+
+  private Path basePath;
+  private ISonarLintProject project;
+  private List<String> keys;
+  private Collection<Trackable> issues;
+  private IssueStore store;
+
+  @Setup(Level.Trial)
+  public void prepare() throws IOException {
+    basePath = Files.createTempDirectory("issue-store-benchmark");
+    project = projectWithAllFiles();
+    keys = new ArrayList<>(fileCount);
+    for (int i = 0; i < fileCount; i++) {
+      keys.add("src/main/java/org/example/package" + (i % 100) + "/File" + i + ".java");
+    }
+    issues = new ArrayList<>(issuesPerFile);
+    for (int i = 0; i < issuesPerFile; i++) {
+      issues.add(new ProtobufIssueTrackable(Sonarlint.Issues.Issue.newBuilder()
+        .setRuleKey("java:S" + (100 + i))
+        .setMessage("Remove this unused private field " + i + ".")
+        .setLine(10 * i + 1)
+        .setChecksum(31 * i)
+        .setSeverity("MAJOR")
+        .setType("CODE_SMELL")
+        .setCreationDate(1_500_000_000_000L)
+        .setMarkerId(i)
+        .build()));
+    }
+    store = new IssueStore(basePath, project, layout);
+    flushAll();
+  }
+
+  @TearDown(Level.Trial)
+  public void cleanUp() {
+    store.close();
+    FileUtils.deleteRecursively(basePath);
+  }
+
+  /**
+   * Like PersistentIssueTrackerCache#flushAll on shutdown
+   */
+  @Benchmark
+  public void flushAll() throws IOException {
+    for (String key : keys) {
+      store.save(key, issues);
+    }
+  }
+
+  /**
+   * Like the first analysis of each file after a restart
+   */
+  @Benchmark
+  public void readAll(Blackhole blackhole) throws IOException {
+    for (String key : keys) {
+      blackhole.consume(store.read(key));
+    }
+  }
+
+  /**
+   * Opening the store also removes entries of files that no longer exist
+   */
+  @Benchmark
+  public IssueStore open() {
+    IssueStore reopened = new IssueStore(basePath, project, layout);
+    reopened.close();
+    return reopened;
+  }
+
+  private static ISonarLintProject projectWithAllFiles() {
+    return (ISonarLintProject) Proxy.newProxyInstance(IssueStoreBenchmark.class.getClassLoader(), new Class<?>[] {ISonarLintProject.class},
+      (proxy, method, args) -> "exists".equals(method.getName()) ? Boolean.TRUE : null);
+  }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonarlint.eclipse.core.internal.tracking.StringStoreIndex;
+import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
+
+/**
+ * Index of the file per key layout of the issue store: updated each time issues of a file are persisted, and loaded when opening
+ * the store.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StringStoreIndexBenchmark {
+
+  @Param({"10", "1000", "100000"})
+  public int keyCount;
+
+  private Path basePath;
+  private StringStoreIndex index;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void prepare() throws IOException {
+    basePath = Files.createTempDirectory("string-store-index-benchmark");
+    index = new StringStoreIndex(basePath);
+    for (int i = 0; i < keyCount; i++) {
+      index.save(key(i), path(i, 0));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void cleanUp() {
+    FileUtils.deleteRecursively(basePath);
+  }
+
+  private static String key(int i) {
+    return "src/main/java/org/example/package" + (i % 100) + "/File" + i + ".java";
+  }
+
+  private Path path(int i, int version) {
+    return basePath.resolve(Integer.toHexString(i % 256)).resolve(i + "-" + version);
+  }
+
+  /**
+   * Maps an existing key to another path, like when issues of a file are persisted
+   */
+  @Benchmark
+  public void save() {
+    int i = next++;
+    index.save(key(i % keyCount), path(i % keyCount, i / keyCount % 2 + 1));
+  }
+
+  @Benchmark
+  public StringStoreIndex load() {
+    return new StringStoreIndex(basePath);
+  }
+
+}
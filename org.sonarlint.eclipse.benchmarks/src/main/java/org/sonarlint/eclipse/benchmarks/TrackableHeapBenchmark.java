@@ -0,0 +1,165 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonarlint.eclipse.core.internal.markers.TextRange;
+import org.sonarlint.eclipse.core.internal.tracking.CompactTrackable;
+import org.sonarlint.eclipse.core.internal.tracking.RawIssueTrackable;
+import org.sonarlint.eclipse.core.internal.tracking.Trackable;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue.Flow;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueLocation;
+
+/**
+ * Measures the heap retained by the live issue cache once it is full, with the trackables produced by the tracking ({@code RAW}) and
+ * with the {@link CompactTrackable} kept in the cache ({@code COMPACT}). Strings are created for each file, as they are when reported by the
+ * engine. Flow locations of raw issues only hold their position and message: what the engine input files referenced by real locations may
+ * retain isn't measured.
+ * <p>
+ * Retained heap is the difference of used heap after full GCs, reported in bytes per file as the secondary result
+ * {@code retainedBytesPerFile}. The serial collector and a fixed heap are used so that results are reproducible.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-XX:+UseSerialGC", "-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class TrackableHeapBenchmark {
+
+  public enum Representation {
+    RAW, COMPACT
+  }
+
+  @Param({"RAW", "COMPACT"})
+  public Representation representation;
+
+  /**
+   * Maximum number of files in the live cache
+   */
+  @Param({"100"})
+  public int fileCount;
+
+  @Param({"20"})
+  public int issuesPerFile;
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class RetainedHeap {
+    public long retainedBytesPerFile;
+  }
+
+  @Benchmark
+  public Map<String, Collection<Trackable>> fillCache(RetainedHeap retainedHeap) {
+    long before = usedHeapAfterGc();
+    Map<String, Collection<Trackable>> cache = new HashMap<>();
+    for (int i = 0; i < fileCount; i++) {
+      List<Trackable> trackables = trackables();
+      cache.put("src/main/java/org/example/File" + i + ".java", representation == Representation.COMPACT ? CompactTrackable.compact(trackables) : trackables);
+    }
+    retainedHeap.retainedBytesPerFile = (usedHeapAfterGc() - before) / fileCount;
+    return cache;
+  }
+
+  private List<Trackable> trackables() {
+    List<Trackable> trackables = new ArrayList<>(issuesPerFile);
+    for (int i = 0; i < issuesPerFile; i++) {
+      int line = 10 * i + 1;
+      List<Flow> flows = Collections.singletonList(new EngineFlow(Collections.singletonList(new EngineLocation(line + 1, "Secondary location " + i))));
+      trackables.add(new RawIssueTrackable("java:S" + (100 + i % 10), "Rule name " + (i % 10), "MAJOR", "CODE_SMELL", "Remove this unused private field " + i + ".",
+        line, flows, new TextRange(line, 4, line, 20), "field" + i, "    int field" + i + " = 0;"));
+    }
+    return trackables;
+  }
+
+  private static long usedHeapAfterGc() {
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+  private static class EngineFlow implements Flow {
+    private final List<IssueLocation> locations;
+
+    EngineFlow(List<IssueLocation> locations) {
+      this.locations = locations;
+    }
+
+    @Override
+    public List<IssueLocation> locations() {
+      return locations;
+    }
+  }
+
+  private static class EngineLocation implements IssueLocation {
+    private final int line;
+    private final String message;
+
+    EngineLocation(int line, String message) {
+      this.line = line;
+      this.message = message;
+    }
+
+    @Override
+    public Integer getStartLine() {
+      return line;
+    }
+
+    @Override
+    public Integer getStartLineOffset() {
+      return 0;
+    }
+
+    @Override
+    public Integer getEndLine() {
+      return line;
+    }
+
+    @Override
+    public Integer getEndLineOffset() {
+      return 10;
+    }
+
+    @Override
+    public String getMessage() {
+      return message;
+    }
+  }
+
+}
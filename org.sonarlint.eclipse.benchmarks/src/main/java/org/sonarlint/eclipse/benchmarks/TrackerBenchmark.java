@@ -0,0 +1,104 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonarlint.eclipse.core.internal.markers.TextRange;
+import org.sonarlint.eclipse.core.internal.tracking.LegacyTracker;
+import org.sonarlint.eclipse.core.internal.tracking.RawIssueTrackable;
+import org.sonarlint.eclipse.core.internal.tracking.Trackable;
+import org.sonarlint.eclipse.core.internal.tracking.Tracker;
+import org.sonarlint.eclipse.core.internal.tracking.Tracking;
+
+/**
+ * Tracks issues of a file re-analyzed after a line was inserted in its middle, a few issues being fixed and a few being introduced.
+ * Compares {@link Tracker} with the matcher it replaced. Use the GC profiler ({@code -prof gc}) to compare allocation rates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrackerBenchmark {
+
+  @Param({"10", "1000", "100000"})
+  public int issueCount;
+
+  private List<Trackable> raws;
+  private List<Trackable> bases;
+
+  @Setup(Level.Trial)
+  public void prepare() {
+    bases = new ArrayList<>(issueCount);
+    raws = new ArrayList<>(issueCount);
+    int insertedLine = issueCount / 4;
+    for (int i = 0; i < issueCount; i++) {
+      int line = i / 2 + 1;
+      if (i % 100 != 0) {
+        bases.add(issue(i, line));
+      }
+      if (i % 100 != 50) {
+        raws.add(issue(i, line >= insertedLine ? line + 1 : line));
+      }
+    }
+    checkSameResults();
+  }
+
+  private static Trackable issue(int i, int line) {
+    return new RawIssueTrackable("java:S" + (i % 30), "Rule " + (i % 30), "MAJOR", "CODE_SMELL", "Message " + (i % 50), line, Collections.emptyList(),
+      new TextRange(line, 4, line, 12), "token" + i, "line content " + (i / 2));
+  }
+
+  private void checkSameResults() {
+    Map<Trackable, Trackable> expected = legacy().getMatchedRaws();
+    Map<Trackable, Trackable> actual = current().getMatchedRaws();
+    if (!expected.equals(actual)) {
+      throw new IllegalStateException("Matchers don't give the same results");
+    }
+  }
+
+  @Benchmark
+  public Tracking<Trackable, Trackable> current() {
+    return new Tracker<Trackable, Trackable>().track(() -> raws, () -> bases);
+  }
+
+  @Benchmark
+  public Tracking<Trackable, Trackable> legacy() {
+    return new LegacyTracker<Trackable, Trackable>().track(() -> raws, () -> bases);
+  }
+
+}
@@ -0,0 +1,135 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.jobs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.eclipse.jface.text.IDocument;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonarlint.eclipse.core.internal.TriggerType;
+import org.sonarlint.eclipse.core.internal.jobs.AnalyzeProjectRequest.FileWithDocument;
+import org.sonarlint.eclipse.core.resource.ISonarLintFile;
+import org.sonarlint.eclipse.core.resource.ISonarLintProject;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AnalysisRequestQueueTest {
+
+  private final AtomicLong debounceDelay = new AtomicLong(60_000);
+  private final List<AnalyzeProjectRequest> launched = new ArrayList<>();
+  private AnalysisRequestQueue queue;
+
+  private final ISonarLintProject project1 = mock(ISonarLintProject.class);
+  private final ISonarLintProject project2 = mock(ISonarLintProject.class);
+
+  @Before
+  public void setUp() {
+    queue = new AnalysisRequestQueue(debounceDelay::get, launched::add);
+  }
+
+  @After
+  public void tearDown() {
+    queue.shutdown();
+  }
+
+  @Test
+  public void should_not_launch_analysis_before_debounce_delay() {
+    queue.submit(request(project1, TriggerType.EDITOR_CHANGE, file(project1, "A.java")));
+
+    queue.flushIfQuiet();
+
+    assertThat(launched).isEmpty();
+    assertThat(queue.getQueueDepth()).isEqualTo(1);
+  }
+
+  @Test
+  public void should_merge_requests_per_project_and_keep_latest_document() {
+    ISonarLintFile fileA = sonarLintFile("A.java");
+    IDocument newerDoc = mock(IDocument.class);
+    queue.submit(request(project1, TriggerType.EDITOR_CHANGE, new FileWithDocument(fileA, mock(IDocument.class))));
+    queue.submit(request(project1, TriggerType.EDITOR_CHANGE, file(project1, "B.java")));
+    queue.submit(request(project1, TriggerType.EDITOR_CHANGE, new FileWithDocument(fileA, newerDoc)));
+    queue.submit(request(project2, TriggerType.EDITOR_CHANGE, file(project2, "C.java")));
+
+    assertThat(queue.getQueueDepth()).isEqualTo(3);
+    assertThat(queue.getSubmittedRequestCount()).isEqualTo(4);
+    assertThat(queue.getCoalescedFileCount()).isEqualTo(1);
+
+    debounceDelay.set(0);
+    queue.flushIfQuiet();
+
+    assertThat(launched).hasSize(2);
+    AnalyzeProjectRequest project1Request = launched.stream().filter(r -> r.getProject() == project1).findFirst().get();
+    assertThat(project1Request.getFilesToAnalyze()).extracting(f -> f.getFile().getProjectRelativePath()).containsExactly("B.java", "A.java");
+    assertThat(project1Request.getFilesToAnalyze().stream().filter(f -> f.getFile() == fileA).map(FileWithDocument::getDocument).collect(Collectors.toList()))
+      .containsExactly(newerDoc);
+    assertThat(queue.getQueueDepth()).isZero();
+    assertThat(queue.getLaunchedAnalysisCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void should_split_by_trigger_type() {
+    queue.submit(request(project1, TriggerType.EDITOR_OPEN, file(project1, "A.java")));
+    queue.submit(request(project1, TriggerType.EDITOR_CHANGE, file(project1, "B.java")));
+
+    debounceDelay.set(0);
+    queue.flushIfQuiet();
+
+    assertThat(launched).extracting(AnalyzeProjectRequest::getTriggerType).containsOnly(TriggerType.EDITOR_OPEN, TriggerType.EDITOR_CHANGE);
+  }
+
+  @Test
+  public void should_keep_excluded_files() {
+    ISonarLintFile excluded = sonarLintFile("Excluded.java");
+    queue.submit(new AnalyzeProjectRequest(project1, Collections.emptyList(), Arrays.asList(excluded), TriggerType.EDITOR_CHANGE));
+
+    debounceDelay.set(0);
+    queue.flushIfQuiet();
+
+    assertThat(launched).hasSize(1);
+    assertThat(launched.get(0).getFilesToAnalyze()).isEmpty();
+    assertThat(launched.get(0).getExcludedFiles()).containsExactly(excluded);
+  }
+
+  private static AnalyzeProjectRequest request(ISonarLintProject project, TriggerType triggerType, FileWithDocument... files) {
+    return new AnalyzeProjectRequest(project, Arrays.asList(files), Collections.emptyList(), triggerType);
+  }
+
+  private static FileWithDocument file(ISonarLintProject project, String path) {
+    ISonarLintFile file = sonarLintFile(path);
+    when(file.getProject()).thenReturn(project);
+    return new FileWithDocument(file, null);
+  }
+
+  private static ISonarLintFile sonarLintFile(String path) {
+    ISonarLintFile file = mock(ISonarLintFile.class);
+    when(file.getProjectRelativePath()).thenReturn(path);
+    return file;
+  }
+
+}
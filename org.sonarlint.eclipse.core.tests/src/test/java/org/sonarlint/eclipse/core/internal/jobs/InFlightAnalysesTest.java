@@ -0,0 +1,152 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.jobs;
+
+import java.util.Arrays;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.junit.Test;
+import org.sonarlint.eclipse.core.resource.ISonarLintFile;
+import org.sonarlint.eclipse.core.resource.ISonarLintProject;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class InFlightAnalysesTest {
+
+  private final InFlightAnalyses inFlightAnalyses = new InFlightAnalyses();
+  private final ISonarLintProject project = mock(ISonarLintProject.class);
+  private final ISonarLintFile fileA = file("A.java");
+  private final ISonarLintFile fileB = file("B.java");
+
+  @Test
+  public void should_supersede_files_analyzed_by_newer_job() {
+    Job job1 = new DummyJob();
+    Job job2 = new DummyJob();
+
+    assertThat(inFlightAnalyses.register(job1, true, Arrays.asList(fileA, fileB))).isEmpty();
+    assertThat(inFlightAnalyses.register(job2, true, Arrays.asList(fileA))).isEmpty();
+
+    assertThat(inFlightAnalyses.isSuperseded(job1, true, fileA)).isTrue();
+    assertThat(inFlightAnalyses.isSuperseded(job1, true, fileB)).isFalse();
+    assertThat(inFlightAnalyses.isSuperseded(job2, true, fileA)).isFalse();
+    assertThat(inFlightAnalyses.getSupersededFileCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void should_return_jobs_with_all_files_superseded() {
+    Job job1 = new DummyJob();
+    Job job2 = new DummyJob();
+
+    inFlightAnalyses.register(job1, true, Arrays.asList(fileA, fileB));
+
+    assertThat(inFlightAnalyses.register(job2, true, Arrays.asList(fileB, fileA))).containsExactly(job1);
+    assertThat(inFlightAnalyses.getSupersededJobCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void should_forget_job_once_done() {
+    Job job1 = new DummyJob();
+    Job job2 = new DummyJob();
+    inFlightAnalyses.register(job1, true, Arrays.asList(fileA));
+    inFlightAnalyses.register(job2, true, Arrays.asList(fileA));
+
+    // Older job completing must not release the file owned by the newer one
+    inFlightAnalyses.unregister(job1);
+    assertThat(inFlightAnalyses.isSuperseded(job1, true, fileA)).isTrue();
+
+    inFlightAnalyses.unregister(job2);
+    assertThat(inFlightAnalyses.isSuperseded(job1, true, fileA)).isFalse();
+    assertThat(inFlightAnalyses.isSuperseded(job2, true, fileA)).isFalse();
+  }
+
+  @Test
+  public void should_supersede_job_files_were_handed_over_to() {
+    Job analysis = new DummyJob();
+    Job serverIssuesUpdate = new DummyJob();
+    inFlightAnalyses.register(analysis, true, Arrays.asList(fileA, fileB));
+
+    inFlightAnalyses.handOver(analysis, serverIssuesUpdate, true, Arrays.asList(fileA, fileB));
+    // Analysis completing must not release the files of the update
+    inFlightAnalyses.unregister(analysis);
+    assertThat(inFlightAnalyses.isSuperseded(serverIssuesUpdate, true, fileA)).isFalse();
+
+    Job newerAnalysis = new DummyJob();
+    assertThat(inFlightAnalyses.register(newerAnalysis, true, Arrays.asList(fileA))).isEmpty();
+    assertThat(inFlightAnalyses.isSuperseded(serverIssuesUpdate, true, fileA)).isTrue();
+    assertThat(inFlightAnalyses.isSuperseded(serverIssuesUpdate, true, fileB)).isFalse();
+    assertThat(inFlightAnalyses.register(newerAnalysis, true, Arrays.asList(fileB))).containsExactly(serverIssuesUpdate);
+  }
+
+  @Test
+  public void should_not_hand_over_superseded_files() {
+    Job analysis = new DummyJob();
+    Job serverIssuesUpdate = new DummyJob();
+    Job newerAnalysis = new DummyJob();
+    inFlightAnalyses.register(analysis, true, Arrays.asList(fileA, fileB));
+    inFlightAnalyses.register(newerAnalysis, true, Arrays.asList(fileA));
+
+    inFlightAnalyses.handOver(analysis, serverIssuesUpdate, true, Arrays.asList(fileA, fileB));
+
+    assertThat(inFlightAnalyses.isSuperseded(serverIssuesUpdate, true, fileA)).isTrue();
+    assertThat(inFlightAnalyses.isSuperseded(newerAnalysis, true, fileA)).isFalse();
+    assertThat(inFlightAnalyses.isSuperseded(serverIssuesUpdate, true, fileB)).isFalse();
+  }
+
+  @Test
+  public void should_not_supersede_analysis_updating_other_markers() {
+    Job manualJob = new DummyJob();
+    Job onTheFlyJob = new DummyJob();
+
+    assertThat(inFlightAnalyses.register(manualJob, false, Arrays.asList(fileA))).isEmpty();
+    assertThat(inFlightAnalyses.register(onTheFlyJob, true, Arrays.asList(fileA))).isEmpty();
+
+    assertThat(inFlightAnalyses.isSuperseded(manualJob, false, fileA)).isFalse();
+    assertThat(inFlightAnalyses.isSuperseded(onTheFlyJob, true, fileA)).isFalse();
+    assertThat(inFlightAnalyses.getSupersededFileCount()).isZero();
+
+    Job otherManualJob = new DummyJob();
+    assertThat(inFlightAnalyses.register(otherManualJob, false, Arrays.asList(fileA))).containsExactly(manualJob);
+    assertThat(inFlightAnalyses.isSuperseded(onTheFlyJob, true, fileA)).isFalse();
+  }
+
+  private ISonarLintFile file(String path) {
+    ISonarLintFile file = mock(ISonarLintFile.class);
+    when(project.getName()).thenReturn("project");
+    when(file.getProject()).thenReturn(project);
+    when(file.getProjectRelativePath()).thenReturn(path);
+    return file;
+  }
+
+  private static class DummyJob extends Job {
+    DummyJob() {
+      super("dummy");
+    }
+
+    @Override
+    protected IStatus run(IProgressMonitor monitor) {
+      return Status.OK_STATUS;
+    }
+  }
+
+}
@@ -0,0 +1,155 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.jobs;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonarlint.eclipse.core.internal.server.IServer;
+import org.sonarlint.eclipse.core.resource.ISonarLintProject;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ServerUpdateJobTest {
+
+  private final IServer server = mock(IServer.class);
+  private final Map<String, ISonarLintProject> projectPerModuleKey = new LinkedHashMap<>();
+  private final List<IStatus> failures = new ArrayList<>();
+  private ServerUpdateJob job;
+
+  @Before
+  public void setUp() {
+    when(server.getId()).thenReturn("server");
+    when(server.needsProjectStorageUpdate(anyString())).thenReturn(true);
+    when(server.updateProjectServerIssues(anyString())).thenReturn(true);
+    job = new ServerUpdateJob(server);
+    projectPerModuleKey.put("module1", project("project1"));
+    projectPerModuleKey.put("module2", project("project2"));
+  }
+
+  @Test
+  public void should_skip_modules_unchanged_since_last_update() {
+    when(server.needsProjectStorageUpdate("module1")).thenReturn(false);
+
+    assertThat(job.updateModules(projectPerModuleKey, failures, new NullProgressMonitor())).isTrue();
+
+    verify(server, never()).updateProjectStorage(eq("module1"), any(IProgressMonitor.class));
+    verify(server).updateProjectStorage(eq("module2"), any(IProgressMonitor.class));
+    // Server issues are refreshed anyway
+    verify(server).updateProjectServerIssues("module1");
+    verify(server, never()).updateProjectServerIssues("module2");
+    assertThat(failures).isEmpty();
+  }
+
+  @Test
+  public void should_update_unchanged_modules_when_forced() {
+    when(server.needsProjectStorageUpdate(anyString())).thenReturn(false);
+
+    assertThat(new ServerUpdateJob(server, true).updateModules(projectPerModuleKey, failures, new NullProgressMonitor())).isTrue();
+
+    verify(server).updateProjectStorage(eq("module1"), any(IProgressMonitor.class));
+    verify(server).updateProjectStorage(eq("module2"), any(IProgressMonitor.class));
+    verify(server, never()).updateProjectServerIssues(anyString());
+  }
+
+  @Test
+  public void should_report_failed_server_issues_download() {
+    when(server.needsProjectStorageUpdate("module1")).thenReturn(false);
+    when(server.updateProjectServerIssues("module1")).thenReturn(false);
+
+    assertThat(job.updateModules(projectPerModuleKey, failures, new NullProgressMonitor())).isTrue();
+
+    assertThat(failures).extracting(IStatus::getMessage).containsExactly("Unable to download server issues for project 'project1'");
+  }
+
+  @Test
+  public void should_update_modules_concurrently() {
+    CountDownLatch bothStarted = new CountDownLatch(2);
+    doAnswer(invocation -> {
+      bothStarted.countDown();
+      assertThat(bothStarted.await(5, TimeUnit.SECONDS)).isTrue();
+      return null;
+    }).when(server).updateProjectStorage(anyString(), any(IProgressMonitor.class));
+
+    job.updateModules(projectPerModuleKey, failures, new NullProgressMonitor());
+
+    assertThat(failures).isEmpty();
+  }
+
+  @Test
+  public void should_report_failure_of_each_module() {
+    doThrow(new IllegalStateException("error")).when(server).updateProjectStorage(eq("module1"), any(IProgressMonitor.class));
+
+    assertThat(job.updateModules(projectPerModuleKey, failures, new NullProgressMonitor())).isTrue();
+
+    verify(server).updateProjectStorage(eq("module2"), any(IProgressMonitor.class));
+    assertThat(failures).extracting(IStatus::getMessage).containsExactly("Unable to update binding for project 'project1'");
+  }
+
+  @Test
+  public void should_wait_for_canceled_updates() {
+    CountDownLatch started = new CountDownLatch(1);
+    AtomicBoolean done = new AtomicBoolean();
+    doAnswer(invocation -> {
+      started.countDown();
+      IProgressMonitor monitor = invocation.getArgument(1);
+      while (!monitor.isCanceled()) {
+        Thread.sleep(10);
+      }
+      done.set(true);
+      return null;
+    }).when(server).updateProjectStorage(eq("module1"), any(IProgressMonitor.class));
+    IProgressMonitor monitor = new NullProgressMonitor() {
+      @Override
+      public boolean isCanceled() {
+        return started.getCount() == 0;
+      }
+    };
+
+    assertThat(job.updateModules(projectPerModuleKey, failures, monitor)).isFalse();
+
+    assertThat(done.get()).isTrue();
+  }
+
+  private static ISonarLintProject project(String name) {
+    ISonarLintProject project = mock(ISonarLintProject.class);
+    when(project.getName()).thenReturn(name);
+    return project;
+  }
+
+}
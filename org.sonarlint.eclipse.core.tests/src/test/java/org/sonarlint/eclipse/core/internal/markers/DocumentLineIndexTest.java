@@ -0,0 +1,111 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.markers;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.Position;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class DocumentLineIndexTest {
+
+  @Test
+  public void should_give_same_positions_as_document() {
+    for (String content : new String[] {"", "a", "\n", "ab\ncd", "ab\r\ncd\r\n", "ab\rcd\r", "ab\n\r\ncd\r\rx", "  public\n\n  foo();\n"}) {
+      IDocument document = new Document(content);
+      DocumentLineIndex index = new DocumentLineIndex(document);
+      int lines = document.getNumberOfLines();
+      for (int line = 1; line <= lines; line++) {
+        assertThat(index.getPosition(line)).as(content + " line " + line).isEqualTo(MarkerUtils.getPosition(document, line));
+        assertThat(index.getPosition(line, 0, lines, 0)).isEqualTo(MarkerUtils.getPosition(document, line, 0, lines, 0));
+      }
+    }
+  }
+
+  @Test
+  public void should_convert_text_ranges() throws Exception {
+    DocumentLineIndex index = new DocumentLineIndex(new Document("class A {\r\n  int i;\r\n}\r\n"));
+
+    assertThat(index.getPosition(new TextRange(2))).isEqualTo(new Position(11, 8));
+    assertThat(index.getPosition(new TextRange(2, 6, 2, 7))).isEqualTo(new Position(17, 1));
+    assertThat(index.getPosition(new TextRange(1, 6, 3, 1))).isEqualTo(new Position(6, 16));
+    assertThat(index.getPosition((TextRange) null)).isNull();
+    assertThat(index.getPosition(new TextRange(null))).isNull();
+    assertThat(index.getContent(new Position(17, 1))).isEqualTo("i");
+    assertThatThrownBy(() -> index.getContent(new Position(20, 100))).isInstanceOf(BadLocationException.class);
+  }
+
+  @Test
+  public void should_return_null_for_invalid_lines() {
+    DocumentLineIndex index = new DocumentLineIndex(new Document("a\nb"));
+
+    assertThat(index.getPosition(0)).isNull();
+    assertThat(index.getPosition(3)).isNull();
+    assertThat(index.getPosition(1, 0, 3, 0)).isNull();
+    assertThat(index.getExtraPosition(3, 0, 3, 1, "msg", 1, null)).isNull();
+  }
+
+  @Test
+  public void should_index_again_when_document_is_modified() throws Exception {
+    IDocument document = new Document("a\nb");
+    DocumentLineIndex index = new DocumentLineIndex(document);
+    assertThat(index.getPosition(3)).isNull();
+
+    document.replace(0, 0, "new line\n");
+
+    assertThat(index.getPosition(3)).isEqualTo(new Position(11, 1));
+    assertThat(index.getContent(index.getPosition(1))).isEqualTo("new line");
+  }
+
+  @Test
+  public void should_index_once_document_without_modification_stamp() {
+    IDocument document = mock(IDocument.class);
+    when(document.get()).thenReturn("a\nb");
+    when(document.getLegalLineDelimiters()).thenReturn(new String[] {"\n"});
+    DocumentLineIndex index = new DocumentLineIndex(document);
+
+    assertThat(index.getPosition(1)).isEqualTo(new Position(0, 1));
+    assertThat(index.getPosition(2)).isEqualTo(new Position(2, 1));
+    assertThat(index.getPosition(1, 0, 2, 1)).isEqualTo(new Position(0, 3));
+
+    verify(document, times(1)).get();
+  }
+
+  @Test
+  public void should_create_extra_positions() {
+    DocumentLineIndex index = new DocumentLineIndex(new Document("ab\ncd"));
+
+    MarkerUtils.ExtraPosition position = index.getExtraPosition(2, 0, 2, 2, "msg", 42, null);
+
+    assertThat(position.getOffset()).isEqualTo(3);
+    assertThat(position.getLength()).isEqualTo(2);
+    assertThat(position.getMessage()).isEqualTo("msg");
+    assertThat(position.getMarkerId()).isEqualTo(42);
+  }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.resources;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.sonarlint.eclipse.core.resource.ISonarLintProject;
+import org.sonarlint.eclipse.core.resource.ISonarLintProjectsProvider;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ProjectsSnapshotCacheTest {
+
+  private final ISonarLintProject project1 = mock(ISonarLintProject.class);
+  private final ISonarLintProject project2 = mock(ISonarLintProject.class);
+  private final ISonarLintProjectsProvider provider1 = mock(ISonarLintProjectsProvider.class);
+  private final ISonarLintProjectsProvider provider2 = mock(ISonarLintProjectsProvider.class);
+
+  @Test
+  public void should_scan_providers_again_only_after_invalidation() {
+    when(provider1.get()).thenReturn(Collections.singletonList(project1));
+    when(provider2.get()).thenReturn(Arrays.asList(project1, project2));
+    ProjectsSnapshotCache cache = new ProjectsSnapshotCache(() -> Arrays.asList(provider1, provider2));
+
+    Set<ISonarLintProject> projects = cache.get();
+    assertThat(projects).containsExactly(project1, project2);
+    assertThat(cache.get()).isSameAs(projects);
+    verify(provider1, times(1)).get();
+
+    when(provider2.get()).thenReturn(Collections.emptyList());
+    cache.invalidate();
+
+    assertThat(cache.get()).containsExactly(project1);
+    verify(provider1, times(2)).get();
+  }
+
+  @Test
+  public void should_notify_listeners_of_changes() {
+    ProjectsSnapshotCache cache = new ProjectsSnapshotCache(Collections::emptyList);
+    AtomicInteger notifications = new AtomicInteger();
+    Runnable listener = notifications::incrementAndGet;
+    cache.addProjectsChangeListener(listener);
+
+    cache.invalidate();
+    assertThat(notifications.get()).isEqualTo(1);
+
+    cache.removeProjectsChangeListener(listener);
+    cache.invalidate();
+    assertThat(notifications.get()).isEqualTo(1);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void snapshot_should_be_immutable() {
+    new ProjectsSnapshotCache(Collections::emptyList).get().add(project1);
+  }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.resources;
+
+import java.util.Collections;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ProjectScope;
+import org.eclipse.core.runtime.preferences.IScopeContext;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
+import org.sonarlint.eclipse.tests.common.SonarTestCase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SonarLintProjectManagerTest extends SonarTestCase {
+
+  private static IScopeContext projectScope;
+
+  @BeforeClass
+  public static void importProject() throws Exception {
+    IProject project = importEclipseProject("SimpleProject");
+    projectScope = new ProjectScope(project);
+  }
+
+  @Test
+  public void should_deserialize_preferences_only_after_changes() {
+    SonarLintProjectManager manager = new SonarLintProjectManager();
+    manager.readSonarLintConfiguration(projectScope);
+    manager.readSonarLintConfiguration(projectScope);
+    assertThat(manager.getCacheMissCount()).isEqualTo(1);
+    assertThat(manager.getCacheHitCount()).isEqualTo(1);
+
+    projectScope.getNode(SonarLintCorePlugin.PLUGIN_ID).put("moduleKey", "changedOutside");
+
+    assertThat(manager.readSonarLintConfiguration(projectScope).getModuleKey()).isEqualTo("changedOutside");
+    assertThat(manager.getCacheMissCount()).isEqualTo(2);
+
+    projectScope.getNode(SonarLintCorePlugin.PLUGIN_ID).remove("moduleKey");
+  }
+
+  @Test
+  public void should_not_share_modifications_until_saved() {
+    SonarLintProjectManager manager = new SonarLintProjectManager();
+    SonarLintProjectConfiguration configuration = manager.readSonarLintConfiguration(projectScope);
+    configuration.setExtraProperties(Collections.singletonList(new SonarLintProperty("key", "value")));
+    configuration.setFileExclusions(Collections.singletonList(new ExclusionItem(ExclusionItem.Type.FILE, "Foo.java")));
+
+    assertThat(manager.readSonarLintConfiguration(projectScope).getExtraProperties()).isEmpty();
+    assertThat(manager.readSonarLintConfiguration(projectScope).getFileExclusions()).isEmpty();
+
+    manager.saveSonarLintConfiguration(projectScope, configuration);
+
+    SonarLintProjectConfiguration saved = manager.readSonarLintConfiguration(projectScope);
+    assertThat(saved.getExtraProperties()).containsExactly(new SonarLintProperty("key", "value"));
+    assertThat(saved.getFileExclusions()).extracting(ExclusionItem::item).containsExactly("Foo.java");
+
+    saved.getExtraProperties().get(0).setValue("modified");
+    assertThat(manager.readSonarLintConfiguration(projectScope).getExtraProperties().get(0).getValue()).isEqualTo("value");
+
+    saved.setExtraProperties(Collections.emptyList());
+    saved.setFileExclusions(Collections.emptyList());
+    manager.saveSonarLintConfiguration(projectScope, saved);
+  }
+
+}
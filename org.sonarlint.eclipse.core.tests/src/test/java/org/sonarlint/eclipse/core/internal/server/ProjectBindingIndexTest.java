@@ -0,0 +1,70 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.server;
+
+import org.eclipse.core.resources.IProject;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
+import org.sonarlint.eclipse.core.internal.adapter.Adapters;
+import org.sonarlint.eclipse.core.internal.resources.SonarLintProjectConfiguration;
+import org.sonarlint.eclipse.core.resource.ISonarLintProject;
+import org.sonarlint.eclipse.tests.common.SonarTestCase;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ProjectBindingIndexTest extends SonarTestCase {
+
+  private static IProject project;
+  private static ISonarLintProject sonarLintProject;
+
+  @BeforeClass
+  public static void importProject() throws Exception {
+    project = importEclipseProject("SimpleProject");
+    sonarLintProject = Adapters.adapt(project, ISonarLintProject.class);
+  }
+
+  @Test
+  public void should_follow_binding_changes_and_project_lifecycle() throws Exception {
+    ServersManager manager = SonarLintCorePlugin.getServersManager();
+    assertThat(manager.getBoundProjects("server")).isEmpty();
+
+    SonarLintProjectConfiguration configuration = SonarLintProjectConfiguration.read(sonarLintProject.getScopeContext());
+    configuration.setServerId("server");
+    configuration.setModuleKey("module");
+    configuration.save();
+
+    assertThat(manager.getBoundProjects("server")).containsExactly(sonarLintProject);
+    assertThat(manager.getBoundProjects("server", "module")).containsExactly(sonarLintProject);
+    assertThat(manager.getBoundProjects("server", "other")).isEmpty();
+    assertThat(manager.getBoundProjectsPerModuleKey("server")).containsOnlyKeys("module");
+    assertThat(manager.getBoundProjects("other")).isEmpty();
+
+    project.close(MONITOR);
+    assertThat(manager.getBoundProjects("server")).isEmpty();
+
+    project.open(MONITOR);
+    assertThat(manager.getBoundProjects("server")).containsExactly(sonarLintProject);
+
+    SonarLintProjectConfiguration.read(sonarLintProject.getScopeContext()).unbind();
+    assertThat(manager.getBoundProjects("server")).isEmpty();
+  }
+
+}
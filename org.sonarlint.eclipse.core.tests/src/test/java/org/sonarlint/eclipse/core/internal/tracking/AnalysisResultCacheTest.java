@@ -0,0 +1,181 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonarlint.eclipse.core.internal.tracking.AnalysisResultCache.CachedIssue;
+import org.sonarlint.eclipse.core.resource.ISonarLintProject;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue.Flow;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueLocation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AnalysisResultCacheTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private final ISonarLintProject project = mock(ISonarLintProject.class);
+  private Path basePath;
+
+  @Before
+  public void setUp() throws IOException {
+    basePath = temp.newFolder().toPath();
+    when(project.exists(anyString())).thenReturn(true);
+  }
+
+  @Test
+  public void should_return_cached_issues_only_for_same_fingerprint() {
+    AnalysisResultCache cache = new AnalysisResultCache(basePath, project);
+    cache.put("src/Foo.java", "fp1", Collections.singletonList(mockIssue(3, 1, 3, 5)));
+
+    assertThat(cache.get("src/Foo.java", "fp2")).isNull();
+    assertThat(cache.get("src/Bar.java", "fp1")).isNull();
+    List<CachedIssue> cached = cache.get("src/Foo.java", "fp1");
+    assertThat(cached).hasSize(1);
+    assertThat(cached.get(0).getRuleKey()).isEqualTo("java:S123");
+    assertThat(cached.get(0).getMessage()).isEqualTo("message");
+    assertThat(cached.get(0).getTextRange().getStartLine()).isEqualTo(3);
+    assertThat(cached.get(0).getTextRange().getEndLineOffset()).isEqualTo(5);
+
+    assertThat(cache.getHitCount()).isEqualTo(1);
+    assertThat(cache.getMissCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void should_keep_line_only_and_file_level_issues() {
+    AnalysisResultCache cache = new AnalysisResultCache(basePath, project);
+    cache.put("src/Foo.java", "fp", Arrays.asList(mockIssue(7, null, null, null), mockIssue(null, null, null, null)));
+
+    List<CachedIssue> cached = cache.get("src/Foo.java", "fp");
+    assertThat(cached.get(0).getTextRange().getStartLine()).isEqualTo(7);
+    assertThat(cached.get(0).getTextRange().getStartLineOffset()).isNull();
+    assertThat(cached.get(1).getTextRange()).isNull();
+  }
+
+  @Test
+  public void should_keep_flows() {
+    IssueLocation location = mock(IssueLocation.class);
+    when(location.getStartLine()).thenReturn(1);
+    when(location.getStartLineOffset()).thenReturn(2);
+    when(location.getEndLine()).thenReturn(3);
+    when(location.getEndLineOffset()).thenReturn(4);
+    when(location.getMessage()).thenReturn("flow message");
+    Flow flow = mock(Flow.class);
+    when(flow.locations()).thenReturn(Collections.singletonList(location));
+    Issue issue = mockIssue(1, 0, 1, 1);
+    when(issue.flows()).thenReturn(Collections.singletonList(flow));
+
+    AnalysisResultCache cache = new AnalysisResultCache(basePath, project);
+    cache.put("src/Foo.java", "fp", Collections.singletonList(issue));
+
+    List<Flow> flows = cache.get("src/Foo.java", "fp").get(0).getFlows();
+    assertThat(flows).hasSize(1);
+    assertThat(flows.get(0).locations()).extracting("startLine", "startLineOffset", "endLine", "endLineOffset", "message")
+      .containsExactly(tuple(1, 2, 3, 4, "flow message"));
+  }
+
+  @Test
+  public void should_keep_file_level_flow_locations() {
+    IssueLocation location = mock(IssueLocation.class);
+    when(location.getMessage()).thenReturn("file level");
+    Flow flow = mock(Flow.class);
+    when(flow.locations()).thenReturn(Collections.singletonList(location));
+    Issue issue = mockIssue(1, 0, 1, 1);
+    when(issue.flows()).thenReturn(Collections.singletonList(flow));
+
+    AnalysisResultCache cache = new AnalysisResultCache(basePath, project);
+    cache.put("src/Foo.java", "fp", Collections.singletonList(issue));
+
+    List<Flow> flows = cache.get("src/Foo.java", "fp").get(0).getFlows();
+    assertThat(flows.get(0).locations()).extracting("startLine", "startLineOffset", "endLine", "endLineOffset", "message")
+      .containsExactly(tuple(null, null, null, null, "file level"));
+  }
+
+  @Test
+  public void should_persist_between_instances() {
+    new AnalysisResultCache(basePath, project).put("src/Foo.java", "fp", Collections.emptyList());
+
+    assertThat(new AnalysisResultCache(basePath, project).get("src/Foo.java", "fp")).isEmpty();
+  }
+
+  @Test
+  public void should_evict_least_recently_used_entries() {
+    AnalysisResultCache cache = new AnalysisResultCache(basePath, project, 2);
+    cache.put("A", "fp", Collections.emptyList());
+    cache.put("B", "fp", Collections.emptyList());
+    cache.get("A", "fp");
+    cache.put("C", "fp", Collections.emptyList());
+
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(cache.getEvictionCount()).isEqualTo(1);
+    assertThat(cache.get("B", "fp")).isNull();
+    assertThat(cache.get("A", "fp")).isEmpty();
+    assertThat(cache.get("C", "fp")).isEmpty();
+  }
+
+  @Test
+  public void fingerprint_should_depend_on_content_and_properties() throws IOException {
+    ClientInputFile file = mockInputFile("content");
+
+    String fingerprint = AnalysisResultCache.fingerprint(file, "rules", Collections.singletonMap("k", "v"));
+
+    assertThat(AnalysisResultCache.fingerprint(mockInputFile("content"), "rules", Collections.singletonMap("k", "v"))).isEqualTo(fingerprint);
+    assertThat(AnalysisResultCache.fingerprint(mockInputFile("content2"), "rules", Collections.singletonMap("k", "v"))).isNotEqualTo(fingerprint);
+    assertThat(AnalysisResultCache.fingerprint(file, "rules2", Collections.singletonMap("k", "v"))).isNotEqualTo(fingerprint);
+    assertThat(AnalysisResultCache.fingerprint(file, "rules", Collections.singletonMap("k", "v2"))).isNotEqualTo(fingerprint);
+  }
+
+  private static ClientInputFile mockInputFile(String content) throws IOException {
+    ClientInputFile file = mock(ClientInputFile.class);
+    when(file.contents()).thenReturn(content);
+    when(file.language()).thenReturn("java");
+    return file;
+  }
+
+  private static Issue mockIssue(Integer startLine, Integer startLineOffset, Integer endLine, Integer endLineOffset) {
+    Issue issue = mock(Issue.class);
+    when(issue.getRuleKey()).thenReturn("java:S123");
+    when(issue.getRuleName()).thenReturn("Rule name");
+    when(issue.getSeverity()).thenReturn("MAJOR");
+    when(issue.getType()).thenReturn("BUG");
+    when(issue.getMessage()).thenReturn("message");
+    when(issue.getStartLine()).thenReturn(startLine);
+    when(issue.getStartLineOffset()).thenReturn(startLineOffset);
+    when(issue.getEndLine()).thenReturn(endLine);
+    when(issue.getEndLineOffset()).thenReturn(endLineOffset);
+    return issue;
+  }
+
+}
@@ -0,0 +1,146 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.sonarlint.eclipse.core.internal.markers.TextRange;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue.Flow;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueLocation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CompactTrackableTest {
+
+  @Test
+  public void should_copy_tracked_issue() {
+    RawIssueTrackable raw = new RawIssueTrackable(mockIssue(), new TextRange(3, 1, 4, 5), "content", "line");
+    raw.setMarkerId(12L);
+    Trackable tracked = new PreviousTrackable(previous(), raw);
+
+    CompactTrackable compact = CompactTrackable.of(tracked);
+
+    assertThat(compact).extracting("ruleKey", "ruleName", "message", "severity", "rawSeverity", "type", "rawType", "line", "textRangeHash", "lineHash",
+      "serverIssueKey", "creationDate", "resolved", "assignee", "markerId")
+      .containsExactly("java:S123", "Rule name", "message", "BLOCKER", "MAJOR", "BUG", "BUG", 3, tracked.getTextRangeHash(), tracked.getLineHash(),
+        "serverKey", 1000L, true, "assignee", 7L);
+    assertThat(compact.getTextRange()).extracting("startLine", "startLineOffset", "endLine", "endLineOffset").containsExactly(3, 1, 4, 5);
+  }
+
+  @Test
+  public void should_keep_missing_values() {
+    Issue issue = mockIssue();
+    when(issue.getStartLine()).thenReturn(null);
+
+    CompactTrackable compact = CompactTrackable.of(new RawIssueTrackable(issue));
+
+    assertThat(compact.getLine()).isNull();
+    assertThat(compact.getTextRange()).isNull();
+    assertThat(compact.getTextRangeHash()).isNull();
+    assertThat(compact.getLineHash()).isNull();
+    assertThat(compact.getServerIssueKey()).isNull();
+    assertThat(compact.getCreationDate()).isNull();
+    assertThat(compact.getMarkerId()).isNull();
+    assertThat(compact.isResolved()).isFalse();
+    assertThat(compact.getFlows()).isEmpty();
+  }
+
+  @Test
+  public void should_copy_flows_without_retaining_engine_locations() {
+    IssueLocation location = mock(IssueLocation.class);
+    when(location.getStartLine()).thenReturn(1);
+    when(location.getStartLineOffset()).thenReturn(2);
+    when(location.getEndLine()).thenReturn(3);
+    when(location.getEndLineOffset()).thenReturn(null);
+    when(location.getMessage()).thenReturn("flow message");
+    Flow flow = mock(Flow.class);
+    when(flow.locations()).thenReturn(Collections.singletonList(location));
+    Issue issue = mockIssue();
+    when(issue.flows()).thenReturn(Collections.singletonList(flow));
+
+    CompactTrackable compact = CompactTrackable.of(new RawIssueTrackable(issue));
+
+    assertThat(compact.getFlows()).hasSize(1);
+    assertThat(compact.getFlows().get(0)).isNotSameAs(flow);
+    assertThat(compact.getFlows().get(0).locations()).doesNotContain(location)
+      .extracting("startLine", "startLineOffset", "endLine", "endLineOffset", "message")
+      .containsExactly(tuple(1, 2, 3, null, "flow message"));
+  }
+
+  @Test
+  public void should_intern_repeated_strings() {
+    Issue issue1 = mockIssue();
+    when(issue1.getMessage()).thenReturn(new String("message"));
+    Issue issue2 = mockIssue();
+    when(issue2.getMessage()).thenReturn(new String("message"));
+
+    List<Trackable> compacted = new ArrayList<>(CompactTrackable.compact(Arrays.asList(new RawIssueTrackable(issue1), new RawIssueTrackable(issue2))));
+
+    assertThat(compacted.get(0).getMessage()).isSameAs(compacted.get(1).getMessage());
+  }
+
+  @Test
+  public void should_not_copy_compact_trackable_again() {
+    CompactTrackable compact = CompactTrackable.of(new RawIssueTrackable(mockIssue()));
+
+    assertThat(CompactTrackable.of(compact)).isSameAs(compact);
+  }
+
+  @Test
+  public void should_update_marker_id() {
+    CompactTrackable compact = CompactTrackable.of(new RawIssueTrackable(mockIssue()));
+
+    compact.setMarkerId(3L);
+    assertThat(compact.getMarkerId()).isEqualTo(3L);
+    compact.setMarkerId(null);
+    assertThat(compact.getMarkerId()).isNull();
+  }
+
+  private static Trackable previous() {
+    Trackable previous = mock(Trackable.class);
+    when(previous.getServerIssueKey()).thenReturn("serverKey");
+    when(previous.getCreationDate()).thenReturn(1000L);
+    when(previous.isResolved()).thenReturn(true);
+    when(previous.getAssignee()).thenReturn("assignee");
+    when(previous.getMarkerId()).thenReturn(7L);
+    when(previous.getSeverity()).thenReturn("BLOCKER");
+    when(previous.getType()).thenReturn("BUG");
+    return previous;
+  }
+
+  private static Issue mockIssue() {
+    Issue issue = mock(Issue.class);
+    when(issue.getRuleKey()).thenReturn("java:S123");
+    when(issue.getRuleName()).thenReturn("Rule name");
+    when(issue.getSeverity()).thenReturn("MAJOR");
+    when(issue.getType()).thenReturn("BUG");
+    when(issue.getMessage()).thenReturn("message");
+    when(issue.getStartLine()).thenReturn(3);
+    return issue;
+  }
+
+}
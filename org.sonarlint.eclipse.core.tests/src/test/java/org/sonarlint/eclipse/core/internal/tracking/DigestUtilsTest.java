@@ -0,0 +1,99 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DigestUtilsTest {
+
+  @Test
+  public void should_ignore_whitespaces() {
+    assertThat(DigestUtils.digest(" int\ta =\r\n 1;\f\u000B")).isEqualTo(DigestUtils.digest("inta=1;"));
+    assertThat(DigestUtils.digest("")).isEqualTo("d41d8cd98f00b204e9800998ecf8427e");
+  }
+
+  @Test
+  public void should_be_same_as_md5_of_content_without_whitespaces() throws Exception {
+    String longLine = new String(new char[1000]).replace('\0', 'x') + " \u00e9\u4e2d";
+    String[] contents = {
+      "if (value != null && !value.isEmpty()) {",
+      // Only ASCII whitespaces are removed
+      "a\u00a0b\u2003c\u001cd",
+      // Multi bytes characters, and a surrogate pair split by a whitespace
+      "caf\u00e9 \u4e2d\u6587 \ud83d\ude00 \ud83d \ude00",
+      // Unpaired surrogates
+      "\ud83d\ud83d a \ude00",
+      longLine};
+    for (String content : contents) {
+      String expected = md5Hex(content.replaceAll("[\\s]", ""));
+      assertThat(DigestUtils.digest(content)).isEqualTo(expected);
+      assertThat(DigestUtils.digestHashCode(content)).isEqualTo(expected.hashCode());
+    }
+  }
+
+  @Test
+  public void should_be_thread_safe() throws Exception {
+    List<String> contents = new ArrayList<>();
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      String content = "line " + i + " with\tsome content " + Integer.toHexString(i * 31);
+      contents.add(content);
+      expected.add(md5Hex(content.replaceAll("[\\s]", "")));
+    }
+    Callable<List<String>> task = () -> {
+      List<String> digests = new ArrayList<>();
+      for (String content : contents) {
+        digests.add(DigestUtils.digest(content));
+      }
+      return digests;
+    };
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<List<String>>> futures = new ArrayList<>();
+      for (int i = 0; i < 32; i++) {
+        futures.add(executor.submit(task));
+      }
+      for (Future<List<String>> future : futures) {
+        assertThat(future.get(1, TimeUnit.MINUTES)).isEqualTo(expected);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static String md5Hex(String content) throws Exception {
+    byte[] digest = MessageDigest.getInstance("MD5").digest(content.getBytes(UTF_8));
+    return String.format("%032x", new BigInteger(1, digest));
+  }
+
+}
@@ -0,0 +1,144 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonarlint.eclipse.core.resource.ISonarLintProject;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tracks many files of the same module from several threads, with a small cache so that entries are evicted and read back from the
+ * store while other files are being tracked.
+ */
+public class IssueTrackerConcurrencyTest {
+
+  private static final int THREADS = 8;
+  private static final int FILES_PER_THREAD = 25;
+  private static final int ROUNDS = 3;
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private final ISonarLintProject project = mock(ISonarLintProject.class);
+  private PersistentIssueTrackerCache cache;
+  private IssueTracker tracker;
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() throws IOException {
+    when(project.exists(anyString())).thenReturn(true);
+    IssueStore store = new IssueStore(temp.newFolder().toPath(), project);
+    cache = new PersistentIssueTrackerCache(store, true, 20, Long.MAX_VALUE);
+    tracker = new IssueTracker(cache);
+    executor = Executors.newFixedThreadPool(THREADS);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+    cache.shutdown();
+  }
+
+  @Test
+  public void should_track_files_of_same_module_concurrently() throws Exception {
+    for (int round = 0; round < ROUNDS; round++) {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < THREADS; t++) {
+        futures.add(executor.submit(new TrackFiles(t)));
+      }
+      for (Future<?> future : futures) {
+        // Rethrows assertion errors raised in worker threads
+        future.get(1, TimeUnit.MINUTES);
+      }
+    }
+
+    assertThat(cache.getStats().getMissCount()).isPositive();
+  }
+
+  private class TrackFiles implements Callable<Void> {
+    private final int thread;
+
+    TrackFiles(int thread) {
+      this.thread = thread;
+    }
+
+    @Override
+    public Void call() {
+      for (int i = 0; i < FILES_PER_THREAD; i++) {
+        String file = "src/Thread" + thread + "File" + i + ".java";
+
+        // First analysis: nothing is new
+        Collection<Trackable> first = track(file, Collections.singletonList(rawIssue("existing", 1)));
+        assertThat(first).extracting(Trackable::getCreationDate).containsOnlyNulls();
+
+        // Second analysis: only the added issue is new
+        Map<String, Trackable> second = byRuleKey(track(file, Arrays.asList(rawIssue("existing", 1), rawIssue("added", 2))));
+        assertThat(second.get("existing").getCreationDate()).isNull();
+        Long creationDate = second.get("added").getCreationDate();
+        assertThat(creationDate).isNotNull();
+
+        // Third analysis: creation dates are kept, even if the previous state had to be read back from the store
+        Map<String, Trackable> third = byRuleKey(track(file, Arrays.asList(rawIssue("existing", 1), rawIssue("added", 2))));
+        assertThat(third.get("existing").getCreationDate()).isNull();
+        assertThat(third.get("added").getCreationDate()).isEqualTo(creationDate);
+      }
+      return null;
+    }
+  }
+
+  private Collection<Trackable> track(String file, Collection<Trackable> rawIssues) {
+    Collection<Trackable> tracked = tracker.matchAndTrackAsNew(file, rawIssues);
+    tracker.updateCache(file, tracked);
+    return tracked;
+  }
+
+  private static Map<String, Trackable> byRuleKey(Collection<Trackable> trackables) {
+    assertThat(trackables).hasSize(2);
+    return trackables.stream().collect(Collectors.toMap(Trackable::getRuleKey, Function.identity()));
+  }
+
+  private static Trackable rawIssue(String ruleKey, int line) {
+    return new RawIssueTrackable("java:" + ruleKey, "Rule " + ruleKey, "MAJOR", "BUG", "message", line, Collections.emptyList(), null, null,
+      "line content " + line);
+  }
+
+}
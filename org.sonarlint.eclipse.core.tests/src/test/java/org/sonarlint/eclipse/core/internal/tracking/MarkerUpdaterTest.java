@@ -20,14 +20,18 @@
 package org.sonarlint.eclipse.core.internal.tracking;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Path;
 import org.junit.After;
 import org.junit.Before;
@@ -87,12 +91,16 @@ public class MarkerUpdaterTest extends SonarTestCase {
     }
   }
 
-  private IMarker processTrackable(Trackable trackable) throws CoreException {
-    String relativePath = "src/Findbugs.java";
-    String absolutePath = project.getLocation().toString() + "/" + relativePath;
+  private static DefaultSonarLintFileAdapter findbugsFile() {
+    String absolutePath = project.getLocation().toString() + "/src/Findbugs.java";
     IPath location = Path.fromOSString(absolutePath);
     IFile file = workspace.getRoot().getFileForLocation(location);
-    DefaultSonarLintFileAdapter sonarLintFile = new DefaultSonarLintFileAdapter(new DefaultSonarLintProjectAdapter(project), file);
+    return new DefaultSonarLintFileAdapter(new DefaultSonarLintProjectAdapter(project), file);
+  }
+
+  private IMarker processTrackable(Trackable trackable) throws CoreException {
+    String relativePath = "src/Findbugs.java";
+    DefaultSonarLintFileAdapter sonarLintFile = findbugsFile();
     SonarLintMarkerUpdater.createOrUpdateMarkers(sonarLintFile, sonarLintFile.getDocument(), Collections.singletonList(trackable), TriggerType.EDITOR_CHANGE, false);
 
     IMarker[] markers = project.getFile(relativePath).findMarkers(SonarLintCorePlugin.MARKER_ON_THE_FLY_ID, true, IResource.DEPTH_INFINITE);
@@ -198,4 +206,67 @@ public class MarkerUpdaterTest extends SonarTestCase {
     IMarker marker = processTrackable(trackable);
     assertThat(marker.getAttribute(MarkerUtils.SONAR_MARKER_CREATION_DATE_ATTR)).isNull();
   }
+
+  @Test
+  public void should_notify_all_marker_changes_in_a_single_delta() throws Exception {
+    List<Trackable> trackables = new ArrayList<>();
+    for (int line = 1; line <= 10; line++) {
+      Trackable trackable = newMockTrackable();
+      when(trackable.getLine()).thenReturn(line);
+      when(trackable.getTextRange()).thenReturn(new TextRange(line));
+      when(trackable.getMessage()).thenReturn("message " + line);
+      trackables.add(trackable);
+    }
+    DefaultSonarLintFileAdapter sonarLintFile = findbugsFile();
+    List<IResourceChangeEvent> events = new ArrayList<>();
+    IResourceChangeListener listener = events::add;
+    workspace.addResourceChangeListener(listener, IResourceChangeEvent.POST_CHANGE);
+    try {
+      SonarLintMarkerUpdater.runInWorkspaceOperation(sonarLintFile.getProject(),
+        m -> SonarLintMarkerUpdater.createOrUpdateMarkers(sonarLintFile, sonarLintFile.getDocument(), trackables, TriggerType.EDITOR_CHANGE, false),
+        new NullProgressMonitor());
+    } finally {
+      workspace.removeResourceChangeListener(listener);
+    }
+
+    assertThat(events).hasSize(1);
+    assertThat(sonarLintFile.getResource().findMarkers(SonarLintCorePlugin.MARKER_ON_THE_FLY_ID, false, IResource.DEPTH_ZERO)).hasSize(10);
+  }
+
+  @Test
+  public void should_update_matching_marker_and_delete_others() throws Exception {
+    Trackable kept = newMockTrackable();
+    when(kept.getMessage()).thenReturn("kept");
+    Trackable removed = newMockTrackable();
+    when(removed.getMessage()).thenReturn("removed");
+    DefaultSonarLintFileAdapter sonarLintFile = findbugsFile();
+    SonarLintMarkerUpdater.createOrUpdateMarkers(sonarLintFile, sonarLintFile.getDocument(), Arrays.asList(kept, removed), TriggerType.EDITOR_CHANGE, false);
+    IMarker[] markers = sonarLintFile.getResource().findMarkers(SonarLintCorePlugin.MARKER_ON_THE_FLY_ID, false, IResource.DEPTH_ZERO);
+    assertThat(markers).hasSize(2);
+    IMarker keptMarker = "kept".equals(markers[0].getAttribute(IMarker.MESSAGE)) ? markers[0] : markers[1];
+    IMarker removedMarker = keptMarker == markers[0] ? markers[1] : markers[0];
+
+    Trackable updated = newMockTrackable();
+    when(updated.getMarkerId()).thenReturn(keptMarker.getId());
+    when(updated.getMessage()).thenReturn("updated");
+    IMarker updatedMarker = processTrackable(updated);
+
+    assertThat(removedMarker.exists()).isFalse();
+    assertThat(updatedMarker.getId()).isEqualTo(keptMarker.getId());
+    assertThat(updatedMarker.getAttribute(IMarker.MESSAGE)).isEqualTo("updated");
+  }
+
+  @Test
+  public void should_delete_marker_of_issue_resolved_on_server() throws Exception {
+    IMarker marker = processTrackable(newMockTrackable());
+    Trackable resolved = newMockTrackable();
+    when(resolved.getMarkerId()).thenReturn(marker.getId());
+    when(resolved.isResolved()).thenReturn(true);
+
+    DefaultSonarLintFileAdapter sonarLintFile = findbugsFile();
+    SonarLintMarkerUpdater.updateMarkersWithServerSideData(sonarLintFile, sonarLintFile.getDocument(), Collections.singletonList(resolved), TriggerType.EDITOR_CHANGE,
+      false);
+
+    assertThat(marker.exists()).isFalse();
+  }
 }
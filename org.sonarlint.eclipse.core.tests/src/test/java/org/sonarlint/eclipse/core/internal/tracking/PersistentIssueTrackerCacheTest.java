@@ -22,8 +22,8 @@ package org.sonarlint.eclipse.core.internal.tracking;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.ProjectScope;
 import org.junit.Before;
@@ -38,6 +38,7 @@ import org.sonarlint.eclipse.tests.common.SonarTestCase;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class PersistentIssueTrackerCacheTest extends SonarTestCase {
 
@@ -50,7 +51,7 @@ public class PersistentIssueTrackerCacheTest extends SonarTestCase {
   private StubIssueStore stubIssueStore;
 
   class StubIssueStore extends IssueStore {
-    private final Map<String, Collection<Trackable>> cache = new HashMap<>();
+    private final Map<String, Collection<Trackable>> cache = new ConcurrentHashMap<>();
 
     public StubIssueStore(ISonarLintProject project) throws IOException {
       super(temporaryFolder.newFolder().toPath(), project);
@@ -157,4 +158,75 @@ public class PersistentIssueTrackerCacheTest extends SonarTestCase {
     assertThat(cache.getCurrentTrackables(file)).isEmpty();
     assertThat(stubIssueStore.size()).isEqualTo(0);
   }
+
+  @Test
+  public void should_read_evicted_entries_in_write_behind_mode() {
+    PersistentIssueTrackerCache writeBehindCache = new PersistentIssueTrackerCache(stubIssueStore, true);
+    Collection<Trackable> firstTrackables = Collections.singletonList(mock(Trackable.class));
+    writeBehindCache.put("file0", firstTrackables);
+    for (int i = 1; i <= PersistentIssueTrackerCache.MAX_ENTRIES; i++) {
+      writeBehindCache.put("file" + i, Collections.emptyList());
+    }
+
+    // Either still waiting to be written, or already written
+    assertThat(writeBehindCache.isFirstAnalysis("file0")).isFalse();
+    assertThat(writeBehindCache.getCurrentTrackables("file0")).containsExactlyElementsOf(firstTrackables);
+  }
+
+  @Test
+  public void should_write_everything_on_shutdown_in_write_behind_mode() {
+    PersistentIssueTrackerCache writeBehindCache = new PersistentIssueTrackerCache(stubIssueStore, true);
+    int count = PersistentIssueTrackerCache.MAX_ENTRIES * 2;
+    for (int i = 0; i < count; i++) {
+      writeBehindCache.put("file" + i, Collections.emptyList());
+    }
+
+    writeBehindCache.shutdown();
+    assertThat(stubIssueStore.size()).isEqualTo(count);
+  }
+
+  @Test
+  public void should_not_write_unmodified_entries_again() {
+    cache.put("file", Collections.emptyList());
+    cache.flushAll();
+    stubIssueStore.clear();
+
+    cache.flushAll();
+    assertThat(stubIssueStore.size()).isEqualTo(0);
+
+    cache.put("file", Collections.emptyList());
+    cache.flushAll();
+    assertThat(stubIssueStore.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void should_report_statistics() {
+    cache.put("file", Collections.emptyList());
+    cache.getCurrentTrackables("file");
+    cache.getCurrentTrackables("other file");
+
+    IssueTrackerCacheStats stats = cache.getStats();
+    assertThat(stats.getHitCount()).isEqualTo(1);
+    assertThat(stats.getMissCount()).isEqualTo(1);
+    assertThat(stats.getHitRate()).isEqualTo(0.5);
+    assertThat(stats.getEntryCount()).isEqualTo(1);
+    assertThat(stats.getEstimatedBytes()).isPositive();
+    assertThat(stats.getEvictionCount()).isZero();
+  }
+
+  @Test
+  public void should_persist_issues_when_memory_limit_reached() {
+    Trackable trackable = mock(Trackable.class);
+    when(trackable.getMessage()).thenReturn("message");
+    Collection<Trackable> trackables = Collections.nCopies(100, trackable);
+    long size = PersistentIssueTrackerCache.estimateRetainedSize(trackables);
+    PersistentIssueTrackerCache boundedCache = new PersistentIssueTrackerCache(stubIssueStore, false, 1000, 5 * size);
+
+    for (int i = 0; i < 10; i++) {
+      boundedCache.put("file" + i, trackables);
+    }
+
+    assertThat(boundedCache.getStats().getEstimatedBytes()).isLessThanOrEqualTo(5 * size);
+    assertThat(stubIssueStore.size()).isEqualTo(5);
+  }
 }
@@ -0,0 +1,213 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SegmentedObjectStoreTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private Path basePath;
+
+  @Before
+  public void setUp() throws IOException {
+    basePath = temp.newFolder().toPath();
+  }
+
+  @Test
+  public void should_read_written_values() throws IOException {
+    SegmentedObjectStore<String> store = newStore(1024);
+    store.write("a", "value a");
+    store.write("b", "value b");
+    store.write("a", "new value a");
+
+    assertThat(store.read("a")).contains("new value a");
+    assertThat(store.read("b")).contains("value b");
+    assertThat(store.read("c")).isEmpty();
+    assertThat(store.contains("a")).isTrue();
+    assertThat(store.contains("c")).isFalse();
+  }
+
+  @Test
+  public void should_read_from_sealed_segments() throws IOException {
+    SegmentedObjectStore<String> store = newStore(10);
+    store.write("a", "value a");
+    store.write("b", "value b");
+
+    assertThat(store.getSegmentCount()).isEqualTo(2);
+    assertThat(store.read("a")).contains("value a");
+    assertThat(store.read("b")).contains("value b");
+  }
+
+  @Test
+  public void should_persist_between_instances() throws IOException {
+    SegmentedObjectStore<String> store = newStore(30);
+    store.write("a", "value a");
+    store.write("b", "value b");
+    store.write("c", "value c");
+    store.delete("b");
+    store.close();
+
+    SegmentedObjectStore<String> reopened = newStore(30);
+    assertThat(reopened.keys()).containsOnly("a", "c");
+    assertThat(reopened.read("a")).contains("value a");
+    assertThat(reopened.read("b")).isEmpty();
+  }
+
+  @Test
+  public void should_compact_into_single_pack() throws IOException {
+    SegmentedObjectStore<String> store = newStore(30);
+    for (int i = 0; i < 10; i++) {
+      store.write("a", "value a" + i);
+      store.write("b", "value b" + i);
+    }
+    store.delete("b");
+    assertThat(store.getObsoleteBytes()).isPositive();
+
+    store.compact();
+
+    assertThat(store.getSegmentCount()).isEqualTo(1);
+    assertThat(store.getObsoleteBytes()).isZero();
+    assertThat(listFiles()).hasSize(1);
+    store.write("c", "value c");
+    store.close();
+
+    SegmentedObjectStore<String> reopened = newStore(30);
+    assertThat(reopened.keys()).containsOnly("a", "c");
+    assertThat(reopened.read("a")).contains("value a9");
+  }
+
+  @Test
+  public void should_ignore_truncated_record() throws IOException {
+    SegmentedObjectStore<String> store = newStore(1024);
+    store.write("a", "value a");
+    store.close();
+    Path segment = listFiles()[0];
+    // Header of a record that was not completely written
+    Files.write(segment, new byte[] {0, 0, 0, 1, 0, 0}, StandardOpenOption.APPEND);
+
+    SegmentedObjectStore<String> reopened = newStore(1024);
+    assertThat(reopened.keys()).containsOnly("a");
+    reopened.write("b", "value b");
+    reopened.close();
+
+    assertThat(newStore(1024).keys()).containsOnly("a", "b");
+  }
+
+  @Test
+  public void should_delete_segments_replaced_by_pack() throws IOException {
+    SegmentedObjectStore<String> store = newStore(1024);
+    store.write("a", "value a");
+    store.close();
+    Path oldSegment = listFiles()[0];
+    Path copy = basePath.resolve("copy");
+    Files.copy(oldSegment, copy);
+
+    store = newStore(1024);
+    store.write("a", "new value a");
+    store.compact();
+    store.close();
+    // Simulate a crash before obsolete segment was deleted
+    Files.move(copy, oldSegment);
+
+    assertThat(newStore(1024).read("a")).contains("new value a");
+    assertThat(oldSegment).doesNotExist();
+  }
+
+  @Test
+  public void should_not_compact_once_closed() throws IOException {
+    SegmentedObjectStore<String> store = newStore(30);
+    for (int i = 0; i < 10; i++) {
+      store.write("a", "value a" + i);
+    }
+    Path[] files = listFiles();
+    store.close();
+
+    // Compaction scheduled before the store was closed
+    store.compact();
+
+    assertThat(listFiles()).containsOnly(files);
+    assertThat(store.getSegmentCount()).isZero();
+    assertThatThrownBy(() -> store.read("a")).isInstanceOf(IOException.class);
+    assertThatThrownBy(() -> store.write("a", "value")).isInstanceOf(IOException.class);
+    assertThat(newStore(30).read("a")).contains("value a9");
+  }
+
+  @Test
+  public void should_delete_invalid_keys() throws IOException {
+    SegmentedObjectStore<String> store = newStore(1024);
+    store.write("valid", "value");
+    store.write("invalid", "value");
+
+    store.deleteInvalid();
+
+    assertThat(store.keys()).containsOnly("valid");
+  }
+
+  private Path[] listFiles() throws IOException {
+    try (Stream<Path> files = Files.list(basePath)) {
+      return files.toArray(Path[]::new);
+    }
+  }
+
+  private SegmentedObjectStore<String> newStore(long maxSegmentSize) {
+    return new SegmentedObjectStore<>(basePath,
+      is -> {
+        try {
+          ByteArrayOutputStream out = new ByteArrayOutputStream();
+          byte[] buffer = new byte[64];
+          int read;
+          while ((read = is.read(buffer)) > 0) {
+            out.write(buffer, 0, read);
+          }
+          return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      },
+      (os, value) -> {
+        try {
+          os.write(value.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      },
+      key -> !key.startsWith("invalid"),
+      maxSegmentSize,
+      Runnable::run);
+  }
+
+}
@@ -0,0 +1,139 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class ServerIssueDownloadCostModelTest {
+
+  private static final String MODULE_ID = "http://localhost:9000 module";
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void should_use_default_threshold_until_durations_are_measured() {
+    ServerIssueDownloadCostModel model = new ServerIssueDownloadCostModel(null);
+    model.fileDownloaded(MODULE_ID, 100);
+
+    assertThat(model.shouldDownloadModule(MODULE_ID, ServerIssueDownloadCostModel.DEFAULT_MODULE_DOWNLOAD_THRESHOLD - 1, 4)).isFalse();
+    assertThat(model.shouldDownloadModule(MODULE_ID, ServerIssueDownloadCostModel.DEFAULT_MODULE_DOWNLOAD_THRESHOLD, 4)).isTrue();
+  }
+
+  @Test
+  public void should_prefer_file_downloads_for_big_module() {
+    ServerIssueDownloadCostModel model = new ServerIssueDownloadCostModel(null);
+    model.fileDownloaded(MODULE_ID, 100);
+    model.moduleDownloaded(MODULE_ID, 5000);
+
+    // 40 files with 4 concurrent requests take ~1000 ms
+    assertThat(model.shouldDownloadModule(MODULE_ID, 40, 4)).isFalse();
+    assertThat(model.shouldDownloadModule(MODULE_ID, 400, 4)).isTrue();
+  }
+
+  @Test
+  public void should_prefer_module_download_for_small_module() {
+    ServerIssueDownloadCostModel model = new ServerIssueDownloadCostModel(null);
+    model.fileDownloaded(MODULE_ID, 100);
+    model.moduleDownloaded(MODULE_ID, 150);
+
+    assertThat(model.shouldDownloadModule(MODULE_ID, 2, 1)).isTrue();
+    assertThat(model.shouldDownloadModule(MODULE_ID, 2, 4)).isFalse();
+    assertThat(model.shouldDownloadModule("http://localhost:9000 other", 2, 1)).isFalse();
+  }
+
+  @Test
+  public void should_smooth_measures() {
+    ServerIssueDownloadCostModel model = new ServerIssueDownloadCostModel(null);
+    model.fileDownloaded(MODULE_ID, 100);
+    model.moduleDownloaded(MODULE_ID, 300);
+    // A single slow request is not enough to change the decision
+    model.fileDownloaded(MODULE_ID, 200);
+
+    assertThat(model.shouldDownloadModule(MODULE_ID, 2, 1)).isFalse();
+  }
+
+  @Test
+  public void should_measure_again_the_strategy_not_chosen() {
+    ServerIssueDownloadCostModel model = new ServerIssueDownloadCostModel(null);
+    model.fileDownloaded(MODULE_ID, 100);
+    // Unusually slow
+    model.moduleDownloaded(MODULE_ID, 100_000);
+
+    for (int i = 0; i < ServerIssueDownloadCostModel.REMEASURE_INTERVAL; i++) {
+      assertThat(model.shouldDownloadModule(MODULE_ID, 40, 4)).isFalse();
+    }
+    assertThat(model.shouldDownloadModule(MODULE_ID, 40, 4)).isTrue();
+    assertThat(model.getDecisions().get(ServerIssueDownloadCostModel.REMEASURE_INTERVAL).isRemeasure()).isTrue();
+
+    // The new measure replaces the wrong estimation
+    model.moduleDownloaded(MODULE_ID, 500);
+    assertThat(model.shouldDownloadModule(MODULE_ID, 40, 4)).isTrue();
+    assertThat(model.shouldDownloadModule(MODULE_ID, 40, 4)).isTrue();
+  }
+
+  @Test
+  public void should_persist_measures_between_instances() throws IOException {
+    Path statsFile = temp.newFolder().toPath().resolve("stats.properties");
+    ServerIssueDownloadCostModel model = new ServerIssueDownloadCostModel(statsFile);
+    model.fileDownloaded(MODULE_ID, 100);
+    model.moduleDownloaded(MODULE_ID, 5000);
+    model.save();
+
+    assertThat(new ServerIssueDownloadCostModel(statsFile).shouldDownloadModule(MODULE_ID, 40, 4)).isFalse();
+  }
+
+  @Test
+  public void should_throttle_saves() throws IOException {
+    Path statsFile = temp.newFolder().toPath().resolve("stats.properties");
+    AtomicLong now = new AtomicLong(1000);
+    ServerIssueDownloadCostModel model = new ServerIssueDownloadCostModel(statsFile, now::get);
+    model.fileDownloaded(MODULE_ID, 100);
+
+    model.saveIfDue();
+    assertThat(statsFile).doesNotExist();
+
+    now.addAndGet(ServerIssueDownloadCostModel.SAVE_INTERVAL_MS);
+    model.saveIfDue();
+    assertThat(statsFile).exists();
+  }
+
+  @Test
+  public void should_record_decisions() {
+    ServerIssueDownloadCostModel model = new ServerIssueDownloadCostModel(null);
+    model.shouldDownloadModule(MODULE_ID, 3, 4);
+    model.fileDownloaded(MODULE_ID, 100);
+    model.moduleDownloaded(MODULE_ID, 5000);
+    model.shouldDownloadModule(MODULE_ID, 400, 4);
+
+    assertThat(model.getDecisions()).extracting("moduleId", "fileCount", "downloadModule")
+      .containsExactly(tuple(MODULE_ID, 3, false), tuple(MODULE_ID, 400, true));
+    assertThat(model.getDecisions().get(1).toString()).contains("~100 ms per file, ~5000 ms for the module");
+  }
+
+}
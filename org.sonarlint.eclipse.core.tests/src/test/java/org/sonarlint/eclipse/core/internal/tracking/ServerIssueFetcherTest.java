@@ -0,0 +1,159 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.After;
+import org.junit.Test;
+import org.sonarsource.sonarlint.core.client.api.connected.ConnectedSonarLintEngine;
+import org.sonarsource.sonarlint.core.client.api.connected.ServerConfiguration;
+import org.sonarsource.sonarlint.core.client.api.connected.ServerIssue;
+import org.sonarsource.sonarlint.core.client.api.exceptions.DownloadException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ServerIssueFetcherTest {
+
+  private final AtomicLong now = new AtomicLong(1000);
+  private final ServerIssueFetcher fetcher = new ServerIssueFetcher("http://localhost:9000", 2, new ServerIssueDownloadCostModel(null), now::get);
+  private final ServerConfiguration serverConfiguration = ServerConfiguration.builder().url("http://localhost:9000").userAgent("test").build();
+  private final ConnectedSonarLintEngine engine = mock(ConnectedSonarLintEngine.class);
+
+  @After
+  public void shutdown() {
+    fetcher.shutdown();
+  }
+
+  @Test
+  public void should_limit_concurrent_requests() {
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    when(engine.downloadServerIssues(any(ServerConfiguration.class), anyString(), anyString())).thenAnswer(invocation -> {
+      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      Thread.sleep(20);
+      running.decrementAndGet();
+      return Collections.emptyList();
+    });
+
+    List<CompletableFuture<List<ServerIssue>>> futures = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      futures.add(fetcher.downloadFile(serverConfiguration, engine, "module", "File" + i + ".java"));
+    }
+    futures.forEach(f -> assertThat(f.join()).isEmpty());
+
+    assertThat(maxRunning.get()).isBetween(1, 2);
+    assertThat(fetcher.getRequestCount()).isEqualTo(8);
+  }
+
+  @Test
+  public void should_share_download_in_flight() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    when(engine.downloadServerIssues(serverConfiguration, "module", "A.java")).thenAnswer(invocation -> {
+      started.countDown();
+      release.await(10, TimeUnit.SECONDS);
+      return Collections.emptyList();
+    });
+
+    CompletableFuture<List<ServerIssue>> first = fetcher.downloadFile(serverConfiguration, engine, "module", "A.java");
+    started.await(10, TimeUnit.SECONDS);
+    CompletableFuture<List<ServerIssue>> second = fetcher.downloadFile(serverConfiguration, engine, "module", "A.java");
+    release.countDown();
+
+    assertThat(second).isSameAs(first);
+    assertThat(first.get(10, TimeUnit.SECONDS)).isEmpty();
+    verify(engine, times(1)).downloadServerIssues(serverConfiguration, "module", "A.java");
+    assertThat(fetcher.getSharedCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void should_suspend_downloads_after_failure() {
+    when(engine.downloadServerIssues(any(ServerConfiguration.class), anyString(), anyString())).thenThrow(DownloadException.class);
+
+    assertThat(fetcher.downloadFile(serverConfiguration, engine, "module", "A.java").join()).isNull();
+    assertThat(fetcher.downloadFile(serverConfiguration, engine, "module", "B.java").join()).isNull();
+    assertThat(fetcher.getRequestCount()).isEqualTo(1);
+    assertThat(fetcher.getSuspendedCount()).isEqualTo(1);
+
+    now.addAndGet(ServerIssueFetcher.INITIAL_BACKOFF_MS);
+    fetcher.downloadFile(serverConfiguration, engine, "module", "B.java").join();
+    assertThat(fetcher.getRequestCount()).isEqualTo(2);
+
+    // Failed again, suspended twice as long
+    now.addAndGet(ServerIssueFetcher.INITIAL_BACKOFF_MS);
+    fetcher.downloadFile(serverConfiguration, engine, "module", "B.java").join();
+    assertThat(fetcher.getRequestCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void should_fail_downloads_once_shut_down() {
+    fetcher.shutdown();
+
+    CompletableFuture<List<ServerIssue>> future = fetcher.downloadFile(serverConfiguration, engine, "module", "A.java");
+    CompletableFuture<List<ServerIssue>> retry = fetcher.downloadFile(serverConfiguration, engine, "module", "A.java");
+
+    assertThat(future.isCompletedExceptionally()).isTrue();
+    assertThat(retry).isNotSameAs(future);
+    assertThat(retry.isCompletedExceptionally()).isTrue();
+    assertThat(fetcher.getSharedCount()).isZero();
+  }
+
+  @Test
+  public void should_download_module() {
+    assertThat(fetcher.downloadModule(serverConfiguration, engine, "module").join()).isTrue();
+    verify(engine).downloadServerIssues(serverConfiguration, "module");
+  }
+
+  @Test
+  public void should_not_share_module_download_with_file_download_of_same_key() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      started.countDown();
+      release.await(10, TimeUnit.SECONDS);
+      return null;
+    }).when(engine).downloadServerIssues(serverConfiguration, "org:module");
+    when(engine.downloadServerIssues(serverConfiguration, "org", "module")).thenReturn(Collections.emptyList());
+
+    CompletableFuture<Boolean> module = fetcher.downloadModule(serverConfiguration, engine, "org:module");
+    started.await(10, TimeUnit.SECONDS);
+    List<ServerIssue> fileIssues = fetcher.downloadFile(serverConfiguration, engine, "org", "module").get(10, TimeUnit.SECONDS);
+    release.countDown();
+
+    assertThat(fileIssues).isEmpty();
+    assertThat(module.get(10, TimeUnit.SECONDS)).isTrue();
+    assertThat(fetcher.getSharedCount()).isZero();
+  }
+
+}
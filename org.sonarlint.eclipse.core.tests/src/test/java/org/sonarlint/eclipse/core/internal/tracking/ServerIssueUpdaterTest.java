@@ -0,0 +1,131 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.After;
+import org.junit.Test;
+import org.sonarsource.sonarlint.core.client.api.connected.ConnectedSonarLintEngine;
+import org.sonarsource.sonarlint.core.client.api.connected.ServerConfiguration;
+import org.sonarsource.sonarlint.core.client.api.connected.ServerIssue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ServerIssueUpdaterTest {
+
+  private static final String MODULE_KEY = "module";
+
+  private final AtomicLong now = new AtomicLong(1000);
+  private final ServerIssueSnapshots snapshots = new ServerIssueSnapshots(100, now::get);
+  private final ServerIssueUpdater updater = new ServerIssueUpdater(mock(IssueTrackerRegistry.class), snapshots, new ServerIssueDownloadCostModel(null), () -> 2);
+  private final ServerConfiguration serverConfiguration = ServerConfiguration.builder().url("http://localhost:9000").userAgent("test").build();
+  private final ConnectedSonarLintEngine engine = mock(ConnectedSonarLintEngine.class);
+
+  @After
+  public void shutdown() {
+    updater.shutdown();
+  }
+
+  @Test
+  public void should_download_issues_of_each_file_when_few_files() {
+    ServerIssue issue = mock(ServerIssue.class);
+    when(engine.downloadServerIssues(serverConfiguration, MODULE_KEY, "A.java")).thenReturn(Arrays.asList(issue));
+
+    Map<String, List<ServerIssue>> result = updater.fetchServerIssues(serverConfiguration, engine, MODULE_KEY, Arrays.asList("A.java", "B.java"));
+
+    assertThat(result.get("A.java")).containsExactly(issue);
+    assertThat(result.get("B.java")).isEmpty();
+    verify(engine).downloadServerIssues(serverConfiguration, MODULE_KEY, "B.java");
+    verify(engine, never()).downloadServerIssues(serverConfiguration, MODULE_KEY);
+    assertThat(snapshots.getRequestCount()).isEqualTo(2);
+    assertThat(snapshots.getSavedRequestCount()).isZero();
+  }
+
+  @Test
+  public void should_download_issues_of_module_when_many_files() {
+    List<String> fileKeys = files(ServerIssueDownloadCostModel.DEFAULT_MODULE_DOWNLOAD_THRESHOLD);
+
+    updater.fetchServerIssues(serverConfiguration, engine, MODULE_KEY, fileKeys);
+
+    verify(engine).downloadServerIssues(serverConfiguration, MODULE_KEY);
+    verify(engine, never()).downloadServerIssues(any(ServerConfiguration.class), anyString(), anyString());
+    verify(engine, times(fileKeys.size())).getServerIssues(eq(MODULE_KEY), anyString());
+    assertThat(snapshots.getRequestCount()).isEqualTo(1);
+    assertThat(snapshots.getSavedRequestCount()).isEqualTo(fileKeys.size() - 1);
+  }
+
+  @Test
+  public void should_serve_recently_downloaded_files_locally() {
+    updater.fetchServerIssues(serverConfiguration, engine, MODULE_KEY, Arrays.asList("A.java"));
+    now.addAndGet(50);
+    updater.fetchServerIssues(serverConfiguration, engine, MODULE_KEY, Arrays.asList("A.java", "B.java"));
+
+    verify(engine).downloadServerIssues(serverConfiguration, MODULE_KEY, "A.java");
+    verify(engine).downloadServerIssues(serverConfiguration, MODULE_KEY, "B.java");
+    assertThat(snapshots.getSavedRequestCount()).isEqualTo(1);
+
+    now.addAndGet(100);
+    updater.fetchServerIssues(serverConfiguration, engine, MODULE_KEY, Arrays.asList("A.java"));
+    verify(engine, times(2)).downloadServerIssues(serverConfiguration, MODULE_KEY, "A.java");
+  }
+
+  @Test
+  public void should_serve_all_files_locally_after_module_download() {
+    updater.fetchServerIssues(serverConfiguration, engine, MODULE_KEY, files(ServerIssueDownloadCostModel.DEFAULT_MODULE_DOWNLOAD_THRESHOLD));
+    updater.fetchServerIssues(serverConfiguration, engine, MODULE_KEY, Arrays.asList("Other.java"));
+
+    verify(engine, never()).downloadServerIssues(any(ServerConfiguration.class), anyString(), anyString());
+    assertThat(snapshots.isFresh("http://localhost:9000 " + MODULE_KEY, "Other.java")).isTrue();
+    assertThat(snapshots.isFresh("http://localhost:9000 other", "Other.java")).isFalse();
+  }
+
+  @Test
+  public void should_download_again_once_invalidated() {
+    updater.fetchServerIssues(serverConfiguration, engine, MODULE_KEY, Arrays.asList("A.java"));
+    updater.invalidateDownloads("http://localhost:9000", "other");
+    updater.fetchServerIssues(serverConfiguration, engine, MODULE_KEY, Arrays.asList("A.java"));
+    verify(engine).downloadServerIssues(serverConfiguration, MODULE_KEY, "A.java");
+
+    updater.invalidateDownloads("http://localhost:9000", MODULE_KEY);
+    updater.fetchServerIssues(serverConfiguration, engine, MODULE_KEY, Arrays.asList("A.java"));
+    verify(engine, times(2)).downloadServerIssues(serverConfiguration, MODULE_KEY, "A.java");
+  }
+
+  private static List<String> files(int count) {
+    List<String> fileKeys = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      fileKeys.add("File" + i + ".java");
+    }
+    return fileKeys;
+  }
+
+}
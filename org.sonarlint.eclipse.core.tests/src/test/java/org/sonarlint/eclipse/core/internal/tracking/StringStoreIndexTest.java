@@ -0,0 +1,95 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StringStoreIndexTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private Path basePath;
+
+  @Before
+  public void setUp() throws IOException {
+    basePath = temp.newFolder().toPath();
+  }
+
+  @Test
+  public void should_persist_changes_between_instances() {
+    StringStoreIndex index = new StringStoreIndex(basePath);
+    index.save("a", basePath.resolve("1"));
+    index.save("b", basePath.resolve("2"));
+    index.delete("a");
+
+    assertThat(basePath.resolve(StringStoreIndex.JOURNAL_FILENAME)).exists();
+    assertThat(new StringStoreIndex(basePath).keys()).containsOnly("b");
+  }
+
+  @Test
+  public void should_compact_journal_into_snapshot() {
+    StringStoreIndex index = new StringStoreIndex(basePath);
+    for (int i = 0; i <= 100; i++) {
+      index.save("key" + i, basePath.resolve("path" + i));
+    }
+
+    assertThat(basePath.resolve(StringStoreIndex.INDEX_FILENAME)).exists();
+    assertThat(basePath.resolve(StringStoreIndex.JOURNAL_FILENAME)).doesNotExist();
+    assertThat(new StringStoreIndex(basePath).keys()).hasSize(101);
+  }
+
+  @Test
+  public void should_not_journal_unchanged_entries() throws IOException {
+    StringStoreIndex index = new StringStoreIndex(basePath);
+    index.save("a", basePath.resolve("1"));
+    long size = Files.size(basePath.resolve(StringStoreIndex.JOURNAL_FILENAME));
+
+    index.save("a", basePath.resolve("1"));
+    index.delete("unknown");
+
+    assertThat(Files.size(basePath.resolve(StringStoreIndex.JOURNAL_FILENAME))).isEqualTo(size);
+  }
+
+  @Test
+  public void should_ignore_truncated_journal_record() throws IOException {
+    StringStoreIndex index = new StringStoreIndex(basePath);
+    index.save("a", basePath.resolve("1"));
+    Path journal = basePath.resolve(StringStoreIndex.JOURNAL_FILENAME);
+    // Simulate a crash in the middle of writing a record: length prefix announcing more bytes than available
+    Files.write(journal, new byte[] {42, 10}, StandardOpenOption.APPEND);
+
+    StringStoreIndex reloaded = new StringStoreIndex(basePath);
+    assertThat(reloaded.keys()).containsOnly("a");
+
+    reloaded.save("b", basePath.resolve("2"));
+    assertThat(new StringStoreIndex(basePath).keys()).containsOnly("a", "b");
+  }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TinyLfuCacheTest {
+
+  private final List<String> evicted = new ArrayList<>();
+
+  @Test
+  public void should_evict_when_max_entries_reached() {
+    TinyLfuCache<String, Integer> cache = new TinyLfuCache<>(10, Long.MAX_VALUE, v -> 1L, (k, v) -> evicted.add(k));
+    for (int i = 0; i < 10; i++) {
+      cache.put("file" + i, i);
+    }
+    assertThat(evicted).isEmpty();
+
+    cache.put("file10", 10);
+
+    assertThat(cache.size()).isEqualTo(10);
+    assertThat(evicted).hasSize(1);
+    assertThat(cache.getEvictionCount()).isEqualTo(1);
+    assertThat(cache.containsKey("file10")).isTrue();
+  }
+
+  @Test
+  public void should_keep_frequently_used_entries_during_scan() {
+    TinyLfuCache<String, Integer> cache = new TinyLfuCache<>(100, Long.MAX_VALUE, v -> 1L, (k, v) -> evicted.add(k));
+    for (int round = 0; round < 5; round++) {
+      for (int i = 0; i < 10; i++) {
+        cache.put("edited" + i, i);
+        cache.get("edited" + i);
+      }
+    }
+
+    for (int i = 0; i < 500; i++) {
+      cache.put("analyzed" + i, i);
+    }
+
+    for (int i = 0; i < 10; i++) {
+      assertThat(cache.get("edited" + i)).isEqualTo(i);
+    }
+    assertThat(evicted).allMatch(k -> k.startsWith("analyzed"));
+  }
+
+  @Test
+  public void should_bound_weight() {
+    TinyLfuCache<String, Integer> cache = new TinyLfuCache<>(100, 1000, Integer::longValue, (k, v) -> evicted.add(k));
+    for (int i = 0; i < 50; i++) {
+      cache.put("file" + i, 100);
+    }
+
+    assertThat(cache.weight()).isLessThanOrEqualTo(1000);
+    assertThat(cache.size()).isEqualTo(10);
+    assertThat(evicted).hasSize(40);
+  }
+
+  @Test
+  public void should_keep_last_added_entry_even_if_too_heavy() {
+    TinyLfuCache<String, Integer> cache = new TinyLfuCache<>(100, 1000, Integer::longValue, (k, v) -> evicted.add(k));
+    cache.put("small", 10);
+    cache.put("huge", 5000);
+
+    assertThat(cache.containsKey("huge")).isTrue();
+    assertThat(cache.get("huge")).isEqualTo(5000);
+  }
+
+  @Test
+  public void should_replace_value_of_existing_entry() {
+    TinyLfuCache<String, Integer> cache = new TinyLfuCache<>(10, 1000, Integer::longValue, (k, v) -> evicted.add(k));
+    cache.put("file", 100);
+    cache.put("file", 200);
+
+    assertThat(cache.get("file")).isEqualTo(200);
+    assertThat(cache.size()).isEqualTo(1);
+    assertThat(cache.weight()).isEqualTo(200);
+  }
+
+}
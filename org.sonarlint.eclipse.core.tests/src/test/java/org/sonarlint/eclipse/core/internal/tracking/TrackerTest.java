@@ -0,0 +1,121 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TrackerTest {
+
+  @Test
+  public void should_match_issues_with_same_key_in_original_order() {
+    Trackable base1 = trackable("rule", 1, "msg", 10, 100, null);
+    Trackable base2 = trackable("rule", 1, "msg", 10, 100, null);
+    Trackable raw1 = trackable("rule", 1, "msg", 10, 100, null);
+    Trackable raw2 = trackable("rule", 1, "msg", 10, 100, null);
+
+    Tracking<Trackable, Trackable> tracking = track(Arrays.asList(raw1, raw2), Arrays.asList(base1, base2));
+
+    assertThat(tracking.getMatchedRaws()).containsOnly(entry(raw1, base1), entry(raw2, base2));
+  }
+
+  @Test
+  public void should_prefer_earlier_passes() {
+    // Same line and text range hash, but different message
+    Trackable sameRange = trackable("rule", 1, "other msg", 10, null, null);
+    // Same line and message, but different text range hash
+    Trackable sameMessage = trackable("rule", 1, "msg", 20, null, null);
+    Trackable raw = trackable("rule", 1, "msg", 10, null, null);
+
+    Tracking<Trackable, Trackable> tracking = track(Collections.singletonList(raw), Arrays.asList(sameMessage, sameRange));
+
+    assertThat(tracking.getMatchedRaws()).containsOnly(entry(raw, sameRange));
+    assertThat(tracking.getUnmatchedBases()).containsExactly(sameMessage);
+  }
+
+  @Test
+  public void should_match_null_fields_together() {
+    Trackable base = trackable("rule", null, "msg", null, null, null);
+    Trackable raw = trackable("rule", null, "other msg", null, null, null);
+
+    Tracking<Trackable, Trackable> tracking = track(Collections.singletonList(raw), Collections.singletonList(base));
+
+    assertThat(tracking.getMatchedRaws()).containsOnly(entry(raw, base));
+  }
+
+  @Test
+  public void should_not_match_on_rule_or_blank_server_issue_key() {
+    Trackable otherRule = trackable("rule1", 1, "msg", 10, 100, null);
+    Trackable blankKey = trackable("rule2", 2, "msg", 20, 200, " ");
+    Trackable sameKey = trackable("rule3", 3, "msg", 30, 300, "key");
+    Trackable raw1 = trackable("rule4", 1, "msg", 10, 100, null);
+    Trackable raw2 = trackable("rule4", 4, "msg4", 40, 400, " ");
+    Trackable raw3 = trackable("rule4", 5, "msg5", 50, 500, "key");
+
+    Tracking<Trackable, Trackable> tracking = track(Arrays.asList(raw1, raw2, raw3), Arrays.asList(otherRule, blankKey, sameKey));
+
+    assertThat(tracking.getMatchedRaws()).containsOnly(entry(raw3, sameKey));
+  }
+
+  @Test
+  public void should_track_many_issues() {
+    int count = 2_000;
+    Trackable[] bases = new Trackable[count];
+    Trackable[] raws = new Trackable[count];
+    for (int i = 0; i < count; i++) {
+      bases[i] = trackable("rule" + (i % 10), i / 10, "msg" + i, i, i, null);
+      // Every other issue moved to the next line, and had its message changed
+      raws[i] = i % 2 == 0 ? trackable("rule" + (i % 10), i / 10, "msg" + i, i, i, null) : trackable("rule" + (i % 10), i / 10 + 1, "new msg", i, i, null);
+    }
+
+    Tracking<Trackable, Trackable> tracking = track(Arrays.asList(raws), Arrays.asList(bases));
+
+    assertThat(tracking.getMatchedRaws()).hasSize(count);
+    for (int i = 0; i < count; i++) {
+      assertThat(tracking.baseFor(raws[i])).isSameAs(bases[i]);
+    }
+  }
+
+  private static Tracking<Trackable, Trackable> track(Collection<Trackable> raws, List<Trackable> bases) {
+    return new Tracker<>().track(() -> raws, () -> bases);
+  }
+
+  private static Trackable trackable(String ruleKey, @Nullable Integer line, String message, @Nullable Integer textRangeHash, @Nullable Integer lineHash,
+    @Nullable String serverIssueKey) {
+    Trackable trackable = mock(Trackable.class);
+    when(trackable.getRuleKey()).thenReturn(ruleKey);
+    when(trackable.getLine()).thenReturn(line);
+    when(trackable.getMessage()).thenReturn(message);
+    when(trackable.getTextRangeHash()).thenReturn(textRangeHash);
+    when(trackable.getLineHash()).thenReturn(lineHash);
+    when(trackable.getServerIssueKey()).thenReturn(serverIssueKey);
+    return trackable;
+  }
+
+}
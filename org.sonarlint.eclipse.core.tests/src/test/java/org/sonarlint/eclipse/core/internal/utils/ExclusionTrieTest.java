@@ -0,0 +1,75 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.utils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+import org.sonarsource.sonarlint.core.client.api.common.FileExclusions;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExclusionTrieTest {
+
+  private static final List<String> PATHS = Arrays.asList("Foo.java", "src/Foo.java", "src/main/Foo.java", "src/main/java/Foo.java", "src/main/java/foo/Bar.js",
+    "src/test/FooTest.java", "srcs/Foo.java", "lib/a.jar", "lib/sub/b.jar", "gen/x/y/Gen.java", "README.md");
+
+  @Test
+  public void should_exclude_files_and_directories() {
+    ExclusionTrie trie = new ExclusionTrie(Collections.singleton("src/Foo.java"), Arrays.asList("lib", "src/main/java/"), Collections.emptySet());
+
+    assertThat(trie.test("src/Foo.java")).isTrue();
+    assertThat(trie.test("lib/a.jar")).isTrue();
+    assertThat(trie.test("lib/sub/b.jar")).isTrue();
+    assertThat(trie.test("src/main/java/foo/Bar.js")).isTrue();
+    assertThat(trie.test("src/main/Foo.java")).isFalse();
+    assertThat(trie.test("libs/a.jar")).isFalse();
+    assertThat(trie.test("Foo.java")).isFalse();
+  }
+
+  @Test
+  public void should_match_globs_from_their_literal_prefix() {
+    ExclusionTrie trie = new ExclusionTrie(Collections.emptySet(), Collections.emptySet(), Arrays.asList("src/main/**/*.js", "gen/**", "README.md"));
+
+    assertThat(trie.test("src/main/java/foo/Bar.js")).isTrue();
+    assertThat(trie.test("gen/x/y/Gen.java")).isTrue();
+    assertThat(trie.test("README.md")).isTrue();
+    assertThat(trie.test("src/main/java/Foo.java")).isFalse();
+    assertThat(trie.test("src/README.md")).isFalse();
+  }
+
+  @Test
+  public void should_evaluate_like_file_exclusions() {
+    Set<String> files = new HashSet<>(Arrays.asList("srcs/Foo.java", "Foo.java"));
+    Set<String> directories = new HashSet<>(Arrays.asList("src/test", "li"));
+    Set<String> globs = new HashSet<>(Arrays.asList("**/*.jar", "src/**/Foo.java", "src/*/Foo.java", "*.md", "gen/*/y/**", "src/main/java/**/*.{js,ts}"));
+
+    ExclusionTrie trie = new ExclusionTrie(files, directories, globs);
+    FileExclusions fileExclusions = new FileExclusions(files, directories, globs);
+
+    for (String path : PATHS) {
+      assertThat(trie.test(path)).as(path).isEqualTo(fileExclusions.test(path));
+    }
+  }
+
+}
@@ -20,26 +20,35 @@
 package org.sonarlint.eclipse.core.internal;
 
 import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.eclipse.core.net.proxy.IProxyService;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.Plugin;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.FrameworkUtil;
 import org.osgi.util.tracker.ServiceTracker;
 import org.sonarlint.eclipse.core.internal.event.AnalysisListenerManager;
 import org.sonarlint.eclipse.core.internal.extension.SonarLintExtensionTracker;
+import org.sonarlint.eclipse.core.internal.jobs.AnalysisRequestQueue;
 import org.sonarlint.eclipse.core.internal.jobs.StandaloneSonarLintClientFacade;
 import org.sonarlint.eclipse.core.internal.notifications.NotificationsManager;
 import org.sonarlint.eclipse.core.internal.notifications.NotificationsTracker;
 import org.sonarlint.eclipse.core.internal.notifications.NotificationsTrackerRegistry;
+import org.sonarlint.eclipse.core.internal.resources.ProjectsSnapshotCache;
 import org.sonarlint.eclipse.core.internal.resources.SonarLintProjectManager;
 import org.sonarlint.eclipse.core.internal.server.ServersManager;
 import org.sonarlint.eclipse.core.internal.telemetry.SonarLintTelemetry;
+import org.sonarlint.eclipse.core.internal.tracking.AnalysisResultCache;
 import org.sonarlint.eclipse.core.internal.tracking.IssueStore;
 import org.sonarlint.eclipse.core.internal.tracking.IssueTracker;
 import org.sonarlint.eclipse.core.internal.tracking.IssueTrackerCacheFactory;
 import org.sonarlint.eclipse.core.internal.tracking.IssueTrackerRegistry;
 import org.sonarlint.eclipse.core.internal.tracking.PersistentIssueTrackerCache;
 import org.sonarlint.eclipse.core.internal.tracking.ServerIssueUpdater;
+import org.sonarlint.eclipse.core.internal.utils.FileExclusionsChecker;
+import org.sonarlint.eclipse.core.internal.utils.PreferencesUtils;
 import org.sonarlint.eclipse.core.resource.ISonarLintProject;
 
 public class SonarLintCorePlugin extends Plugin {
@@ -54,15 +63,19 @@ public class SonarLintCorePlugin extends Plugin {
   private static NotificationsManager notificationsManager;
 
   private IssueTrackerRegistry issueTrackerRegistry;
+  private final Map<String, AnalysisResultCache> analysisResultCachePerProject = new ConcurrentHashMap<>();
+  private final Map<String, FileExclusionsChecker> fileExclusionsCheckerPerProject = new ConcurrentHashMap<>();
   private ServerIssueUpdater serverIssueUpdater;
 
   private StandaloneSonarLintClientFacade sonarlint;
   private final ServiceTracker<IProxyService, IProxyService> proxyTracker;
   private final SonarLintExtensionTracker extensionTracker = new SonarLintExtensionTracker();
+  private final ProjectsSnapshotCache projectsCache = new ProjectsSnapshotCache(extensionTracker::getProjectsProviders);
 
   private AnalysisListenerManager analysisListenerManager = new AnalysisListenerManager();
   private SonarLintTelemetry telemetry = new SonarLintTelemetry();
   private ServersManager serversManager = new ServersManager();
+  private final AnalysisRequestQueue analysisRequestQueue = new AnalysisRequestQueue();
 
   private NotificationsTrackerRegistry notificationsTrackerRegistry;
 
@@ -93,13 +106,16 @@ public class SonarLintCorePlugin extends Plugin {
   @Override
   public void start(BundleContext context) throws Exception {
     super.start(context);
+    extensionTracker.addProjectsExtensionsListener(projectsCache::invalidate);
     extensionTracker.start();
+    ResourcesPlugin.getWorkspace().addResourceChangeListener(projectsCache, IResourceChangeEvent.POST_CHANGE);
     serversManager.init();
 
+    IssueStore.Layout issueStoreLayout = IssueStore.Layout.fromSystemProperty();
     IssueTrackerCacheFactory factory = (project, localModuleKey) -> {
       Path storeBasePath = StoragePathManager.getIssuesDir(localModuleKey);
-      IssueStore issueStore = new IssueStore(storeBasePath, project);
-      return new PersistentIssueTrackerCache(issueStore);
+      IssueStore issueStore = new IssueStore(storeBasePath, project, issueStoreLayout);
+      return new PersistentIssueTrackerCache(issueStore, true, PreferencesUtils.getIssueCacheMaxEntries(), PreferencesUtils.getIssueCacheMaxMemory());
     };
     issueTrackerRegistry = new IssueTrackerRegistry(factory);
 
@@ -113,6 +129,7 @@ public class SonarLintCorePlugin extends Plugin {
   @Override
   public void stop(BundleContext context) throws Exception {
     telemetry.stop();
+    analysisRequestQueue.shutdown();
 
     if (sonarlint != null) {
       sonarlint.stop();
@@ -120,7 +137,9 @@ public class SonarLintCorePlugin extends Plugin {
     proxyTracker.close();
 
     issueTrackerRegistry.shutdown();
+    serverIssueUpdater.shutdown();
     serversManager.stop();
+    ResourcesPlugin.getWorkspace().removeResourceChangeListener(projectsCache);
     extensionTracker.close();
 
     super.stop(context);
@@ -147,6 +166,24 @@ public class SonarLintCorePlugin extends Plugin {
 
   public static void clearIssueTracker(ISonarLintProject project) {
     getInstance().issueTrackerRegistry.get(project).ifPresent(IssueTracker::clear);
+    AnalysisResultCache analysisResultCache = getInstance().analysisResultCachePerProject.get(project.getName());
+    if (analysisResultCache != null) {
+      analysisResultCache.clear();
+    }
+  }
+
+  public static AnalysisResultCache getOrCreateAnalysisResultCache(ISonarLintProject project) {
+    return getInstance().analysisResultCachePerProject.computeIfAbsent(project.getName(),
+      name -> new AnalysisResultCache(StoragePathManager.getAnalysisResultsDir(name), project));
+  }
+
+  /**
+   * @return exclusions of the project, compiled again only when the settings they depend on changed
+   */
+  public static FileExclusionsChecker getFileExclusionsChecker(ISonarLintProject project) {
+    String settingsStamp = FileExclusionsChecker.readSettingsStamp(project);
+    return getInstance().fileExclusionsCheckerPerProject.compute(project.getName(),
+      (name, checker) -> checker != null && checker.getSettingsStamp().equals(settingsStamp) ? checker : new FileExclusionsChecker(project));
   }
 
   public static AnalysisListenerManager getAnalysisListenerManager() {
@@ -157,6 +194,10 @@ public class SonarLintCorePlugin extends Plugin {
     return getInstance().extensionTracker;
   }
 
+  public static ProjectsSnapshotCache getProjectsCache() {
+    return getInstance().projectsCache;
+  }
+
   public static SonarLintTelemetry getTelemetry() {
     return getInstance().telemetry;
   }
@@ -165,6 +206,10 @@ public class SonarLintCorePlugin extends Plugin {
     return getInstance().serversManager;
   }
 
+  public static AnalysisRequestQueue getAnalysisRequestQueue() {
+    return getInstance().analysisRequestQueue;
+  }
+
   public static NotificationsTracker getOrCreateNotificationsTracker(ISonarLintProject project) {
     return getInstance().notificationsTrackerRegistry.getOrCreate(project);
   }
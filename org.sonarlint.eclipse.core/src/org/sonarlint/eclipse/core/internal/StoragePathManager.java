@@ -43,6 +43,10 @@ public class StoragePathManager {
     return getSonarLintUserHome().resolve("storage");
   }
 
+  public static Path getServerIssueDownloadStatsFile() {
+    return getSonarLintUserHome().resolve("server-issue-downloads.properties");
+  }
+
   private static Path getModuleStorageDir(String localModuleKey) {
     return getSonarLintUserHome().resolve("modules").resolve(localModuleKey);
   }
@@ -51,6 +55,10 @@ public class StoragePathManager {
     return getModuleStorageDir(localModuleKey).resolve("issues");
   }
 
+  public static Path getAnalysisResultsDir(String localModuleKey) {
+    return getModuleStorageDir(localModuleKey).resolve("analysis-results");
+  }
+
   public static Path getNotificationsDir(String localModuleKey) {
     return getModuleStorageDir(localModuleKey).resolve("notifications");
   }
@@ -19,6 +19,8 @@
  */
 package org.sonarlint.eclipse.core.internal;
 
+import org.sonarlint.eclipse.core.internal.tracking.ServerIssueDownloadCostModel;
+
 public enum TriggerType {
   STARTUP("Startup", ServerIssueUpdateStrategy.PER_FILE_ASYNC),
   EDITOR_OPEN("Editor open", ServerIssueUpdateStrategy.PER_FILE_ASYNC),
@@ -28,11 +30,6 @@ public enum TriggerType {
   BINDING_CHANGE("Binding change", ServerIssueUpdateStrategy.PER_FILE_ASYNC),
   EXCLUSION_CHANGE("Exclusion change", ServerIssueUpdateStrategy.NO_UPDATE);
 
-  /**
-   * Magic number to decide if issues should be fetched per file or once for the entire project
-   */
-  private static final int PER_FILE_THRESHOLD = 10;
-
   private final String name;
 
   private enum ServerIssueUpdateStrategy {
@@ -56,12 +53,19 @@ public enum TriggerType {
     return updateStrategy == ServerIssueUpdateStrategy.PER_FILE_ASYNC;
   }
 
-  public boolean shouldUpdateFileIssuesSync(int fileCount) {
-    return updateStrategy == ServerIssueUpdateStrategy.PER_PROJECT_OR_PER_FILE_SYNC && fileCount < PER_FILE_THRESHOLD;
+  /**
+   * Whether issues are fetched per file or once for the entire project is decided by {@link ServerIssueDownloadCostModel}
+   */
+  public boolean shouldUpdateServerIssuesSync() {
+    return updateStrategy == ServerIssueUpdateStrategy.PER_PROJECT_OR_PER_FILE_SYNC;
   }
 
-  public boolean shouldUpdateProjectIssuesSync(int fileCount) {
-    return updateStrategy == ServerIssueUpdateStrategy.PER_PROJECT_OR_PER_FILE_SYNC && fileCount >= PER_FILE_THRESHOLD;
+  /**
+   * Results of a previous analysis can be reused for files that didn't change. Not done on explicit analysis request,
+   * nor after an edition, since other files the analysis depends on may have changed.
+   */
+  public boolean canReuseCachedResults() {
+    return this == STARTUP || this == EDITOR_OPEN || this == BINDING_CHANGE;
   }
 
   public boolean isOnTheFly() {
@@ -22,6 +22,8 @@ package org.sonarlint.eclipse.core.internal.extension;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.IExtension;
@@ -65,6 +67,8 @@ public class SonarLintExtensionTracker implements IExtensionChangeHandler {
   private final Collection<SonarLintEP<?>> allEps = Arrays.asList(configuratorEp, analysisEp, projectsProviderEp, fileAdapterParticipantEp, projectAdapterParticipantEp,
     languageEp);
 
+  private final List<Runnable> projectsExtensionsListeners = new CopyOnWriteArrayList<>();
+
   private ExtensionTracker tracker;
 
   public void start() {
@@ -97,6 +101,7 @@ public class SonarLintExtensionTracker implements IExtensionChangeHandler {
         SonarLintLogger.get().error("Unable to load one SonarLint extension", e);
       }
     }
+    fireIfProjectsExtension(extension);
   }
 
   private void instanciateAndRegister(IExtensionTracker tracker, IExtension extension, final IConfigurationElement element) throws CoreException {
@@ -120,6 +125,21 @@ public class SonarLintExtensionTracker implements IExtensionChangeHandler {
         break;
       }
     }
+    fireIfProjectsExtension(extension);
+  }
+
+  /**
+   * @param listener called when an extension providing or adapting projects is added or removed
+   */
+  public void addProjectsExtensionsListener(Runnable listener) {
+    projectsExtensionsListeners.add(listener);
+  }
+
+  private void fireIfProjectsExtension(IExtension extension) {
+    String epId = extension.getExtensionPointUniqueIdentifier();
+    if (projectsProviderEp.id.equals(epId) || projectAdapterParticipantEp.id.equals(epId)) {
+      projectsExtensionsListeners.forEach(Runnable::run);
+    }
   }
 
   public Collection<ProjectConfigurator> getConfigurators() {
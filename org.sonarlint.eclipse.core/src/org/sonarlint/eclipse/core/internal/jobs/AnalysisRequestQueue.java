@@ -0,0 +1,205 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.jobs;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import javax.annotation.Nullable;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.sonarlint.eclipse.core.SonarLintLogger;
+import org.sonarlint.eclipse.core.internal.TriggerType;
+import org.sonarlint.eclipse.core.internal.jobs.AnalyzeProjectRequest.FileWithDocument;
+import org.sonarlint.eclipse.core.internal.utils.PreferencesUtils;
+import org.sonarlint.eclipse.core.resource.ISonarLintFile;
+import org.sonarlint.eclipse.core.resource.ISonarLintProject;
+
+/**
+ * Central entry point for on-the-fly analyses. Requests are not analyzed immediately: they are kept pending until no new request
+ * arrived for the debounce delay, then merged per project so that a burst of saves or opened editors results in a single
+ * {@link AnalyzeProjectJob} per project. When a file is requested again while still pending, only the most recent request is kept.
+ */
+public class AnalysisRequestQueue {
+
+  private final LongSupplier debounceDelayMs;
+  private final Consumer<AnalyzeProjectRequest> launcher;
+  private final Job flushJob;
+
+  // Guarded by this
+  private final Map<ISonarLintProject, Map<String, PendingFile>> pendingFilesPerProject = new LinkedHashMap<>();
+  private long lastSubmitNanos;
+
+  private final AtomicLong submittedRequests = new AtomicLong();
+  private final AtomicLong submittedFiles = new AtomicLong();
+  private final AtomicLong coalescedFiles = new AtomicLong();
+  private final AtomicLong launchedAnalyses = new AtomicLong();
+
+  public AnalysisRequestQueue() {
+    this(PreferencesUtils::getAnalysisDebounceDelay, request -> new AnalyzeProjectJob(request).schedule());
+  }
+
+  public AnalysisRequestQueue(LongSupplier debounceDelayMs, Consumer<AnalyzeProjectRequest> launcher) {
+    this.debounceDelayMs = debounceDelayMs;
+    this.launcher = launcher;
+    this.flushJob = new Job("SonarLint analysis queue") {
+      @Override
+      protected IStatus run(IProgressMonitor monitor) {
+        flushIfQuiet();
+        return Status.OK_STATUS;
+      }
+    };
+    flushJob.setSystem(true);
+    flushJob.setPriority(Job.DECORATE);
+  }
+
+  /**
+   * Add a request to the queue. Files already pending for the same project are replaced by the new request.
+   */
+  public void submit(AnalyzeProjectRequest request) {
+    submittedRequests.incrementAndGet();
+    synchronized (this) {
+      Map<String, PendingFile> pendingFiles = pendingFilesPerProject.computeIfAbsent(request.getProject(), p -> new LinkedHashMap<>());
+      request.getFilesToAnalyze().forEach(f -> enqueue(pendingFiles, new PendingFile(f.getFile(), f, request.getTriggerType())));
+      request.getExcludedFiles().forEach(f -> enqueue(pendingFiles, new PendingFile(f, null, request.getTriggerType())));
+      lastSubmitNanos = System.nanoTime();
+    }
+    flushJob.schedule(debounceDelayMs.getAsLong());
+  }
+
+  private void enqueue(Map<String, PendingFile> pendingFiles, PendingFile pendingFile) {
+    submittedFiles.incrementAndGet();
+    // Remove first so that the most recent request also defines the order of analysis
+    if (pendingFiles.remove(pendingFile.file.getProjectRelativePath()) != null) {
+      coalescedFiles.incrementAndGet();
+    }
+    pendingFiles.put(pendingFile.file.getProjectRelativePath(), pendingFile);
+  }
+
+  public void flushIfQuiet() {
+    long delayMs = debounceDelayMs.getAsLong();
+    List<AnalyzeProjectRequest> toLaunch;
+    synchronized (this) {
+      if (pendingFilesPerProject.isEmpty()) {
+        return;
+      }
+      long remainingMs = delayMs - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastSubmitNanos);
+      if (remainingMs > 0) {
+        // New requests arrived in the meantime, wait again
+        flushJob.schedule(remainingMs);
+        return;
+      }
+      toLaunch = drain();
+    }
+    toLaunch.forEach(this::launch);
+  }
+
+  private List<AnalyzeProjectRequest> drain() {
+    List<AnalyzeProjectRequest> result = new ArrayList<>();
+    pendingFilesPerProject.forEach((project, pendingFiles) -> {
+      Map<TriggerType, List<PendingFile>> filesPerTrigger = new EnumMap<>(TriggerType.class);
+      pendingFiles.values().forEach(f -> filesPerTrigger.computeIfAbsent(f.triggerType, t -> new ArrayList<>()).add(f));
+      filesPerTrigger.forEach((triggerType, files) -> result.add(toRequest(project, files, triggerType)));
+    });
+    pendingFilesPerProject.clear();
+    return result;
+  }
+
+  private static AnalyzeProjectRequest toRequest(ISonarLintProject project, Collection<PendingFile> files, TriggerType triggerType) {
+    List<FileWithDocument> filesToAnalyze = new ArrayList<>();
+    List<ISonarLintFile> excludedFiles = new ArrayList<>();
+    for (PendingFile f : files) {
+      if (f.fileWithDocument != null) {
+        filesToAnalyze.add(f.fileWithDocument);
+      } else {
+        excludedFiles.add(f.file);
+      }
+    }
+    return new AnalyzeProjectRequest(project, filesToAnalyze, excludedFiles, triggerType);
+  }
+
+  private void launch(AnalyzeProjectRequest request) {
+    launchedAnalyses.incrementAndGet();
+    try {
+      launcher.accept(request);
+    } catch (Exception e) {
+      SonarLintLogger.get().error("Unable to schedule analysis of project '" + request.getProject().getName() + "'", e);
+    }
+  }
+
+  /**
+   * Discard pending requests and stop the queue.
+   */
+  public void shutdown() {
+    flushJob.cancel();
+    synchronized (this) {
+      pendingFilesPerProject.clear();
+    }
+  }
+
+  /**
+   * Number of files waiting to be analyzed.
+   */
+  public synchronized int getQueueDepth() {
+    return pendingFilesPerProject.values().stream().mapToInt(Map::size).sum();
+  }
+
+  public long getSubmittedRequestCount() {
+    return submittedRequests.get();
+  }
+
+  public long getSubmittedFileCount() {
+    return submittedFiles.get();
+  }
+
+  /**
+   * Number of pending files that were dropped because the same file was requested again before being analyzed.
+   */
+  public long getCoalescedFileCount() {
+    return coalescedFiles.get();
+  }
+
+  public long getLaunchedAnalysisCount() {
+    return launchedAnalyses.get();
+  }
+
+  private static class PendingFile {
+    private final ISonarLintFile file;
+    // null when the file is excluded, only its markers have to be cleared
+    private final FileWithDocument fileWithDocument;
+    private final TriggerType triggerType;
+
+    PendingFile(ISonarLintFile file, @Nullable FileWithDocument fileWithDocument, TriggerType triggerType) {
+      this.file = file;
+      this.fileWithDocument = fileWithDocument;
+      this.triggerType = triggerType;
+    }
+  }
+
+}
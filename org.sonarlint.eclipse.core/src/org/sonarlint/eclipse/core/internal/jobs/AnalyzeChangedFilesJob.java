@@ -36,6 +36,7 @@ import org.sonarlint.eclipse.core.internal.TriggerType;
 import org.sonarlint.eclipse.core.internal.jobs.AnalyzeProjectRequest.FileWithDocument;
 import org.sonarlint.eclipse.core.internal.resources.DefaultSonarLintProjectAdapter;
 import org.sonarlint.eclipse.core.internal.resources.ProjectsProviderUtils;
+import org.sonarlint.eclipse.core.internal.utils.PreferencesUtils;
 import org.sonarlint.eclipse.core.resource.ISonarLintFile;
 import org.sonarlint.eclipse.core.resource.ISonarLintProject;
 
@@ -71,25 +72,14 @@ public class AnalyzeChangedFilesJob extends WorkspaceJob {
       SonarLintLogger.get().info("Analyzing " + fileCount + " changed file(s) in " + changedFilesPerProject.size() + " project(s)");
 
       global.setTaskName("Analysis");
-      SubMonitor analysisMonitor = SubMonitor.convert(global.newChild(80), changedFilesPerProject.size());
-      for (Map.Entry<ISonarLintProject, List<ISonarLintFile>> entry : changedFilesPerProject.entrySet()) {
-        if (monitor.isCanceled()) {
-          return Status.CANCEL_STATUS;
-        }
-        ISonarLintProject project = entry.getKey();
-        if (!project.isOpen()) {
-          analysisMonitor.worked(1);
-          continue;
-        }
-        global.setTaskName("Analysing project " + project.getName());
-        Collection<FileWithDocument> filesToAnalyze = entry.getValue().stream()
-          .map(f -> new FileWithDocument(f, null))
-          .collect(Collectors.toList());
-        AnalyzeProjectRequest req = new AnalyzeProjectRequest(project, filesToAnalyze, TriggerType.MANUAL_CHANGESET);
-        AnalyzeProjectJob job = new AnalyzeProjectJob(req);
-        SubMonitor subMonitor = analysisMonitor.newChild(1);
-        job.runInWorkspace(subMonitor);
-        subMonitor.done();
+      List<AnalyzeProjectRequest> requests = changedFilesPerProject.entrySet().stream()
+        .filter(e -> e.getKey().isOpen())
+        .map(e -> new AnalyzeProjectRequest(e.getKey(), toFilesWithoutDocument(e.getValue()), TriggerType.MANUAL_CHANGESET))
+        .collect(Collectors.toList());
+      ParallelAnalysisScheduler scheduler = new ParallelAnalysisScheduler(getName(), PreferencesUtils.getAnalysisParallelism());
+      IStatus status = scheduler.run(requests, global.newChild(80));
+      if (status.getSeverity() == IStatus.CANCEL) {
+        return status;
       }
 
     } catch (Exception e) {
@@ -99,6 +89,12 @@ public class AnalyzeChangedFilesJob extends WorkspaceJob {
     return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
   }
 
+  private static Collection<FileWithDocument> toFilesWithoutDocument(Collection<ISonarLintFile> files) {
+    return files.stream()
+      .map(f -> new FileWithDocument(f, null))
+      .collect(Collectors.toList());
+  }
+
   private static Collection<ISonarLintFile> collectChangedFiles(Collection<ISonarLintProject> projects, IProgressMonitor monitor) {
     Collection<ISonarLintFile> changedFiles = new ArrayList<>();
     for (ISonarLintProject project : projects) {
@@ -26,6 +26,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -36,13 +37,14 @@ import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
-import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
-import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.Position;
@@ -54,18 +56,21 @@ import org.sonarlint.eclipse.core.configurator.ProjectConfigurationRequest;
 import org.sonarlint.eclipse.core.configurator.ProjectConfigurator;
 import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
 import org.sonarlint.eclipse.core.internal.TriggerType;
-import org.sonarlint.eclipse.core.internal.markers.MarkerUtils;
+import org.sonarlint.eclipse.core.internal.markers.DocumentLineIndex;
 import org.sonarlint.eclipse.core.internal.markers.TextRange;
 import org.sonarlint.eclipse.core.internal.resources.SonarLintProperty;
 import org.sonarlint.eclipse.core.internal.server.IServer;
 import org.sonarlint.eclipse.core.internal.server.Server;
 import org.sonarlint.eclipse.core.internal.telemetry.SonarLintTelemetry;
+import org.sonarlint.eclipse.core.internal.tracking.AnalysisResultCache;
+import org.sonarlint.eclipse.core.internal.tracking.AnalysisResultCache.CachedIssue;
 import org.sonarlint.eclipse.core.internal.tracking.IssueTracker;
 import org.sonarlint.eclipse.core.internal.tracking.RawIssueTrackable;
 import org.sonarlint.eclipse.core.internal.tracking.ServerIssueTrackable;
 import org.sonarlint.eclipse.core.internal.tracking.ServerIssueUpdater;
 import org.sonarlint.eclipse.core.internal.tracking.Trackable;
 import org.sonarlint.eclipse.core.internal.utils.PreferencesUtils;
+import org.sonarlint.eclipse.core.internal.utils.SonarLintUtils;
 import org.sonarlint.eclipse.core.resource.ISonarLintFile;
 import org.sonarlint.eclipse.core.resource.ISonarLintIssuable;
 import org.sonarlint.eclipse.core.resource.ISonarLintProject;
@@ -97,6 +102,31 @@ public class AnalyzeProjectJob extends AbstractSonarProjectJob {
       .collect(HashMap::new, (m, fWithDoc) -> m.put(fWithDoc.getFile(), fWithDoc.getDocument()), HashMap::putAll);
     this.excludedFiles = request.getExcludedFiles();
     this.triggerType = request.getTriggerType();
+    addJobChangeListener(new SupersedeListener());
+  }
+
+  /**
+   * A newer analysis of the same files, updating the same kind of markers, makes the result of this one obsolete
+   */
+  private class SupersedeListener extends JobChangeAdapter {
+    @Override
+    public void scheduled(IJobChangeEvent event) {
+      Collection<ISonarLintFile> allFiles = new ArrayList<>(filesToAnalyze.keySet());
+      allFiles.addAll(excludedFiles);
+      for (Job obsolete : InFlightAnalyses.get().register(AnalyzeProjectJob.this, triggerType.isOnTheFly(), allFiles)) {
+        SonarLintLogger.get().debug("Cancel '" + obsolete.getName() + "', superseded by a more recent analysis");
+        obsolete.cancel();
+      }
+    }
+
+    @Override
+    public void done(IJobChangeEvent event) {
+      InFlightAnalyses.get().unregister(AnalyzeProjectJob.this);
+    }
+  }
+
+  private boolean isSuperseded(ISonarLintFile file) {
+    return InFlightAnalyses.get().isSuperseded(this, triggerType.isOnTheFly(), file);
   }
 
   private static String jobTitle(AnalyzeProjectRequest request) {
@@ -115,9 +145,9 @@ public class AnalyzeProjectJob extends AbstractSonarProjectJob {
     long startTime = System.currentTimeMillis();
     SonarLintLogger.get().debug("Trigger: " + triggerType.name());
     SonarLintLogger.get().debug("Clear markers on " + excludedFiles.size() + " excluded files");
-    excludedFiles.forEach(SonarLintMarkerUpdater::clearMarkers);
 
     if (filesToAnalyze.isEmpty()) {
+      updateMarkers(Collections.emptyList(), monitor);
       return Status.OK_STATUS;
     }
 
@@ -170,28 +200,125 @@ public class AnalyzeProjectJob extends AbstractSonarProjectJob {
 
   private void runAnalysisAndUpdateMarkers(@Nullable Server server, Map<ISonarLintFile, IDocument> docPerFiles, final IProgressMonitor monitor,
     Map<String, String> mergedExtraProps, List<ClientInputFile> inputFiles, Path analysisWorkDir) throws CoreException {
-    StandaloneAnalysisConfiguration config;
+    AnalysisResultCache resultCache = SonarLintCorePlugin.getOrCreateAnalysisResultCache(getProject());
+    Map<ISonarLintFile, String> fingerprintPerFile = computeFingerprints(server, inputFiles, mergedExtraProps);
+    Map<ISonarLintFile, List<CachedIssue>> cachedIssuesPerFile = new HashMap<>();
+    List<ClientInputFile> filesToAnalyzeWithEngine = new ArrayList<>(inputFiles.size());
+    for (ClientInputFile inputFile : inputFiles) {
+      ISonarLintFile file = inputFile.getClientObject();
+      String fingerprint = fingerprintPerFile.get(file);
+      List<CachedIssue> cachedIssues = null;
+      if (fingerprint != null && triggerType.canReuseCachedResults()) {
+        cachedIssues = resultCache.get(file.getProjectRelativePath(), fingerprint);
+      }
+      if (cachedIssues != null) {
+        cachedIssuesPerFile.put(file, cachedIssues);
+      } else {
+        filesToAnalyzeWithEngine.add(inputFile);
+      }
+    }
+    if (!cachedIssuesPerFile.isEmpty()) {
+      SonarLintLogger.get().debug("Reuse previous analysis results of " + cachedIssuesPerFile.size() + " unchanged file(s)");
+    }
+
+    boolean downloadFileIssuesSync = server != null && triggerType.shouldUpdateServerIssuesSync() && !downloadModuleIssuesIfCheaper(server, inputFiles.size());
+
+    Map<ISonarLintIssuable, List<Issue>> successfulFiles = Collections.emptyMap();
+    if (!filesToAnalyzeWithEngine.isEmpty()) {
+      long start = System.currentTimeMillis();
+      successfulFiles = analyze(server, mergedExtraProps, filesToAnalyzeWithEngine, analysisWorkDir, fingerprintPerFile, resultCache, monitor);
+      if (successfulFiles == null) {
+        return;
+      }
+      updateTelemetry(filesToAnalyzeWithEngine, start);
+    }
+
+    // Files whose cached results are reused are marked with analyzed files, so that all markers change in a single workspace operation
+    List<TrackedFile> markedFiles = updateMarkers(trackIssues(server, docPerFiles, successfulFiles, cachedIssuesPerFile, downloadFileIssuesSync, monitor), monitor);
+
+    // Only files marked by this analysis are in the issue cache, other ones were superseded
+    List<ISonarLintFile> filesWithAtLeastOneIssue = markedFiles.stream().filter(f -> !f.tracked.isEmpty()).map(f -> f.file).collect(Collectors.toList());
+    if (server != null && triggerType.shouldUpdateFileIssuesAsync() && !filesWithAtLeastOneIssue.isEmpty()) {
+      trackServerIssuesAsync(server, filesWithAtLeastOneIssue, docPerFiles, triggerType);
+    }
+  }
+
+  /**
+   * Download server issues of the whole module with a single request, if it is estimated cheaper than downloading issues of each file
+   *
+   * @return true if issues of the module were downloaded, false if issues of each file have to be downloaded
+   */
+  private boolean downloadModuleIssuesIfCheaper(Server server, int fileCount) {
+    ServerConfiguration serverConfiguration = server.getConfig();
+    String moduleKey = getProjectConfig().getModuleKey();
+    ServerIssueUpdater serverIssueUpdater = SonarLintCorePlugin.getInstance().getServerIssueUpdater();
+    if (!serverIssueUpdater.shouldDownloadModule(serverConfiguration, moduleKey, fileCount)) {
+      return false;
+    }
+    SonarLintLogger.get().debug("Download server issues for project " + getProject().getName());
+    // When download fails, issues previously stored locally are used
+    serverIssueUpdater.downloadModule(serverConfiguration, server.getEngine(), moduleKey);
+    return true;
+  }
+
+  /**
+   * @return issues of each file successfully analyzed, or null if analysis was canceled
+   */
+  @CheckForNull
+  private Map<ISonarLintIssuable, List<Issue>> analyze(@Nullable Server server, Map<String, String> mergedExtraProps, List<ClientInputFile> inputFiles,
+    Path analysisWorkDir, Map<ISonarLintFile, String> fingerprintPerFile, AnalysisResultCache resultCache, IProgressMonitor monitor) {
+    Map<ISonarLintIssuable, List<Issue>> issuesPerResource = new LinkedHashMap<>();
+    inputFiles.forEach(f -> issuesPerResource.put(f.<ISonarLintFile>getClientObject(), new ArrayList<>()));
+    StandaloneAnalysisConfiguration config = buildConfig(server, mergedExtraProps, inputFiles, analysisWorkDir);
+    AnalysisResults result = run(server, config, issuesPerResource, monitor);
+    if (monitor.isCanceled() || result == null) {
+      return null;
+    }
+    Set<ISonarLintFile> failedFiles = result.failedAnalysisFiles().stream().map(ClientInputFile::<ISonarLintFile>getClientObject).collect(Collectors.toSet());
+    for (Map.Entry<ISonarLintIssuable, List<Issue>> entry : issuesPerResource.entrySet()) {
+      String fingerprint = fingerprintPerFile.get(entry.getKey());
+      if (fingerprint != null && entry.getKey() instanceof ISonarLintFile && !failedFiles.contains(entry.getKey())) {
+        resultCache.put(((ISonarLintFile) entry.getKey()).getProjectRelativePath(), fingerprint, entry.getValue());
+      }
+    }
+    return issuesPerResource.entrySet().stream()
+      .filter(e -> !failedFiles.contains(e.getKey()))
+      // TODO handle non-file-level issues
+      .filter(e -> e.getKey() instanceof ISonarLintFile)
+      .collect(Collectors.toMap(Entry::getKey, Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+  }
+
+  private StandaloneAnalysisConfiguration buildConfig(@Nullable Server server, Map<String, String> mergedExtraProps, List<ClientInputFile> inputFiles,
+    Path analysisWorkDir) {
     IPath projectLocation = getProject().getResource().getLocation();
     // In some unfrequent cases the project may be virtual and don't have physical location
     // so fallback to use analysis work dir
     Path projectBaseDir = projectLocation != null ? projectLocation.toFile().toPath() : analysisWorkDir;
     if (server != null) {
       SonarLintLogger.get().debug("Connected mode (using configuration of '" + getProjectConfig().getModuleKey() + "' in server '" + getProjectConfig().getServerId() + "')");
-      config = new ConnectedAnalysisConfiguration(trimToNull(getProjectConfig().getModuleKey()), projectBaseDir, getProject().getWorkingDir(), inputFiles, mergedExtraProps);
-    } else {
-      SonarLintLogger.get().debug("Standalone mode (project not bound)");
-      config = new StandaloneAnalysisConfiguration(projectBaseDir, getProject().getWorkingDir(), inputFiles, mergedExtraProps);
+      return new ConnectedAnalysisConfiguration(trimToNull(getProjectConfig().getModuleKey()), projectBaseDir, getProject().getWorkingDir(), inputFiles, mergedExtraProps);
     }
+    SonarLintLogger.get().debug("Standalone mode (project not bound)");
+    return new StandaloneAnalysisConfiguration(projectBaseDir, getProject().getWorkingDir(), inputFiles, mergedExtraProps);
+  }
 
-    Map<ISonarLintIssuable, List<Issue>> issuesPerResource = new LinkedHashMap<>();
-    filesToAnalyze.keySet().forEach(slFile -> issuesPerResource.put(slFile, new ArrayList<>()));
-
-    long start = System.currentTimeMillis();
-    AnalysisResults result = run(server, config, issuesPerResource, monitor);
-    if (!monitor.isCanceled() && result != null) {
-      updateMarkers(server, docPerFiles, issuesPerResource, result, triggerType, monitor);
-      updateTelemetry(inputFiles, start);
+  /**
+   * @return fingerprint of each file, or an empty map if analysis results should not be cached
+   */
+  private Map<ISonarLintFile, String> computeFingerprints(@Nullable Server server, List<ClientInputFile> inputFiles, Map<String, String> mergedExtraProps) {
+    String rulesFingerprint = server != null ? server.getAnalysisStorageFingerprint(getProjectConfig().getModuleKey()) : ("standalone/" + SonarLintUtils.getPluginVersion());
+    if (rulesFingerprint == null) {
+      return Collections.emptyMap();
+    }
+    Map<ISonarLintFile, String> fingerprintPerFile = new HashMap<>();
+    for (ClientInputFile inputFile : inputFiles) {
+      try {
+        fingerprintPerFile.put(inputFile.getClientObject(), AnalysisResultCache.fingerprint(inputFile, rulesFingerprint, mergedExtraProps));
+      } catch (Exception e) {
+        SonarLintLogger.get().debug("Unable to compute fingerprint of " + inputFile.relativePath(), e);
+      }
     }
+    return fingerprintPerFile;
   }
 
   private static void updateTelemetry(List<ClientInputFile> inputFiles, long start) {
@@ -276,94 +403,158 @@ public class AnalyzeProjectJob extends AbstractSonarProjectJob {
     return usedConfigurators;
   }
 
-  private void updateMarkers(@Nullable Server server, Map<ISonarLintFile, IDocument> docPerFile, Map<ISonarLintIssuable, List<Issue>> issuesPerResource, AnalysisResults result,
-    TriggerType triggerType, final IProgressMonitor monitor)
-    throws CoreException {
-    Set<ISonarLintFile> failedFiles = result.failedAnalysisFiles().stream().map(ClientInputFile::<ISonarLintFile>getClientObject).collect(Collectors.toSet());
-    Map<ISonarLintIssuable, List<Issue>> successfulFiles = issuesPerResource.entrySet().stream()
-      .filter(e -> !failedFiles.contains(e.getKey()))
-      // TODO handle non-file-level issues
-      .filter(e -> e.getKey() instanceof ISonarLintFile)
-      .collect(Collectors.toMap(Entry::getKey, Entry::getValue));
-
-    trackIssues(server, docPerFile, successfulFiles, triggerType, monitor);
-  }
-
-  private void trackIssues(@Nullable Server server, Map<ISonarLintFile, IDocument> docPerFile, Map<ISonarLintIssuable, List<Issue>> rawIssuesPerResource, TriggerType triggerType,
-    final IProgressMonitor monitor) {
-
-    String localModuleKey = getProject().getName();
-
-    if (server != null && triggerType.shouldUpdateProjectIssuesSync(rawIssuesPerResource.size())) {
-      ServerConfiguration serverConfiguration = server.getConfig();
-      ConnectedSonarLintEngine engine = server.getEngine();
-      SonarLintLogger.get().debug("Download server issues for project " + getProject().getName());
-      engine.downloadServerIssues(serverConfiguration, getProjectConfig().getModuleKey());
+  /**
+   * @return issues of each file, ready to be marked
+   */
+  private List<TrackedFile> trackIssues(@Nullable Server server, Map<ISonarLintFile, IDocument> docPerFile, Map<ISonarLintIssuable, List<Issue>> rawIssuesPerResource,
+    Map<ISonarLintFile, List<CachedIssue>> cachedIssuesPerFile, boolean downloadFileIssues, final IProgressMonitor monitor) {
+    Set<ISonarLintFile> files = new LinkedHashSet<>();
+    rawIssuesPerResource.keySet().forEach(r -> files.add((ISonarLintFile) r));
+    files.addAll(cachedIssuesPerFile.keySet());
+    if (files.isEmpty()) {
+      return Collections.emptyList();
     }
+    Map<String, List<ServerIssue>> downloadedServerIssues = downloadFileIssues ? downloadServerIssuesSync(server, files, rawIssuesPerResource, cachedIssuesPerFile)
+      : Collections.<String, List<ServerIssue>>emptyMap();
 
-    for (Map.Entry<ISonarLintIssuable, List<Issue>> entry : rawIssuesPerResource.entrySet()) {
+    IssueTracker issueTracker = SonarLintCorePlugin.getOrCreateIssueTracker(getProject(), getProject().getName());
+    List<TrackedFile> trackedFiles = new ArrayList<>(files.size());
+    for (ISonarLintFile resource : files) {
       if (monitor.isCanceled()) {
-        return;
+        return Collections.emptyList();
       }
-      ISonarLintFile resource = (ISonarLintFile) entry.getKey();
-      IDocument documentOrNull = docPerFile.get((ISonarLintFile) resource);
-      final IDocument documentNotNull;
-      if (documentOrNull == null) {
-        documentNotNull = resource.getDocument();
-      } else {
-        documentNotNull = documentOrNull;
-      }
-      List<Issue> rawIssues = entry.getValue();
-      List<Trackable> trackables = rawIssues.stream().map(issue -> transform(issue, resource, documentNotNull)).collect(Collectors.toList());
-      IssueTracker issueTracker = SonarLintCorePlugin.getOrCreateIssueTracker(getProject(), localModuleKey);
-      String relativePath = resource.getProjectRelativePath();
-      Collection<Trackable> tracked = issueTracker.matchAndTrackAsNew(relativePath, trackables);
-      if (server != null && !tracked.isEmpty()) {
-        tracked = trackServerIssuesSync(server, resource, tracked, triggerType.shouldUpdateFileIssuesSync(rawIssuesPerResource.size()));
+      if (isSuperseded(resource)) {
+        // A more recent analysis of this file is pending or running, our result is already outdated
+        continue;
       }
-      ISchedulingRule markerRule = ResourcesPlugin.getWorkspace().getRuleFactory().markerRule(resource.getResource());
-      try {
-        getJobManager().beginRule(markerRule, monitor);
-        SonarLintMarkerUpdater.createOrUpdateMarkers(resource, documentNotNull, tracked, triggerType, documentOrNull != null);
-      } finally {
-        getJobManager().endRule(markerRule);
-      }
-      // Now that markerId are set, store issues in cache
-      issueTracker.updateCache(relativePath, tracked);
+      trackedFiles.add(trackIssues(server, issueTracker, resource, docPerFile.get(resource), rawIssuesPerResource.get(resource), cachedIssuesPerFile.get(resource),
+        downloadedServerIssues));
     }
+    return trackedFiles;
+  }
 
-    if (server != null && triggerType.shouldUpdateFileIssuesAsync()) {
-      List<ISonarLintIssuable> filesWithAtLeastOneIssue = filesWithAtLeastOneIssue(rawIssuesPerResource);
-      if (!filesWithAtLeastOneIssue.isEmpty()) {
-        trackServerIssuesAsync(server, filesWithAtLeastOneIssue, docPerFile, triggerType);
+  /**
+   * All marker changes of the analysis, including the ones of excluded files, are done in a single workspace operation
+   */
+  private List<TrackedFile> updateMarkers(List<TrackedFile> trackedFiles, IProgressMonitor monitor) {
+    if (trackedFiles.isEmpty() && excludedFiles.isEmpty()) {
+      return Collections.emptyList();
+    }
+    // Only marker changes are done while holding the marker rule
+    List<TrackedFile> markedFiles = new ArrayList<>(trackedFiles.size());
+    SonarLintMarkerUpdater.runInWorkspaceOperation(getProject(), m -> {
+      excludedFiles.stream().filter(f -> !isSuperseded(f)).forEach(SonarLintMarkerUpdater::clearMarkers);
+      for (TrackedFile trackedFile : trackedFiles) {
+        if (monitor.isCanceled()) {
+          return;
+        }
+        if (isSuperseded(trackedFile.file)) {
+          continue;
+        }
+        SonarLintMarkerUpdater.createOrUpdateMarkers(trackedFile.file, trackedFile.lineIndex, trackedFile.tracked, triggerType, trackedFile.createExtraLocations);
+        markedFiles.add(trackedFile);
       }
+    }, monitor);
+
+    // Now that markerId are set, store issues in cache
+    IssueTracker issueTracker = SonarLintCorePlugin.getOrCreateIssueTracker(getProject(), getProject().getName());
+    markedFiles.forEach(f -> issueTracker.updateCache(f.file.getProjectRelativePath(), f.tracked));
+    return markedFiles;
+  }
+
+  /**
+   * Issues of a file, tracked against previous and server issues, that are ready to be marked
+   */
+  private static class TrackedFile {
+    private final ISonarLintFile file;
+    private final DocumentLineIndex lineIndex;
+    private final Collection<Trackable> tracked;
+    private final boolean createExtraLocations;
+
+    private TrackedFile(ISonarLintFile file, DocumentLineIndex lineIndex, Collection<Trackable> tracked, boolean createExtraLocations) {
+      this.file = file;
+      this.lineIndex = lineIndex;
+      this.tracked = tracked;
+      this.createExtraLocations = createExtraLocations;
     }
   }
 
-  private static List<ISonarLintIssuable> filesWithAtLeastOneIssue(Map<ISonarLintIssuable, List<Issue>> rawIssuesPerResource) {
-    return rawIssuesPerResource.entrySet().stream()
-      .filter(e -> !e.getValue().isEmpty())
-      .map(Map.Entry::getKey)
+  /**
+   * Issues of files are downloaded concurrently, before tracking files one by one
+   *
+   * @return server issues of each file, if they have to be updated synchronously
+   */
+  private Map<String, List<ServerIssue>> downloadServerIssuesSync(@Nullable Server server, Set<ISonarLintFile> files,
+    Map<ISonarLintIssuable, List<Issue>> rawIssuesPerResource, Map<ISonarLintFile, List<CachedIssue>> cachedIssuesPerFile) {
+    if (server == null) {
+      return Collections.emptyMap();
+    }
+    List<String> fileKeys = files.stream()
+      .filter(f -> !isSuperseded(f))
+      // Server issues are only matched with existing issues
+      .filter(f -> rawIssuesPerResource.containsKey(f) ? !rawIssuesPerResource.get(f).isEmpty() : !cachedIssuesPerFile.get(f).isEmpty())
+      .map(ISonarLintFile::getProjectRelativePath)
       .collect(Collectors.toList());
+    if (fileKeys.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    return SonarLintCorePlugin.getInstance().getServerIssueUpdater()
+      .fetchServerIssuesConcurrently(server.getConfig(), server.getEngine(), getProjectConfig().getModuleKey(), fileKeys);
   }
 
-  private static RawIssueTrackable transform(Issue issue, ISonarLintFile resource, IDocument document) {
+  private TrackedFile trackIssues(@Nullable Server server, IssueTracker issueTracker, ISonarLintFile resource, @Nullable IDocument documentOrNull,
+    @Nullable List<Issue> rawIssues, @Nullable List<CachedIssue> cachedIssues, Map<String, List<ServerIssue>> downloadedServerIssues) {
+    final IDocument documentNotNull;
+    if (documentOrNull == null) {
+      documentNotNull = resource.getDocument();
+    } else {
+      documentNotNull = documentOrNull;
+    }
+    // Shared by the creation of trackables and markers, so that lines are only indexed once
+    DocumentLineIndex lineIndex = new DocumentLineIndex(documentNotNull);
+    List<Trackable> trackables;
+    if (rawIssues != null) {
+      trackables = rawIssues.stream().map(issue -> transform(issue, resource, lineIndex)).collect(Collectors.toList());
+    } else {
+      trackables = cachedIssues.stream().map(issue -> transform(issue, resource, lineIndex)).collect(Collectors.toList());
+    }
+    String relativePath = resource.getProjectRelativePath();
+    Collection<Trackable> tracked = issueTracker.matchAndTrackAsNew(relativePath, trackables);
+    if (server != null && !tracked.isEmpty()) {
+      tracked = trackServerIssuesSync(server, resource, tracked, downloadedServerIssues.get(relativePath));
+    }
+    return new TrackedFile(resource, lineIndex, tracked, documentOrNull != null);
+  }
+
+  private static RawIssueTrackable transform(Issue issue, ISonarLintFile resource, DocumentLineIndex lineIndex) {
     Integer startLine = issue.getStartLine();
     if (startLine == null) {
       return new RawIssueTrackable(issue);
     }
     TextRange textRange = new TextRange(startLine, issue.getStartLineOffset(), issue.getEndLine(), issue.getEndLineOffset());
-    String textRangeContent = readTextRangeContent(resource, document, textRange);
-    String lineContent = readLineContent(resource, document, startLine);
+    String textRangeContent = readTextRangeContent(resource, lineIndex, textRange);
+    String lineContent = readLineContent(resource, lineIndex, startLine);
     return new RawIssueTrackable(issue, textRange, textRangeContent, lineContent);
   }
 
+  private static RawIssueTrackable transform(CachedIssue issue, ISonarLintFile resource, DocumentLineIndex lineIndex) {
+    TextRange textRange = issue.getTextRange();
+    if (textRange == null) {
+      return new RawIssueTrackable(issue.getRuleKey(), issue.getRuleName(), issue.getSeverity(), issue.getType(), issue.getMessage(), null, issue.getFlows(),
+        null, null, null);
+    }
+    String textRangeContent = readTextRangeContent(resource, lineIndex, textRange);
+    String lineContent = readLineContent(resource, lineIndex, textRange.getStartLine());
+    return new RawIssueTrackable(issue.getRuleKey(), issue.getRuleName(), issue.getSeverity(), issue.getType(), issue.getMessage(), textRange.getStartLine(),
+      issue.getFlows(), textRange, textRangeContent, lineContent);
+  }
+
   @CheckForNull
-  private static String readTextRangeContent(ISonarLintFile resource, IDocument document, TextRange textRange) {
-    Position position = MarkerUtils.getPosition(document, textRange);
+  private static String readTextRangeContent(ISonarLintFile resource, DocumentLineIndex lineIndex, TextRange textRange) {
+    Position position = lineIndex.getPosition(textRange);
     if (position != null) {
       try {
-        return document.get(position.getOffset(), position.getLength());
+        return lineIndex.getContent(position);
       } catch (BadLocationException e) {
         SonarLintLogger.get().error("failed to get text range content of resource " + resource.getName(), e);
       }
@@ -372,11 +563,11 @@ public class AnalyzeProjectJob extends AbstractSonarProjectJob {
   }
 
   @CheckForNull
-  private static String readLineContent(ISonarLintFile resource, IDocument document, int startLine) {
-    Position position = MarkerUtils.getPosition(document, startLine);
+  private static String readLineContent(ISonarLintFile resource, DocumentLineIndex lineIndex, int startLine) {
+    Position position = lineIndex.getPosition(startLine);
     if (position != null) {
       try {
-        return document.get(position.getOffset(), position.getLength());
+        return lineIndex.getContent(position);
       } catch (BadLocationException e) {
         SonarLintLogger.get().error("Failed to get line content of file " + resource.getName(), e);
       }
@@ -384,25 +575,22 @@ public class AnalyzeProjectJob extends AbstractSonarProjectJob {
     return null;
   }
 
-  private Collection<Trackable> trackServerIssuesSync(Server server, ISonarLintFile resource, Collection<Trackable> tracked, boolean updateServerIssues) {
-    ServerConfiguration serverConfiguration = server.getConfig();
-    ConnectedSonarLintEngine engine = server.getEngine();
-    List<ServerIssue> serverIssues;
-    if (updateServerIssues) {
-      serverIssues = ServerIssueUpdater.fetchServerIssues(serverConfiguration, engine, getProjectConfig().getModuleKey(), resource);
-    } else {
-      serverIssues = engine.getServerIssues(getProjectConfig().getModuleKey(), resource.getProjectRelativePath());
+  private Collection<Trackable> trackServerIssuesSync(Server server, ISonarLintFile resource, Collection<Trackable> tracked,
+    @Nullable List<ServerIssue> downloadedServerIssues) {
+    List<ServerIssue> serverIssues = downloadedServerIssues;
+    if (serverIssues == null) {
+      serverIssues = server.getEngine().getServerIssues(getProjectConfig().getModuleKey(), resource.getProjectRelativePath());
     }
     Collection<Trackable> serverIssuesTrackable = serverIssues.stream().map(ServerIssueTrackable::new).collect(Collectors.toList());
     return IssueTracker.matchAndTrackServerIssues(serverIssuesTrackable, tracked);
   }
 
-  private void trackServerIssuesAsync(Server server, Collection<ISonarLintIssuable> resources, Map<ISonarLintFile, IDocument> docPerFile, TriggerType triggerType) {
+  private void trackServerIssuesAsync(Server server, Collection<ISonarLintFile> files, Map<ISonarLintFile, IDocument> docPerFile, TriggerType triggerType) {
     ServerConfiguration serverConfiguration = server.getConfig();
     ConnectedSonarLintEngine engine = server.getEngine();
     String localModuleKey = getProject().getName();
-    SonarLintCorePlugin.getInstance().getServerIssueUpdater().updateAsync(serverConfiguration, engine, getProject(), localModuleKey, getProjectConfig().getModuleKey(), resources,
-      docPerFile, triggerType);
+    SonarLintCorePlugin.getInstance().getServerIssueUpdater().updateAsync(serverConfiguration, engine, getProject(), localModuleKey, getProjectConfig().getModuleKey(), files,
+      docPerFile, triggerType, this);
   }
 
   private static void analysisCompleted(Collection<ProjectConfigurator> usedDeprecatedConfigurators, Collection<IAnalysisConfigurator> usedConfigurators,
@@ -21,9 +21,14 @@ package org.sonarlint.eclipse.core.internal.jobs;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.eclipse.jface.text.IDocument;
+import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
 import org.sonarlint.eclipse.core.internal.TriggerType;
 import org.sonarlint.eclipse.core.internal.utils.FileExclusionsChecker;
 import org.sonarlint.eclipse.core.resource.ISonarLintFile;
@@ -59,16 +64,28 @@ public class AnalyzeProjectRequest {
   public AnalyzeProjectRequest(ISonarLintProject project, Collection<FileWithDocument> files, TriggerType triggerType) {
     this.project = project;
     this.triggerType = triggerType;
-    FileExclusionsChecker exclusionsChecker = new FileExclusionsChecker(project);
+    FileExclusionsChecker exclusionsChecker = SonarLintCorePlugin.getFileExclusionsChecker(project);
+    List<ISonarLintFile> allFiles = files.stream().map(FileWithDocument::getFile).collect(Collectors.toList());
+    Set<ISonarLintFile> notExcludedFiles = new HashSet<>(exclusionsChecker.filterExcludedFiles(project, allFiles, true));
     files.forEach(fWithDoc -> {
-      if (exclusionsChecker.isExcluded(fWithDoc.getFile(), true)) {
-        excludedFiles.add(fWithDoc.getFile());
-      } else {
+      if (notExcludedFiles.contains(fWithDoc.getFile())) {
         filesToAnalyze.add(fWithDoc);
+      } else {
+        excludedFiles.add(fWithDoc.getFile());
       }
     });
   }
 
+  /**
+   * Used when files were already checked for exclusions, to not evaluate exclusions twice.
+   */
+  public AnalyzeProjectRequest(ISonarLintProject project, Collection<FileWithDocument> filesToAnalyze, Collection<ISonarLintFile> excludedFiles, TriggerType triggerType) {
+    this.project = project;
+    this.triggerType = triggerType;
+    this.filesToAnalyze.addAll(filesToAnalyze);
+    this.excludedFiles.addAll(excludedFiles);
+  }
+
   public ISonarLintProject getProject() {
     return project;
   }
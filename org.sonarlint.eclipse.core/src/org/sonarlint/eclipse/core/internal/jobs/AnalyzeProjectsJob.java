@@ -20,7 +20,9 @@
 package org.sonarlint.eclipse.core.internal.jobs;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import org.eclipse.core.resources.WorkspaceJob;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
@@ -32,6 +34,7 @@ import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
 import org.sonarlint.eclipse.core.internal.TriggerType;
 import org.sonarlint.eclipse.core.internal.jobs.AnalyzeProjectRequest.FileWithDocument;
 import org.sonarlint.eclipse.core.internal.resources.ProjectsProviderUtils;
+import org.sonarlint.eclipse.core.internal.utils.PreferencesUtils;
 import org.sonarlint.eclipse.core.resource.ISonarLintProject;
 
 public class AnalyzeProjectsJob extends WorkspaceJob {
@@ -52,22 +55,14 @@ public class AnalyzeProjectsJob extends WorkspaceJob {
       ProjectsProviderUtils.allProjects().stream()
         .filter(ISonarLintProject::isOpen)
         .forEach(p -> p.deleteAllMarkers(SonarLintCorePlugin.MARKER_REPORT_ID));
-      SubMonitor analysisMonitor = SubMonitor.convert(global.newChild(100), filesPerProject.size());
-      for (Map.Entry<ISonarLintProject, Collection<FileWithDocument>> entry : filesPerProject.entrySet()) {
-        if (monitor.isCanceled()) {
-          return Status.CANCEL_STATUS;
-        }
-        ISonarLintProject project = entry.getKey();
-        if (!project.isOpen()) {
-          analysisMonitor.worked(1);
-          continue;
-        }
-        global.setTaskName("Analysing project " + project.getName());
-        AnalyzeProjectRequest req = new AnalyzeProjectRequest(project, entry.getValue(), TriggerType.MANUAL);
-        AnalyzeProjectJob job = new AnalyzeProjectJob(req);
-        SubMonitor subMonitor = analysisMonitor.newChild(1);
-        job.runInWorkspace(subMonitor);
-        subMonitor.done();
+      List<AnalyzeProjectRequest> requests = filesPerProject.entrySet().stream()
+        .filter(e -> e.getKey().isOpen())
+        .map(e -> new AnalyzeProjectRequest(e.getKey(), e.getValue(), TriggerType.MANUAL))
+        .collect(Collectors.toList());
+      ParallelAnalysisScheduler scheduler = new ParallelAnalysisScheduler(getName(), PreferencesUtils.getAnalysisParallelism());
+      IStatus status = scheduler.run(requests, global.newChild(100));
+      if (status.getSeverity() == IStatus.CANCEL) {
+        return status;
       }
 
     } catch (Exception e) {
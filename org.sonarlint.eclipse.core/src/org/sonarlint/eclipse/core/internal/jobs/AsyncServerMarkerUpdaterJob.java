@@ -20,12 +20,13 @@
 package org.sonarlint.eclipse.core.internal.jobs;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
-import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
-import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
 import org.eclipse.jface.text.IDocument;
 import org.sonarlint.eclipse.core.internal.TriggerType;
 import org.sonarlint.eclipse.core.internal.tracking.Trackable;
@@ -44,29 +45,38 @@ public class AsyncServerMarkerUpdaterJob extends AbstractSonarProjectJob {
     this.issuesPerResource = issuesPerResource;
     this.docPerFile = docPerFile;
     this.triggerType = triggerType;
+    addJobChangeListener(new JobChangeAdapter() {
+      @Override
+      public void done(IJobChangeEvent event) {
+        InFlightAnalyses.get().unregister(AsyncServerMarkerUpdaterJob.this);
+      }
+    });
   }
 
   @Override
   protected IStatus doRun(IProgressMonitor monitor) {
-    for (Map.Entry<ISonarLintIssuable, Collection<Trackable>> entry : issuesPerResource.entrySet()) {
-      ISonarLintIssuable issuable = entry.getKey();
+    // Documents are read before taking the marker rule
+    Map<ISonarLintFile, IDocument> documents = new HashMap<>();
+    for (ISonarLintIssuable issuable : issuesPerResource.keySet()) {
       if (issuable instanceof ISonarLintFile) {
-        IDocument documentOrNull = docPerFile.get((ISonarLintFile) issuable);
-        final IDocument documentNotNull;
-        if (documentOrNull == null) {
-          documentNotNull = ((ISonarLintFile) issuable).getDocument();
-        } else {
-          documentNotNull = documentOrNull;
+        ISonarLintFile file = (ISonarLintFile) issuable;
+        IDocument documentOrNull = docPerFile.get(file);
+        documents.put(file, documentOrNull != null ? documentOrNull : file.getDocument());
+      }
+    }
+    SonarLintMarkerUpdater.runInWorkspaceOperation(getProject(), m -> {
+      for (Map.Entry<ISonarLintFile, IDocument> entry : documents.entrySet()) {
+        ISonarLintFile file = entry.getKey();
+        if (monitor.isCanceled()) {
+          return;
         }
-        ISchedulingRule markerRule = ResourcesPlugin.getWorkspace().getRuleFactory().markerRule(issuable.getResource());
-        try {
-          getJobManager().beginRule(markerRule, monitor);
-          SonarLintMarkerUpdater.updateMarkersWithServerSideData(issuable, documentNotNull, entry.getValue(), triggerType, documentOrNull != null);
-        } finally {
-          getJobManager().endRule(markerRule);
+        if (InFlightAnalyses.get().isSuperseded(this, triggerType.isOnTheFly(), file)) {
+          // Markers were updated by a more recent analysis of this file
+          continue;
         }
+        SonarLintMarkerUpdater.updateMarkersWithServerSideData(file, entry.getValue(), issuesPerResource.get(file), triggerType, docPerFile.get(file) != null);
       }
-    }
+    }, monitor);
     return Status.OK_STATUS;
   }
 }
@@ -0,0 +1,127 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.jobs;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.core.runtime.jobs.Job;
+import org.sonarlint.eclipse.core.resource.ISonarLintFile;
+
+/**
+ * Keep track of which analysis job is the most recent one for each file. When a newer analysis of a file is scheduled,
+ * the older one should not update markers of this file anymore, and should be cancelled if all its files were superseded.
+ * <p>
+ * On-the-fly and report analyses don't update the same markers, so they never supersede each other.
+ * <p>
+ * Files can be handed over to a job that updates their markers after the analysis, like the update of server issues, so that a newer
+ * analysis supersedes it too.
+ */
+public class InFlightAnalyses {
+
+  private static final InFlightAnalyses INSTANCE = new InFlightAnalyses();
+
+  // Use marker kind + project name + relative path since we don't know if ISonarLintFile instances are implementing hashcode
+  private final Map<String, Job> latestJobPerFile = new HashMap<>();
+  private final Map<Job, Set<String>> ownedFilesPerJob = new IdentityHashMap<>();
+  private final AtomicLong supersededFiles = new AtomicLong();
+  private final AtomicLong supersededJobs = new AtomicLong();
+
+  public static InFlightAnalyses get() {
+    return INSTANCE;
+  }
+
+  /**
+   * Register a job as the latest analysis of the given files.
+   * @param onTheFly kind of markers updated by the job
+   * @return jobs for which all files are now superseded, and that should be cancelled by the caller
+   */
+  public synchronized Collection<Job> register(Job job, boolean onTheFly, Collection<ISonarLintFile> files) {
+    List<Job> fullySuperseded = new ArrayList<>();
+    Set<String> ownedFiles = ownedFilesPerJob.computeIfAbsent(job, j -> new HashSet<>());
+    for (ISonarLintFile file : files) {
+      String key = key(onTheFly, file);
+      Job previous = latestJobPerFile.put(key, job);
+      ownedFiles.add(key);
+      if (previous != null && previous != job) {
+        supersededFiles.incrementAndGet();
+        Set<String> previousOwnedFiles = ownedFilesPerJob.get(previous);
+        previousOwnedFiles.remove(key);
+        if (previousOwnedFiles.isEmpty()) {
+          ownedFilesPerJob.remove(previous);
+          supersededJobs.incrementAndGet();
+          fullySuperseded.add(previous);
+        }
+      }
+    }
+    return fullySuperseded;
+  }
+
+  /**
+   * Hand over the files still owned by a job to another one, that has to be unregistered once done
+   */
+  public synchronized void handOver(Job from, Job to, boolean onTheFly, Collection<ISonarLintFile> files) {
+    Set<String> fromFiles = ownedFilesPerJob.get(from);
+    if (fromFiles == null) {
+      return;
+    }
+    for (ISonarLintFile file : files) {
+      String key = key(onTheFly, file);
+      if (fromFiles.remove(key)) {
+        latestJobPerFile.put(key, to);
+        ownedFilesPerJob.computeIfAbsent(to, j -> new HashSet<>()).add(key);
+      }
+    }
+    if (fromFiles.isEmpty()) {
+      ownedFilesPerJob.remove(from);
+    }
+  }
+
+  public synchronized boolean isSuperseded(Job job, boolean onTheFly, ISonarLintFile file) {
+    Job latest = latestJobPerFile.get(key(onTheFly, file));
+    return latest != null && latest != job;
+  }
+
+  public synchronized void unregister(Job job) {
+    Set<String> ownedFiles = ownedFilesPerJob.remove(job);
+    if (ownedFiles != null) {
+      ownedFiles.forEach(key -> latestJobPerFile.remove(key, job));
+    }
+  }
+
+  public long getSupersededFileCount() {
+    return supersededFiles.get();
+  }
+
+  public long getSupersededJobCount() {
+    return supersededJobs.get();
+  }
+
+  private static String key(boolean onTheFly, ISonarLintFile file) {
+    return (onTheFly ? "onTheFly:" : "report:") + file.getProject().getName() + "/" + file.getProjectRelativePath();
+  }
+
+}
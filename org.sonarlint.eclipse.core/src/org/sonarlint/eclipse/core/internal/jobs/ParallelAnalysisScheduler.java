@@ -0,0 +1,135 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.jobs;
+
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
+import org.eclipse.core.runtime.jobs.JobGroup;
+import org.sonarlint.eclipse.core.resource.ISonarLintProject;
+
+/**
+ * Run one {@link AnalyzeProjectJob} per request, with at most a given number of them running at the same time.
+ * Each job holds a {@link ProjectAnalysisRule}, so analyses of different projects can overlap, but never two analyses of the same project.
+ */
+class ParallelAnalysisScheduler {
+
+  private static final long POLL_DELAY_MS = 100;
+
+  private final String name;
+  private final int maxParallelism;
+
+  ParallelAnalysisScheduler(String name, int maxParallelism) {
+    this.name = name;
+    this.maxParallelism = Math.max(1, maxParallelism);
+  }
+
+  /**
+   * Schedule all analyses and wait for them to complete. Progress is only reported from the calling thread, each project
+   * counting for its number of files when its analysis is done.
+   */
+  IStatus run(Collection<AnalyzeProjectRequest> requests, IProgressMonitor monitor) {
+    SubMonitor progress = SubMonitor.convert(monitor, requests.stream().mapToInt(ParallelAnalysisScheduler::weight).sum());
+    if (requests.isEmpty()) {
+      return Status.OK_STATUS;
+    }
+    JobGroup group = new JobGroup(name, maxParallelism, requests.size());
+    BlockingQueue<AnalyzeProjectJob> completed = new LinkedBlockingQueue<>();
+    Map<AnalyzeProjectJob, Integer> weightPerJob = new IdentityHashMap<>();
+    for (AnalyzeProjectRequest request : requests) {
+      AnalyzeProjectJob job = new AnalyzeProjectJob(request);
+      job.setRule(new ProjectAnalysisRule(request.getProject()));
+      job.setJobGroup(group);
+      job.setSystem(true);
+      job.addJobChangeListener(new JobChangeAdapter() {
+        @Override
+        public void done(IJobChangeEvent event) {
+          completed.add(job);
+        }
+      });
+      weightPerJob.put(job, weight(request));
+    }
+    weightPerJob.keySet().forEach(AnalyzeProjectJob::schedule);
+
+    int remaining = weightPerJob.size();
+    try {
+      while (remaining > 0) {
+        if (progress.isCanceled()) {
+          cancelAndWait(group);
+          return Status.CANCEL_STATUS;
+        }
+        progress.subTask(remaining + " project(s) remaining");
+        AnalyzeProjectJob done = completed.poll(POLL_DELAY_MS, TimeUnit.MILLISECONDS);
+        if (done != null) {
+          remaining--;
+          progress.worked(weightPerJob.get(done));
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      group.cancel();
+      return Status.CANCEL_STATUS;
+    }
+    return Status.OK_STATUS;
+  }
+
+  private static int weight(AnalyzeProjectRequest request) {
+    return Math.max(1, request.getFilesToAnalyze().size());
+  }
+
+  private static void cancelAndWait(JobGroup group) throws InterruptedException {
+    group.cancel();
+    // Don't return before cancelled jobs are done, to not let them update markers after the parent job completion
+    group.join(0, null);
+  }
+
+  /**
+   * Only conflicts with the analysis of the same project.
+   */
+  static class ProjectAnalysisRule implements ISchedulingRule {
+    // Use project name since we don't know if ISonarLintProject instances are implementing hashcode
+    private final String projectName;
+
+    ProjectAnalysisRule(ISonarLintProject project) {
+      this.projectName = project.getName();
+    }
+
+    @Override
+    public boolean contains(ISchedulingRule rule) {
+      return rule == this;
+    }
+
+    @Override
+    public boolean isConflicting(ISchedulingRule rule) {
+      return rule instanceof ProjectAnalysisRule && ((ProjectAnalysisRule) rule).projectName.equals(projectName);
+    }
+  }
+
+}
@@ -20,55 +20,81 @@
 package org.sonarlint.eclipse.core.internal.jobs;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobGroup;
+import org.sonarlint.eclipse.core.SonarLintLogger;
 import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
 import org.sonarlint.eclipse.core.internal.resources.SonarLintProjectConfiguration;
 import org.sonarlint.eclipse.core.internal.server.IServer;
 import org.sonarlint.eclipse.core.resource.ISonarLintProject;
 import org.sonarsource.sonarlint.core.client.api.connected.RemoteModule;
 
+/**
+ * Unless the update is forced, only storages that changed on the server since the last check for updates are updated, but server issues
+ * are always downloaded. Modules are updated concurrently.
+ */
 public class ServerUpdateJob extends Job {
+  static final int MAX_CONCURRENT_MODULE_UPDATES = 4;
+
   private final IServer server;
+  private final boolean force;
 
   public ServerUpdateJob(IServer server) {
+    this(server, false);
+  }
+
+  /**
+   * @param force true to update all storages, even the ones a recent check for updates found unchanged. To be used when the update is
+   * explicitly requested, since the server can change after the check.
+   */
+  public ServerUpdateJob(IServer server, boolean force) {
     super("Update data from SonarQube server '" + server.getId() + "'");
     this.server = server;
+    this.force = force;
   }
 
   @Override
   protected IStatus run(IProgressMonitor monitor) {
     List<ISonarLintProject> projectsToUpdate = server.getBoundProjects();
     monitor.beginTask("Update server and all associated projects", projectsToUpdate.size() + 1);
-    try {
-      server.updateStorage(monitor);
-    } catch (Exception e) {
-      return new Status(IStatus.ERROR, SonarLintCorePlugin.PLUGIN_ID, "Unable to update data from server '" + server.getId() + "'", e);
+    if (force || server.needsStorageUpdate()) {
+      try {
+        long start = System.currentTimeMillis();
+        server.updateStorage(monitor);
+        SonarLintLogger.get().debug("Updated data from server '" + server.getId() + "' in " + (System.currentTimeMillis() - start) + " ms");
+      } catch (Exception e) {
+        return new Status(IStatus.ERROR, SonarLintCorePlugin.PLUGIN_ID, "Unable to update data from server '" + server.getId() + "'", e);
+      }
+    } else {
+      SonarLintLogger.get().debug("No change of data on server '" + server.getId() + "' since last update");
     }
     monitor.worked(1);
 
-    Set<String> seenModuleKeys = new HashSet<>();
+    // Projects bound to the same module share the same storage
+    Map<String, ISonarLintProject> projectPerModuleKey = new LinkedHashMap<>();
     List<IStatus> failures = new ArrayList<>();
     for (ISonarLintProject projectToUpdate : projectsToUpdate) {
-      if (monitor.isCanceled()) {
-        return Status.CANCEL_STATUS;
-      }
       try {
         SonarLintProjectConfiguration config = SonarLintProjectConfiguration.read(projectToUpdate.getScopeContext());
         fixProjectKeyIfMissing(config);
-        if (seenModuleKeys.add(config.getModuleKey())) {
-          server.updateProjectStorage(config.getModuleKey(), monitor);
-        }
+        projectPerModuleKey.putIfAbsent(config.getModuleKey(), projectToUpdate);
       } catch (Exception e) {
         failures.add(new Status(IStatus.ERROR, SonarLintCorePlugin.PLUGIN_ID, "Unable to update binding for project '" + projectToUpdate.getName() + "'", e));
       }
-      monitor.worked(1);
+    }
+    monitor.worked(projectsToUpdate.size() - projectPerModuleKey.size());
+
+    if (!updateModules(projectPerModuleKey, failures, monitor)) {
+      return Status.CANCEL_STATUS;
     }
     monitor.done();
     if (!failures.isEmpty()) {
@@ -78,6 +104,98 @@ public class ServerUpdateJob extends Job {
     return Status.OK_STATUS;
   }
 
+  /**
+   * @return false if canceled
+   */
+  boolean updateModules(Map<String, ISonarLintProject> projectPerModuleKey, List<IStatus> failures, IProgressMonitor monitor) {
+    if (projectPerModuleKey.isEmpty()) {
+      return true;
+    }
+    JobGroup group = new JobGroup("Update modules from server '" + server.getId() + "'", MAX_CONCURRENT_MODULE_UPDATES, projectPerModuleKey.size());
+    List<ModuleUpdateJob> jobs = new ArrayList<>();
+    for (Map.Entry<String, ISonarLintProject> entry : projectPerModuleKey.entrySet()) {
+      ModuleUpdateJob job = new ModuleUpdateJob(entry.getKey(), entry.getValue(), force || server.needsProjectStorageUpdate(entry.getKey()));
+      job.setJobGroup(group);
+      job.setSystem(true);
+      jobs.add(job);
+    }
+    long toUpdate = jobs.stream().filter(j -> j.updateStorage).count();
+    SonarLintLogger.get().debug("Update " + toUpdate + " module(s) from server '" + server.getId() + "', "
+      + (jobs.size() - toUpdate) + " unchanged since last update");
+    jobs.forEach(Job::schedule);
+
+    // Only cancellation is forwarded, progress is reported once all modules are updated
+    IProgressMonitor cancellationMonitor = new NullProgressMonitor() {
+      @Override
+      public boolean isCanceled() {
+        return monitor.isCanceled();
+      }
+    };
+    try {
+      group.join(0, cancellationMonitor);
+    } catch (OperationCanceledException e) {
+      group.cancel();
+      // Don't return before canceled updates are done, they would write to the storage after the job completion
+      joinQuietly(group);
+      return false;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      group.cancel();
+      return false;
+    }
+    for (ModuleUpdateJob job : jobs) {
+      IStatus result = job.getResult();
+      if (result != null && result.getSeverity() == IStatus.ERROR) {
+        failures.add(result);
+      }
+    }
+    monitor.worked(jobs.size());
+    return true;
+  }
+
+  private static void joinQuietly(JobGroup group) {
+    try {
+      group.join(0, null);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Server issues of a module are always downloaded, even when the rest of its storage is unchanged
+   */
+  private class ModuleUpdateJob extends Job {
+    private final String moduleKey;
+    private final ISonarLintProject project;
+    private final boolean updateStorage;
+
+    private ModuleUpdateJob(String moduleKey, ISonarLintProject project, boolean updateStorage) {
+      super("Update module '" + moduleKey + "' from server '" + server.getId() + "'");
+      this.moduleKey = moduleKey;
+      this.project = project;
+      this.updateStorage = updateStorage;
+    }
+
+    @Override
+    protected IStatus run(IProgressMonitor monitor) {
+      try {
+        long start = System.currentTimeMillis();
+        if (updateStorage) {
+          server.updateProjectStorage(moduleKey, monitor);
+          SonarLintLogger.get().debug("Updated module '" + moduleKey + "' in " + (System.currentTimeMillis() - start) + " ms");
+        } else {
+          if (!server.updateProjectServerIssues(moduleKey)) {
+            return new Status(IStatus.ERROR, SonarLintCorePlugin.PLUGIN_ID, "Unable to download server issues for project '" + project.getName() + "'");
+          }
+          SonarLintLogger.get().debug("Updated server issues of module '" + moduleKey + "' in " + (System.currentTimeMillis() - start) + " ms");
+        }
+        return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+      } catch (Exception e) {
+        return new Status(IStatus.ERROR, SonarLintCorePlugin.PLUGIN_ID, "Unable to update binding for project '" + project.getName() + "'", e);
+      }
+    }
+  }
+
   // note: this is only necessary for projects bound before SQ 6.6
   private void fixProjectKeyIfMissing(SonarLintProjectConfiguration config) {
     if (config.getProjectKey() == null) {
@@ -23,7 +23,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -31,10 +31,16 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.BadPositionCategoryException;
 import org.eclipse.jface.text.DefaultPositionUpdater;
@@ -43,6 +49,7 @@ import org.eclipse.jface.text.Position;
 import org.sonarlint.eclipse.core.SonarLintLogger;
 import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
 import org.sonarlint.eclipse.core.internal.TriggerType;
+import org.sonarlint.eclipse.core.internal.markers.DocumentLineIndex;
 import org.sonarlint.eclipse.core.internal.markers.MarkerUtils;
 import org.sonarlint.eclipse.core.internal.markers.MarkerUtils.ExtraPosition;
 import org.sonarlint.eclipse.core.internal.tracking.Trackable;
@@ -61,23 +68,36 @@ public class SonarLintMarkerUpdater {
   }
 
   public static void createOrUpdateMarkers(ISonarLintFile issuable, IDocument document, Collection<Trackable> issues, TriggerType triggerType, boolean createExtraLocations) {
+    createOrUpdateMarkers(issuable, new DocumentLineIndex(document), issues, triggerType, createExtraLocations);
+  }
+
+  public static void createOrUpdateMarkers(ISonarLintFile issuable, DocumentLineIndex lineIndex, Collection<Trackable> issues, TriggerType triggerType,
+    boolean createExtraLocations) {
     try {
-      Set<IMarker> previousMarkersToDelete;
-      if (triggerType.isOnTheFly()) {
-        previousMarkersToDelete = new HashSet<>(Arrays.asList(issuable.getResource().findMarkers(SonarLintCorePlugin.MARKER_ON_THE_FLY_ID, false, IResource.DEPTH_ZERO)));
-      } else {
-        previousMarkersToDelete = Collections.emptySet();
-      }
+      ExistingMarkers previousMarkers = triggerType.isOnTheFly() ? ExistingMarkers.of(issuable) : ExistingMarkers.none();
 
       if (createExtraLocations) {
-        resetExtraPositions(document);
+        resetExtraPositions(lineIndex.getDocument());
       }
 
-      createOrUpdateMarkers(document, issuable, issues, triggerType, previousMarkersToDelete, createExtraLocations);
+      createOrUpdateMarkers(lineIndex, issuable, issues, triggerType, previousMarkers, createExtraLocations);
 
-      for (IMarker marker : previousMarkersToDelete) {
-        marker.delete();
-      }
+      // Markers of issues that disappeared
+      previousMarkers.deleteUnmatched();
+    } catch (CoreException e) {
+      SonarLintLogger.get().error(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Run all marker changes of an analysis in a single workspace operation, so that resource change listeners (Problems view, label
+   * decorators, ...) receive one delta for the whole batch instead of one per marker change.
+   */
+  public static void runInWorkspaceOperation(ISonarLintProject project, IWorkspaceRunnable markerChanges, IProgressMonitor monitor) {
+    IWorkspace workspace = ResourcesPlugin.getWorkspace();
+    ISchedulingRule markerRule = workspace.getRuleFactory().markerRule(project.getResource());
+    try {
+      workspace.run(markerChanges, markerRule, IWorkspace.AVOID_UPDATE, monitor);
     } catch (CoreException e) {
       SonarLintLogger.get().error(e.getMessage(), e);
     }
@@ -110,48 +130,45 @@ public class SonarLintMarkerUpdater {
 
   public static void updateMarkersWithServerSideData(ISonarLintIssuable issuable, IDocument document, Collection<Trackable> issues, TriggerType triggerType,
     boolean createExtraLocations) {
+    DocumentLineIndex lineIndex = new DocumentLineIndex(document);
     try {
+      ExistingMarkers existingMarkers = ExistingMarkers.of(issuable);
       for (Trackable issue : issues) {
-        updateMarkerWithServerSideData(issuable, document, issue, triggerType, createExtraLocations);
+        updateMarkerWithServerSideData(issuable, lineIndex, existingMarkers, issue, triggerType, createExtraLocations);
       }
+      existingMarkers.deleteMatched();
     } catch (CoreException e) {
       SonarLintLogger.get().error(e.getMessage(), e);
     }
   }
 
-  private static void updateMarkerWithServerSideData(ISonarLintIssuable issuable, IDocument document, Trackable issue, TriggerType triggerType, boolean createExtraLocations)
+  private static void updateMarkerWithServerSideData(ISonarLintIssuable issuable, DocumentLineIndex lineIndex, ExistingMarkers existingMarkers, Trackable issue,
+    TriggerType triggerType, boolean createExtraLocations)
     throws CoreException {
-    Long markerId = issue.getMarkerId();
-    IMarker marker = null;
-    if (markerId != null) {
-      marker = issuable.getResource().findMarker(markerId);
-    }
     if (issue.isResolved()) {
-      if (marker != null) {
-        // Issue is associated to a marker, means it was not marked as resolved in previous analysis, but now it is, so clear marker
-        marker.delete();
-      }
+      // If issue is associated to a marker, means it was not marked as resolved in previous analysis, but now it is, so clear marker
+      existingMarkers.match(issue.getMarkerId());
       issue.setMarkerId(null);
     } else {
+      IMarker marker = existingMarkers.get(issue.getMarkerId());
       if (marker != null) {
         updateServerMarkerAttributes(issue, marker);
       } else {
         // Issue was previously resolved, and is now reopen, so we need to recreate a marker
-        createMarker(document, issuable, issue, triggerType, createExtraLocations);
+        createMarker(lineIndex, issuable, issue, triggerType, createExtraLocations);
       }
     }
   }
 
-  private static void createOrUpdateMarkers(IDocument document, ISonarLintIssuable issuable, Collection<Trackable> issues,
-    TriggerType triggerType, Set<IMarker> previousMarkersToDelete, boolean createExtraLocations) throws CoreException {
+  private static void createOrUpdateMarkers(DocumentLineIndex lineIndex, ISonarLintIssuable issuable, Collection<Trackable> issues,
+    TriggerType triggerType, ExistingMarkers previousMarkers, boolean createExtraLocations) throws CoreException {
     for (Trackable issue : issues) {
       if (!issue.isResolved()) {
-        if (!triggerType.isOnTheFly() || issue.getMarkerId() == null || issuable.getResource().findMarker(issue.getMarkerId()) == null) {
-          createMarker(document, issuable, issue, triggerType, createExtraLocations);
+        IMarker marker = previousMarkers.match(issue.getMarkerId());
+        if (marker == null) {
+          createMarker(lineIndex, issuable, issue, triggerType, createExtraLocations);
         } else {
-          IMarker marker = issuable.getResource().findMarker(issue.getMarkerId());
-          updateMarkerAttributes(document, issue, marker, createExtraLocations);
-          previousMarkersToDelete.remove(marker);
+          updateMarkerAttributes(lineIndex, issue, marker, createExtraLocations);
         }
       } else {
         issue.setMarkerId(null);
@@ -159,7 +176,8 @@ public class SonarLintMarkerUpdater {
     }
   }
 
-  private static void createMarker(IDocument document, ISonarLintIssuable issuable, Trackable trackable, TriggerType triggerType, boolean createExtraLocations)
+  private static void createMarker(DocumentLineIndex lineIndex, ISonarLintIssuable issuable, Trackable trackable, TriggerType triggerType,
+    boolean createExtraLocations)
     throws CoreException {
     IMarker marker = issuable.getResource()
       .createMarker(triggerType.isOnTheFly() ? SonarLintCorePlugin.MARKER_ON_THE_FLY_ID : SonarLintCorePlugin.MARKER_REPORT_ID);
@@ -167,53 +185,60 @@ public class SonarLintMarkerUpdater {
       trackable.setMarkerId(marker.getId());
     }
 
+    Map<String, Object> changedAttributes = new HashMap<>();
     // See MarkerViewUtils
-    marker.setAttribute("org.eclipse.ui.views.markers.name", issuable.getResourceNameForMarker());
-    marker.setAttribute("org.eclipse.ui.views.markers.path", issuable.getResourceContainerForMarker());
+    changedAttributes.put("org.eclipse.ui.views.markers.name", issuable.getResourceNameForMarker());
+    changedAttributes.put("org.eclipse.ui.views.markers.path", issuable.getResourceContainerForMarker());
 
-    updateMarkerAttributes(document, trackable, marker, createExtraLocations);
+    collectChangedAttributes(lineIndex, trackable, marker, createExtraLocations, null, changedAttributes);
+    setAttributes(marker, changedAttributes);
   }
 
-  private static void updateMarkerAttributes(IDocument document, Trackable trackable, IMarker marker, boolean createExtraLocations) throws CoreException {
-    Map<String, Object> existingAttributes = marker.getAttributes();
+  private static void updateMarkerAttributes(DocumentLineIndex lineIndex, Trackable trackable, IMarker marker, boolean createExtraLocations) throws CoreException {
+    Map<String, Object> changedAttributes = new HashMap<>();
+    collectChangedAttributes(lineIndex, trackable, marker, createExtraLocations, marker.getAttributes(), changedAttributes);
+    setAttributes(marker, changedAttributes);
+  }
 
-    setMarkerAttributeIfDifferent(marker, existingAttributes, MarkerUtils.SONAR_MARKER_RULE_KEY_ATTR, trackable.getRuleKey());
-    setMarkerAttributeIfDifferent(marker, existingAttributes, MarkerUtils.SONAR_MARKER_RULE_NAME_ATTR, trackable.getRuleName());
-    setMarkerAttributeIfDifferent(marker, existingAttributes, IMarker.SEVERITY, PreferencesUtils.getMarkerSeverity());
+  private static void collectChangedAttributes(DocumentLineIndex lineIndex, Trackable trackable, IMarker marker, boolean createExtraLocations,
+    @Nullable Map<String, Object> existingAttributes, Map<String, Object> changedAttributes) {
+    putAttributeIfDifferent(existingAttributes, changedAttributes, MarkerUtils.SONAR_MARKER_RULE_KEY_ATTR, trackable.getRuleKey());
+    putAttributeIfDifferent(existingAttributes, changedAttributes, MarkerUtils.SONAR_MARKER_RULE_NAME_ATTR, trackable.getRuleName());
+    putAttributeIfDifferent(existingAttributes, changedAttributes, IMarker.SEVERITY, PreferencesUtils.getMarkerSeverity());
 
-    setMarkerAttributeIfDifferent(marker, existingAttributes, IMarker.MESSAGE, trackable.getMessage());
+    putAttributeIfDifferent(existingAttributes, changedAttributes, IMarker.MESSAGE, trackable.getMessage());
 
     // File level issues (line == null) are displayed on line 1
-    setMarkerAttributeIfDifferent(marker, existingAttributes, IMarker.LINE_NUMBER, trackable.getLine() != null ? trackable.getLine() : 1);
+    putAttributeIfDifferent(existingAttributes, changedAttributes, IMarker.LINE_NUMBER, trackable.getLine() != null ? trackable.getLine() : 1);
 
-    Position position = MarkerUtils.getPosition(document, trackable.getTextRange());
+    Position position = lineIndex.getPosition(trackable.getTextRange());
     if (position != null) {
-      setMarkerAttributeIfDifferent(marker, existingAttributes, IMarker.CHAR_START, position.getOffset());
-      setMarkerAttributeIfDifferent(marker, existingAttributes, IMarker.CHAR_END, position.getOffset() + position.getLength());
+      putAttributeIfDifferent(existingAttributes, changedAttributes, IMarker.CHAR_START, position.getOffset());
+      putAttributeIfDifferent(existingAttributes, changedAttributes, IMarker.CHAR_END, position.getOffset() + position.getLength());
     }
 
     boolean hasExtraLocation = false;
     if (createExtraLocations) {
-      hasExtraLocation = createExtraLocations(document, trackable, marker);
+      hasExtraLocation = createExtraLocations(lineIndex, trackable, marker);
     }
-    setMarkerAttributeIfDifferent(marker, existingAttributes, MarkerUtils.SONAR_MARKER_HAS_EXTRA_LOCATION_KEY_ATTR, hasExtraLocation);
+    putAttributeIfDifferent(existingAttributes, changedAttributes, MarkerUtils.SONAR_MARKER_HAS_EXTRA_LOCATION_KEY_ATTR, hasExtraLocation);
 
-    updateServerMarkerAttributes(trackable, marker);
+    collectChangedServerAttributes(trackable, existingAttributes, changedAttributes);
   }
 
-  private static boolean createExtraLocations(IDocument document, Trackable trackable, IMarker marker) {
+  private static boolean createExtraLocations(DocumentLineIndex lineIndex, Trackable trackable, IMarker marker) {
     boolean hasExtraLocation = false;
     for (Flow f : trackable.getFlows()) {
       ExtraPosition parent = null;
       List<IssueLocation> locations = new ArrayList<>(f.locations());
       Collections.reverse(locations);
       for (IssueLocation l : locations) {
-        ExtraPosition extraPosition = MarkerUtils.getExtraPosition(document,
+        ExtraPosition extraPosition = lineIndex.getExtraPosition(
           l.getStartLine(), l.getStartLineOffset(), l.getEndLine(), l.getEndLineOffset(),
           l.getMessage(),
           marker.getId(), parent);
         if (extraPosition != null) {
-          savePosition(document, extraPosition);
+          savePosition(lineIndex.getDocument(), extraPosition);
           parent = extraPosition;
           hasExtraLocation = true;
         }
@@ -237,21 +262,35 @@ public class SonarLintMarkerUpdater {
    *   - creation date
    */
   private static void updateServerMarkerAttributes(Trackable trackable, IMarker marker) throws CoreException {
-    Map<String, Object> existingAttributes = marker.getAttributes();
+    Map<String, Object> changedAttributes = new HashMap<>();
+    collectChangedServerAttributes(trackable, marker.getAttributes(), changedAttributes);
+    setAttributes(marker, changedAttributes);
+  }
 
-    setMarkerAttributeIfDifferent(marker, existingAttributes, IMarker.PRIORITY, getPriority(trackable.getSeverity()));
-    setMarkerAttributeIfDifferent(marker, existingAttributes, MarkerUtils.SONAR_MARKER_ISSUE_SEVERITY_ATTR, trackable.getSeverity());
-    setMarkerAttributeIfDifferent(marker, existingAttributes, MarkerUtils.SONAR_MARKER_ISSUE_TYPE_ATTR, trackable.getType());
-    setMarkerAttributeIfDifferent(marker, existingAttributes, MarkerUtils.SONAR_MARKER_SERVER_ISSUE_KEY_ATTR, trackable.getServerIssueKey());
+  private static void collectChangedServerAttributes(Trackable trackable, @Nullable Map<String, Object> existingAttributes, Map<String, Object> changedAttributes) {
+    putAttributeIfDifferent(existingAttributes, changedAttributes, IMarker.PRIORITY, getPriority(trackable.getSeverity()));
+    putAttributeIfDifferent(existingAttributes, changedAttributes, MarkerUtils.SONAR_MARKER_ISSUE_SEVERITY_ATTR, trackable.getSeverity());
+    putAttributeIfDifferent(existingAttributes, changedAttributes, MarkerUtils.SONAR_MARKER_ISSUE_TYPE_ATTR, trackable.getType());
+    putAttributeIfDifferent(existingAttributes, changedAttributes, MarkerUtils.SONAR_MARKER_SERVER_ISSUE_KEY_ATTR, trackable.getServerIssueKey());
 
     Long creationDate = trackable.getCreationDate();
-    setMarkerAttributeIfDifferent(marker, existingAttributes, MarkerUtils.SONAR_MARKER_CREATION_DATE_ATTR, creationDate != null ? String.valueOf(creationDate.longValue()) : null);
+    putAttributeIfDifferent(existingAttributes, changedAttributes, MarkerUtils.SONAR_MARKER_CREATION_DATE_ATTR,
+      creationDate != null ? String.valueOf(creationDate.longValue()) : null);
   }
 
-  private static void setMarkerAttributeIfDifferent(IMarker marker, @Nullable Map<String, Object> existingAttributes, String attributeName, @Nullable Object value)
-    throws CoreException {
+  private static void putAttributeIfDifferent(@Nullable Map<String, Object> existingAttributes, Map<String, Object> changedAttributes, String attributeName,
+    @Nullable Object value) {
     if (!Objects.equals(value, existingAttributes != null ? existingAttributes.get(attributeName) : null)) {
-      marker.setAttribute(attributeName, value);
+      changedAttributes.put(attributeName, value);
+    }
+  }
+
+  /**
+   * Each call to {@link IMarker#setAttribute(String, Object)} is a separate marker change, so all attributes are set at once.
+   */
+  private static void setAttributes(IMarker marker, Map<String, Object> changedAttributes) throws CoreException {
+    if (!changedAttributes.isEmpty()) {
+      marker.setAttributes(changedAttributes.keySet().toArray(new String[changedAttributes.size()]), changedAttributes.values().toArray());
     }
   }
 
@@ -276,4 +315,61 @@ public class SonarLintMarkerUpdater {
     }
   }
 
+  /**
+   * On the fly markers of a resource, read once and indexed by id, instead of looking up each marker of tracked issues. Markers are
+   * then deleted in bulk.
+   */
+  private static class ExistingMarkers {
+    private final Map<Long, IMarker> markersById;
+    private final List<IMarker> matched = new ArrayList<>();
+
+    private ExistingMarkers(Map<Long, IMarker> markersById) {
+      this.markersById = markersById;
+    }
+
+    static ExistingMarkers of(ISonarLintIssuable issuable) throws CoreException {
+      IMarker[] markers = issuable.getResource().findMarkers(SonarLintCorePlugin.MARKER_ON_THE_FLY_ID, false, IResource.DEPTH_ZERO);
+      Map<Long, IMarker> markersById = new HashMap<>(markers.length * 2);
+      for (IMarker marker : markers) {
+        markersById.put(marker.getId(), marker);
+      }
+      return new ExistingMarkers(markersById);
+    }
+
+    static ExistingMarkers none() {
+      return new ExistingMarkers(new HashMap<>());
+    }
+
+    @CheckForNull
+    IMarker get(@Nullable Long markerId) {
+      return markerId != null ? markersById.get(markerId) : null;
+    }
+
+    /**
+     * @return the marker with given id, if it was not already matched
+     */
+    @CheckForNull
+    IMarker match(@Nullable Long markerId) {
+      IMarker marker = markerId != null ? markersById.remove(markerId) : null;
+      if (marker != null) {
+        matched.add(marker);
+      }
+      return marker;
+    }
+
+    void deleteMatched() throws CoreException {
+      delete(matched);
+    }
+
+    void deleteUnmatched() throws CoreException {
+      delete(markersById.values());
+    }
+
+    private static void delete(Collection<IMarker> markers) throws CoreException {
+      if (!markers.isEmpty()) {
+        ResourcesPlugin.getWorkspace().deleteMarkers(markers.toArray(new IMarker[markers.size()]));
+      }
+    }
+  }
+
 }
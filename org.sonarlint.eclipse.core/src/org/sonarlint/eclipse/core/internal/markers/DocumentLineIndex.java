@@ -0,0 +1,178 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.markers;
+
+import java.util.Arrays;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+import org.eclipse.jface.text.Position;
+import org.sonarlint.eclipse.core.SonarLintLogger;
+import org.sonarlint.eclipse.core.internal.markers.MarkerUtils.ExtraPosition;
+
+/**
+ * Offsets of the lines of a document, computed once from its content, to convert many text ranges without querying the document
+ * each time. Gives the same positions as {@link MarkerUtils}.
+ * <p>
+ * The index is computed on first use, and computed again if the document was modified since. A document without modification stamp
+ * is only indexed once. Not thread safe.
+ */
+public class DocumentLineIndex {
+
+  private final IDocument document;
+  private long modificationStamp;
+  private String text;
+  /**
+   * Offset of the first character of each line
+   */
+  private int[] lineStarts;
+  /**
+   * Offset following the last character of each line, excluding the line delimiter
+   */
+  private int[] lineEnds;
+  private int lineCount;
+
+  public DocumentLineIndex(IDocument document) {
+    this.document = document;
+  }
+
+  public IDocument getDocument() {
+    return document;
+  }
+
+  private void ensureUpToDate() {
+    long currentStamp = getModificationStamp();
+    if (text == null || currentStamp != modificationStamp) {
+      modificationStamp = currentStamp;
+      index(document.get(), document.getLegalLineDelimiters());
+    }
+  }
+
+  private long getModificationStamp() {
+    return document instanceof IDocumentExtension4 ? ((IDocumentExtension4) document).getModificationStamp() : IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+  }
+
+  /**
+   * Like the line tracker of the document, the longest delimiter is used when several match, and a document ending with a delimiter
+   * has an additional empty line.
+   */
+  private void index(String content, String[] delimiters) {
+    text = content;
+    lineStarts = new int[16];
+    lineEnds = new int[16];
+    lineCount = 0;
+    int lineStart = 0;
+    int i = 0;
+    while (i < content.length()) {
+      int delimiterLength = delimiterLengthAt(content, i, delimiters);
+      if (delimiterLength > 0) {
+        addLine(lineStart, i);
+        i += delimiterLength;
+        lineStart = i;
+      } else {
+        i++;
+      }
+    }
+    addLine(lineStart, content.length());
+  }
+
+  private static int delimiterLengthAt(String content, int offset, String[] delimiters) {
+    int result = 0;
+    for (String delimiter : delimiters) {
+      if (delimiter.length() > result && content.startsWith(delimiter, offset)) {
+        result = delimiter.length();
+      }
+    }
+    return result;
+  }
+
+  private void addLine(int start, int end) {
+    if (lineCount == lineStarts.length) {
+      lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+      lineEnds = Arrays.copyOf(lineEnds, lineCount * 2);
+    }
+    lineStarts[lineCount] = start;
+    lineEnds[lineCount] = end;
+    lineCount++;
+  }
+
+  private boolean isValidLine(int line) {
+    return line >= 1 && line <= lineCount;
+  }
+
+  @CheckForNull
+  public Position getPosition(@Nullable TextRange textRange) {
+    if (textRange == null || textRange.getStartLine() == null) {
+      return null;
+    }
+    if (textRange.getStartLineOffset() == null) {
+      return getPosition(textRange.getStartLine());
+    }
+    return getPosition(textRange.getStartLine(), textRange.getStartLineOffset(), textRange.getEndLine(), textRange.getEndLineOffset());
+  }
+
+  @CheckForNull
+  public Position getPosition(int startLine) {
+    ensureUpToDate();
+    if (!isValidLine(startLine)) {
+      SonarLintLogger.get().error("failed to compute flat text range for line " + startLine);
+      return null;
+    }
+    return new Position(lineStarts[startLine - 1], lineEnds[startLine - 1] - lineStarts[startLine - 1]);
+  }
+
+  @CheckForNull
+  public Position getPosition(int startLine, int startLineOffset, int endLine, int endLineOffset) {
+    ensureUpToDate();
+    if (!isValidLine(startLine) || !isValidLine(endLine)) {
+      SonarLintLogger.get().error("failed to compute line offsets for start, end = " + startLine + ", " + endLine);
+      return null;
+    }
+    int start = lineStarts[startLine - 1] + startLineOffset;
+    int end = lineStarts[endLine - 1] + endLineOffset;
+    return new Position(start, end - start);
+  }
+
+  @CheckForNull
+  public ExtraPosition getExtraPosition(int startLine, int startLineOffset, int endLine, int endLineOffset, String message, long markerId,
+    @Nullable ExtraPosition parent) {
+    Position position = getPosition(startLine, startLineOffset, endLine, endLineOffset);
+    if (position == null) {
+      return null;
+    }
+    return new ExtraPosition(position.getOffset(), position.getLength(), message, markerId, parent);
+  }
+
+  /**
+   * Same as {@link IDocument#get(int, int)}
+   */
+  public String getContent(Position position) throws BadLocationException {
+    ensureUpToDate();
+    int start = position.getOffset();
+    int end = start + position.getLength();
+    if (start < 0 || end < start || end > text.length()) {
+      throw new BadLocationException("Position " + start + ", " + position.getLength() + " is outside of document of length " + text.length());
+    }
+    return text.substring(start, end);
+  }
+
+}
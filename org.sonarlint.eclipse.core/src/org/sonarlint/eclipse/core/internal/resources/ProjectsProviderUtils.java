@@ -20,10 +20,8 @@
 package org.sonarlint.eclipse.core.internal.resources;
 
 import java.util.Collection;
-import java.util.stream.Collectors;
 import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
 import org.sonarlint.eclipse.core.resource.ISonarLintProject;
-import org.sonarlint.eclipse.core.resource.ISonarLintProjectsProvider;
 
 public class ProjectsProviderUtils {
 
@@ -31,11 +29,12 @@ public class ProjectsProviderUtils {
     // Utility class
   }
 
+  /**
+   * @return cached, unmodifiable collection of projects
+   * @see ProjectsSnapshotCache
+   */
   public static Collection<ISonarLintProject> allProjects() {
-    return SonarLintCorePlugin.getExtensionTracker().getProjectsProviders().stream()
-      .map(ISonarLintProjectsProvider::get)
-      .flatMap(Collection::stream)
-      .collect(Collectors.toSet());
+    return SonarLintCorePlugin.getProjectsCache().get();
   }
 
 }
@@ -0,0 +1,108 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.resources;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.sonarlint.eclipse.core.SonarLintLogger;
+import org.sonarlint.eclipse.core.resource.ISonarLintProject;
+import org.sonarlint.eclipse.core.resource.ISonarLintProjectsProvider;
+
+/**
+ * Immutable snapshot of the projects given by all {@link ISonarLintProjectsProvider}. It is built again only after projects were
+ * added, removed, opened or closed, or had their description changed (natures decide of adapter participants), or after
+ * extensions contributing projects changed. Listeners are notified of each such change, to not have to scan projects themselves.
+ */
+public class ProjectsSnapshotCache implements IResourceChangeListener {
+
+  private final Supplier<Collection<ISonarLintProjectsProvider>> providers;
+  private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+  // Written under lock of this, so that an invalidation can't be lost by a concurrent build
+  private volatile Set<ISonarLintProject> snapshot;
+
+  public ProjectsSnapshotCache(Supplier<Collection<ISonarLintProjectsProvider>> providers) {
+    this.providers = providers;
+  }
+
+  public Set<ISonarLintProject> get() {
+    Set<ISonarLintProject> result = snapshot;
+    if (result != null) {
+      return result;
+    }
+    synchronized (this) {
+      if (snapshot == null) {
+        Set<ISonarLintProject> projects = new LinkedHashSet<>();
+        providers.get().forEach(provider -> projects.addAll(provider.get()));
+        snapshot = Collections.unmodifiableSet(projects);
+      }
+      return snapshot;
+    }
+  }
+
+  public void invalidate() {
+    synchronized (this) {
+      snapshot = null;
+    }
+    for (Runnable listener : listeners) {
+      try {
+        listener.run();
+      } catch (Exception e) {
+        SonarLintLogger.get().error("Unable to notify change of projects", e);
+      }
+    }
+  }
+
+  /**
+   * @param listener called after projects changed, in the thread that changed them
+   */
+  public void addProjectsChangeListener(Runnable listener) {
+    listeners.add(listener);
+  }
+
+  public void removeProjectsChangeListener(Runnable listener) {
+    listeners.remove(listener);
+  }
+
+  @Override
+  public void resourceChanged(IResourceChangeEvent event) {
+    if (event.getType() != IResourceChangeEvent.POST_CHANGE || event.getDelta() == null) {
+      return;
+    }
+    for (IResourceDelta projectDelta : event.getDelta().getAffectedChildren()) {
+      if (projectDelta.getResource() instanceof IProject
+        && (projectDelta.getKind() == IResourceDelta.ADDED
+          || projectDelta.getKind() == IResourceDelta.REMOVED
+          || (projectDelta.getFlags() & (IResourceDelta.OPEN | IResourceDelta.DESCRIPTION)) != 0)) {
+        invalidate();
+        return;
+      }
+    }
+  }
+
+}
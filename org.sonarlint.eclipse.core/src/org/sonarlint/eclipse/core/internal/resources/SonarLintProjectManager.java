@@ -19,9 +19,18 @@
  */
 package org.sonarlint.eclipse.core.internal.resources;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences.IPreferenceChangeListener;
 import org.eclipse.core.runtime.preferences.IScopeContext;
 import org.osgi.service.prefs.BackingStoreException;
 import org.sonarlint.eclipse.core.SonarLintLogger;
@@ -38,6 +47,42 @@ public class SonarLintProjectManager {
   private static final String P_MODULE_KEY = "moduleKey";
   private static final String P_AUTO_ENABLED_KEY = "autoEnabled";
 
+  /**
+   * Deserialized configuration per preference node path. Entries are immutable, and removed as soon as the node changes.
+   */
+  private final Map<String, ConfigurationSnapshot> snapshotPerNodePath = new ConcurrentHashMap<>();
+  private final AtomicLong invalidations = new AtomicLong();
+  private final AtomicLong cacheHits = new AtomicLong();
+  private final AtomicLong cacheMisses = new AtomicLong();
+  private final CopyOnWriteArrayList<Consumer<IEclipsePreferences>> configurationChangeListeners = new CopyOnWriteArrayList<>();
+  private final IPreferenceChangeListener invalidationListener = event -> {
+    invalidate(event.getNode());
+    configurationChangeListeners.forEach(l -> l.accept(event.getNode()));
+  };
+
+  private static class ConfigurationSnapshot {
+    private final IEclipsePreferences node;
+    private final List<SonarLintProperty> extraProperties;
+    private final List<ExclusionItem> fileExclusions;
+    private final String projectKey;
+    private final String moduleKey;
+    private final String serverId;
+    private final boolean autoEnabled;
+
+    private ConfigurationSnapshot(IEclipsePreferences node) {
+      this.node = node;
+      this.extraProperties = Collections.unmodifiableList(PreferencesUtils.deserializeExtraProperties(node.get(P_EXTRA_PROPS, null)));
+      this.fileExclusions = Collections.unmodifiableList(PreferencesUtils.deserializeFileExclusions(node.get(P_FILE_EXCLUSIONS, null)));
+      this.projectKey = node.get(P_PROJECT_KEY, "");
+      this.moduleKey = node.get(P_MODULE_KEY, "");
+      this.serverId = node.get(P_SERVER_ID, "");
+      this.autoEnabled = node.getBoolean(P_AUTO_ENABLED_KEY, true);
+    }
+  }
+
+  /**
+   * @return a new configuration that can be modified and saved. Preferences are only deserialized again after they changed.
+   */
   public SonarLintProjectConfiguration readSonarLintConfiguration(IScopeContext projectScope) {
     IEclipsePreferences projectNode = projectScope.getNode(SonarLintCorePlugin.PLUGIN_ID);
     SonarLintProjectConfiguration sonarProject = new SonarLintProjectConfiguration(projectScope);
@@ -45,20 +90,80 @@ public class SonarLintProjectManager {
       return sonarProject;
     }
 
-    String extraArgsAsString = projectNode.get(P_EXTRA_PROPS, null);
-    List<SonarLintProperty> sonarProperties = PreferencesUtils.deserializeExtraProperties(extraArgsAsString);
-    String fileExclusionsAsString = projectNode.get(P_FILE_EXCLUSIONS, null);
-    List<ExclusionItem> fileExclusions = PreferencesUtils.deserializeFileExclusions(fileExclusionsAsString);
-
-    sonarProject.setExtraProperties(sonarProperties);
-    sonarProject.setFileExclusions(fileExclusions);
-    sonarProject.setProjectKey(projectNode.get(P_PROJECT_KEY, ""));
-    sonarProject.setModuleKey(projectNode.get(P_MODULE_KEY, ""));
-    sonarProject.setServerId(projectNode.get(P_SERVER_ID, ""));
-    sonarProject.setAutoEnabled(projectNode.getBoolean(P_AUTO_ENABLED_KEY, true));
+    ConfigurationSnapshot snapshot = getSnapshot(projectNode);
+    // Properties are mutable, give a copy to not alter the snapshot
+    sonarProject.setExtraProperties(snapshot.extraProperties.stream().map(SonarLintProperty::new).collect(Collectors.toCollection(ArrayList::new)));
+    sonarProject.setFileExclusions(snapshot.fileExclusions);
+    sonarProject.setProjectKey(snapshot.projectKey);
+    sonarProject.setModuleKey(snapshot.moduleKey);
+    sonarProject.setServerId(snapshot.serverId);
+    sonarProject.setAutoEnabled(snapshot.autoEnabled);
     return sonarProject;
   }
 
+  private ConfigurationSnapshot getSnapshot(IEclipsePreferences projectNode) {
+    String nodePath = projectNode.absolutePath();
+    ConfigurationSnapshot snapshot = snapshotPerNodePath.get(nodePath);
+    // A node removed with its project is replaced by a new instance when a project with the same name is created
+    if (snapshot != null && snapshot.node == projectNode) {
+      cacheHits.incrementAndGet();
+      return snapshot;
+    }
+    cacheMisses.incrementAndGet();
+    // Adding the same listener again has no effect
+    projectNode.addPreferenceChangeListener(invalidationListener);
+    long invalidationsBefore = invalidations.get();
+    snapshot = new ConfigurationSnapshot(projectNode);
+    snapshotPerNodePath.put(nodePath, snapshot);
+    if (invalidations.get() != invalidationsBefore) {
+      // Preferences changed while being read, the snapshot may be stale
+      snapshotPerNodePath.remove(nodePath, snapshot);
+    }
+    return snapshot;
+  }
+
+  private void invalidate(IEclipsePreferences projectNode) {
+    invalidations.incrementAndGet();
+    snapshotPerNodePath.remove(projectNode.absolutePath());
+  }
+
+  /**
+   * Listener notified with the preference node of a project after its configuration changed. Only projects whose configuration
+   * was read are observed.
+   */
+  public void addConfigurationChangeListener(Consumer<IEclipsePreferences> listener) {
+    configurationChangeListeners.addIfAbsent(listener);
+  }
+
+  public void removeConfigurationChangeListener(Consumer<IEclipsePreferences> listener) {
+    configurationChangeListeners.remove(listener);
+  }
+
+  /**
+   * Number of reads of the configuration that did not need to deserialize preferences
+   */
+  public long getCacheHitCount() {
+    return cacheHits.get();
+  }
+
+  /**
+   * Number of reads of the configuration that deserialized preferences
+   */
+  public long getCacheMissCount() {
+    return cacheMisses.get();
+  }
+
+  /**
+   * Raw values of the project settings file exclusions depend on, to detect their changes without parsing them
+   */
+  public String readExclusionSettingsStamp(IScopeContext projectScope) {
+    IEclipsePreferences projectNode = projectScope.getNode(SonarLintCorePlugin.PLUGIN_ID);
+    if (projectNode == null) {
+      return "";
+    }
+    return projectNode.get(P_FILE_EXCLUSIONS, "") + "|" + projectNode.get(P_SERVER_ID, "") + "|" + projectNode.get(P_MODULE_KEY, "");
+  }
+
   /**
    * @return false, if unable to save configuration
    */
@@ -101,6 +206,7 @@ public class SonarLintProjectManager {
     }
 
     projectNode.putBoolean(P_AUTO_ENABLED_KEY, configuration.isAutoEnabled());
+    invalidate(projectNode);
     try {
       projectNode.flush();
       return true;
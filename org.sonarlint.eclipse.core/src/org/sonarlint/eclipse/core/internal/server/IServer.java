@@ -104,6 +104,13 @@ public interface IServer {
 
   void updateProjectStorage(String moduleKey, IProgressMonitor monitor);
 
+  /**
+   * Download server issues of the module, without updating the rest of its storage
+   *
+   * @return false if server issues could not be downloaded, in which case the ones of the storage are left unchanged
+   */
+  boolean updateProjectServerIssues(String moduleKey);
+
   boolean isStorageUpdated();
 
   List<ISonarLintProject> getBoundProjects();
@@ -118,6 +125,18 @@ public interface IServer {
 
   boolean hasUpdates();
 
+  /**
+   * @return false only if the last {@link #checkForUpdates(IProgressMonitor)}, done less than a few minutes ago, found no change of the
+   * global storage since it was updated
+   */
+  boolean needsStorageUpdate();
+
+  /**
+   * @return false only if the last {@link #checkForUpdates(IProgressMonitor)}, done less than a few minutes ago, found no change of the
+   * module storage since it was updated
+   */
+  boolean needsProjectStorageUpdate(String moduleKey);
+
   void updateModuleList(IProgressMonitor monitor);
 
   boolean isSonarCloud();
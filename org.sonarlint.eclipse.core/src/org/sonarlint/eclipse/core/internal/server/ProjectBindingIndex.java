@@ -0,0 +1,185 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.server;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
+import org.sonarlint.eclipse.core.internal.resources.ProjectsProviderUtils;
+import org.sonarlint.eclipse.core.internal.resources.SonarLintProjectConfiguration;
+import org.sonarlint.eclipse.core.resource.ISonarLintProject;
+
+/**
+ * Open projects per bound server and module. The index is built from all projects on first lookup, then maintained from changes
+ * of project configurations and of the list of projects, so that lookups don't read the configuration of every project.
+ */
+public class ProjectBindingIndex {
+
+  private static final String NO_MODULE = "";
+
+  private static class Binding {
+    private final ISonarLintProject project;
+    private final String nodePath;
+    @Nullable
+    private final String serverId;
+    private final String moduleKey;
+
+    private Binding(ISonarLintProject project, String nodePath, @Nullable String serverId, @Nullable String moduleKey) {
+      this.project = project;
+      this.nodePath = nodePath;
+      this.serverId = serverId;
+      this.moduleKey = moduleKey != null ? moduleKey : NO_MODULE;
+    }
+  }
+
+  // Modified only under lock of this, read without lock
+  private final Map<String, Binding> bindingPerProjectName = new ConcurrentHashMap<>();
+  private final Map<String, String> projectNamePerNodePath = new ConcurrentHashMap<>();
+  private final Map<String, Map<String, Map<String, ISonarLintProject>>> projectsPerModuleKeyPerServerId = new ConcurrentHashMap<>();
+  private volatile boolean built;
+
+  /**
+   * @return open projects bound to the server, ignoring the module they are bound to
+   */
+  public List<ISonarLintProject> getBoundProjects(String serverId) {
+    List<ISonarLintProject> result = new ArrayList<>();
+    getBoundProjectsPerModuleKey(serverId).values().forEach(result::addAll);
+    return result;
+  }
+
+  public List<ISonarLintProject> getBoundProjects(String serverId, String moduleKey) {
+    Map<String, ISonarLintProject> projects = getProjectsPerModuleKey(serverId).get(moduleKey);
+    return projects != null ? new ArrayList<>(projects.values()) : new ArrayList<>();
+  }
+
+  /**
+   * @return open projects bound to the server, grouped by module key. Projects with an incomplete binding are under an empty key.
+   */
+  public Map<String, List<ISonarLintProject>> getBoundProjectsPerModuleKey(String serverId) {
+    Map<String, List<ISonarLintProject>> result = new LinkedHashMap<>();
+    getProjectsPerModuleKey(serverId).forEach((moduleKey, projects) -> {
+      if (!projects.isEmpty()) {
+        result.put(moduleKey, new ArrayList<>(projects.values()));
+      }
+    });
+    return result;
+  }
+
+  private Map<String, Map<String, ISonarLintProject>> getProjectsPerModuleKey(String serverId) {
+    if (!built) {
+      rebuild();
+    }
+    return projectsPerModuleKeyPerServerId.getOrDefault(serverId, Collections.emptyMap());
+  }
+
+  /**
+   * Index all projects again, from scratch
+   */
+  public synchronized void rebuild() {
+    bindingPerProjectName.clear();
+    projectNamePerNodePath.clear();
+    projectsPerModuleKeyPerServerId.clear();
+    for (ISonarLintProject project : ProjectsProviderUtils.allProjects()) {
+      update(project);
+    }
+    built = true;
+  }
+
+  public synchronized void clear() {
+    bindingPerProjectName.clear();
+    projectNamePerNodePath.clear();
+    projectsPerModuleKeyPerServerId.clear();
+    built = false;
+  }
+
+  /**
+   * To be called when the SonarLint configuration of a project changed
+   */
+  public void configurationChanged(IEclipsePreferences projectNode) {
+    if (!built) {
+      return;
+    }
+    String projectName = projectNamePerNodePath.get(projectNode.absolutePath());
+    Binding binding = projectName != null ? bindingPerProjectName.get(projectName) : null;
+    if (binding != null) {
+      update(binding.project);
+    }
+  }
+
+  /**
+   * To be called when projects were added, removed, opened or closed. Only projects that are new to the index have their
+   * configuration read.
+   */
+  public synchronized void projectsChanged() {
+    if (!built) {
+      return;
+    }
+    Set<String> removedProjectNames = new HashSet<>(bindingPerProjectName.keySet());
+    for (ISonarLintProject project : ProjectsProviderUtils.allProjects()) {
+      removedProjectNames.remove(project.getName());
+      Binding binding = bindingPerProjectName.get(project.getName());
+      if (binding == null || !binding.project.equals(project) || !project.isOpen()) {
+        update(project);
+      }
+    }
+    removedProjectNames.forEach(this::remove);
+  }
+
+  private synchronized void update(ISonarLintProject project) {
+    remove(project.getName());
+    if (!project.isOpen()) {
+      return;
+    }
+    // Reading the configuration makes the project manager notify later changes
+    SonarLintProjectConfiguration configuration = SonarLintProjectConfiguration.read(project.getScopeContext());
+    String nodePath = project.getScopeContext().getNode(SonarLintCorePlugin.PLUGIN_ID).absolutePath();
+    Binding binding = new Binding(project, nodePath, configuration.getServerId(), configuration.getModuleKey());
+    bindingPerProjectName.put(project.getName(), binding);
+    projectNamePerNodePath.put(nodePath, project.getName());
+    if (binding.serverId != null) {
+      projectsPerModuleKeyPerServerId.computeIfAbsent(binding.serverId, k -> new ConcurrentHashMap<>())
+        .computeIfAbsent(binding.moduleKey, k -> new ConcurrentHashMap<>())
+        .put(project.getName(), project);
+    }
+  }
+
+  private synchronized void remove(String projectName) {
+    Binding binding = bindingPerProjectName.remove(projectName);
+    if (binding == null) {
+      return;
+    }
+    projectNamePerNodePath.remove(binding.nodePath);
+    if (binding.serverId != null) {
+      Map<String, ISonarLintProject> projects = projectsPerModuleKeyPerServerId.getOrDefault(binding.serverId, Collections.emptyMap()).get(binding.moduleKey);
+      if (projects != null) {
+        projects.remove(projectName);
+      }
+    }
+  }
+
+}
@@ -30,10 +30,13 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.eclipse.core.net.proxy.IProxyData;
 import org.eclipse.core.net.proxy.IProxyService;
@@ -48,7 +51,6 @@ import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
 import org.sonarlint.eclipse.core.internal.StoragePathManager;
 import org.sonarlint.eclipse.core.internal.jobs.SonarLintAnalyzerLogOutput;
 import org.sonarlint.eclipse.core.internal.jobs.WrappedProgressMonitor;
-import org.sonarlint.eclipse.core.internal.resources.ProjectsProviderUtils;
 import org.sonarlint.eclipse.core.internal.resources.SonarLintProjectConfiguration;
 import org.sonarlint.eclipse.core.internal.utils.SonarLintUtils;
 import org.sonarlint.eclipse.core.internal.utils.StringUtils;
@@ -63,6 +65,7 @@ import org.sonarsource.sonarlint.core.client.api.connected.ConnectedGlobalConfig
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedSonarLintEngine;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedSonarLintEngine.State;
 import org.sonarsource.sonarlint.core.client.api.connected.GlobalStorageStatus;
+import org.sonarsource.sonarlint.core.client.api.connected.ModuleStorageStatus;
 import org.sonarsource.sonarlint.core.client.api.connected.RemoteModule;
 import org.sonarsource.sonarlint.core.client.api.connected.RemoteOrganization;
 import org.sonarsource.sonarlint.core.client.api.connected.ServerConfiguration;
@@ -83,6 +86,7 @@ public class Server implements IServer, StateListener {
   public static final String OLD_SONARCLOUD_URL = "https://sonarqube.com";
 
   private static final String NEED_UPDATE = "Need data update";
+  static final long CHECK_FOR_UPDATES_VALIDITY_MS = 5 * 60 * 1000L;
   private final String id;
   private String host;
   private String organization;
@@ -92,6 +96,18 @@ public class Server implements IServer, StateListener {
   private GlobalStorageStatus updateStatus;
   private boolean hasUpdates;
   private boolean notificationsEnabled;
+  /**
+   * Results of the last check for updates, forgotten once the storage is updated. No entry when unknown.
+   * They are only trusted for {@value #CHECK_FOR_UPDATES_VALIDITY_MS} ms, since the server can change in the meantime.
+   */
+  @Nullable
+  private volatile Boolean globalStorageNeedsUpdate;
+  private final Map<String, Boolean> moduleStorageNeedsUpdate = new ConcurrentHashMap<>();
+  private volatile long checkForUpdatesTime;
+  /**
+   * Modules can be updated concurrently, but not while the global storage is updated
+   */
+  private final ReadWriteLock storageLock = new ReentrantReadWriteLock();
 
   Server(String id) {
     this.id = id;
@@ -161,29 +177,37 @@ public class Server implements IServer, StateListener {
   @Override
   public void checkForUpdates(IProgressMonitor progress) {
     this.hasUpdates = false;
+    forgetCheckForUpdatesResults();
+    checkForUpdatesTime = System.currentTimeMillis();
     try {
       SubMonitor subMonitor = SubMonitor.convert(progress, getBoundProjects().size() + 1);
       SubMonitor globalMonitor = subMonitor.newChild(1);
       SonarLintLogger.get().info("Check for updates from server '" + getId() + "'");
       StorageUpdateCheckResult checkForUpdateResult = client.checkIfGlobalStorageNeedUpdate(getConfig(),
         new WrappedProgressMonitor(globalMonitor, "Check for configuration updates on server '" + getId() + "'"));
+      globalStorageNeedsUpdate = checkForUpdateResult.needUpdate();
       if (checkForUpdateResult.needUpdate()) {
         this.hasUpdates = true;
         checkForUpdateResult.changelog().forEach(line -> SonarLintLogger.get().info("  - " + line));
       }
 
-      for (ISonarLintProject boundProject : getBoundProjects()) {
-        SubMonitor projectMonitor = subMonitor.newChild(1);
+      // Projects bound to the same module share the same storage, check it once
+      Map<String, List<ISonarLintProject>> boundProjectsPerModuleKey = SonarLintCorePlugin.getServersManager().getBoundProjectsPerModuleKey(id);
+      boundProjectsPerModuleKey.remove("");
+      for (Map.Entry<String, List<ISonarLintProject>> entry : boundProjectsPerModuleKey.entrySet()) {
+        String moduleKey = entry.getKey();
+        String projectNames = entry.getValue().stream().map(ISonarLintProject::getName).collect(Collectors.joining("', '"));
+        SubMonitor projectMonitor = subMonitor.newChild(entry.getValue().size());
         if (progress.isCanceled()) {
           return;
         }
-        SonarLintLogger.get().info("Check for updates from server '" + getId() + "' for project '" + boundProject.getName() + "'");
-        SonarLintProjectConfiguration projectConfig = SonarLintProjectConfiguration.read(boundProject.getScopeContext());
-        StorageUpdateCheckResult moduleUpdateCheckResult = client.checkIfModuleStorageNeedUpdate(getConfig(), projectConfig.getModuleKey(),
-          new WrappedProgressMonitor(projectMonitor, "Checking for configuration update for project '" + boundProject.getName() + "'"));
+        SonarLintLogger.get().info("Check for updates from server '" + getId() + "' for project '" + projectNames + "'");
+        StorageUpdateCheckResult moduleUpdateCheckResult = client.checkIfModuleStorageNeedUpdate(getConfig(), moduleKey,
+          new WrappedProgressMonitor(projectMonitor, "Checking for configuration update for project '" + projectNames + "'"));
+        moduleStorageNeedsUpdate.put(moduleKey, moduleUpdateCheckResult.needUpdate());
         if (moduleUpdateCheckResult.needUpdate()) {
           this.hasUpdates = true;
-          SonarLintLogger.get().info("On project '" + boundProject.getName() + "':");
+          SonarLintLogger.get().info("On project '" + projectNames + "':");
           moduleUpdateCheckResult.changelog().forEach(line -> SonarLintLogger.get().info("  - " + line));
         }
       }
@@ -200,6 +224,26 @@ public class Server implements IServer, StateListener {
     return hasUpdates;
   }
 
+  @Override
+  public boolean needsStorageUpdate() {
+    return !isStorageUpdated() || !areCheckForUpdatesResultsValid() || !Boolean.FALSE.equals(globalStorageNeedsUpdate);
+  }
+
+  @Override
+  public boolean needsProjectStorageUpdate(String moduleKey) {
+    return !isStorageUpdated() || client.getModuleStorageStatus(moduleKey) == null || !areCheckForUpdatesResultsValid()
+      || !Boolean.FALSE.equals(moduleStorageNeedsUpdate.get(moduleKey));
+  }
+
+  private boolean areCheckForUpdatesResultsValid() {
+    return System.currentTimeMillis() - checkForUpdatesTime < CHECK_FOR_UPDATES_VALIDITY_MS;
+  }
+
+  private void forgetCheckForUpdatesResults() {
+    globalStorageNeedsUpdate = null;
+    moduleStorageNeedsUpdate.clear();
+  }
+
   @Override
   public String getServerVersion() {
     if (!isStorageUpdated()) {
@@ -216,6 +260,23 @@ public class Server implements IServer, StateListener {
     return new SimpleDateFormat().format(updateStatus.getLastUpdateDate());
   }
 
+  /**
+   * Identify the state of the local storage used to analyze a module: results of an analysis can only be reused
+   * as long as this value doesn't change.
+   * @return null if the storage is not available
+   */
+  @CheckForNull
+  public String getAnalysisStorageFingerprint(String moduleKey) {
+    if (!isStorageUpdated()) {
+      return null;
+    }
+    ModuleStorageStatus moduleStorageStatus = client.getModuleStorageStatus(moduleKey);
+    if (moduleStorageStatus == null) {
+      return null;
+    }
+    return getId() + "/" + updateStatus.getLastUpdateDate().getTime() + "/" + moduleStorageStatus.getLastUpdateDate().getTime();
+  }
+
   @Override
   public boolean isUpdating() {
     return State.UPDATING == client.getState();
@@ -257,7 +318,9 @@ public class Server implements IServer, StateListener {
 
   public static void unbind(ISonarLintProject project) {
     SonarLintCorePlugin.getInstance().notificationsManager().unsubscribe(project);
-    SonarLintProjectConfiguration.read(project.getScopeContext()).unbind();
+    SonarLintProjectConfiguration configuration = SonarLintProjectConfiguration.read(project.getScopeContext());
+    invalidateServerIssueDownloads(configuration.getServerId(), configuration.getModuleKey());
+    configuration.unbind();
     project.deleteAllMarkers(SonarLintCorePlugin.MARKER_ON_THE_FLY_ID);
     project.deleteAllMarkers(SonarLintCorePlugin.MARKER_REPORT_ID);
     SonarLintCorePlugin.clearIssueTracker(project);
@@ -269,6 +332,8 @@ public class Server implements IServer, StateListener {
     this.organization = organization;
     this.hasAuth = StringUtils.isNotBlank(username) || StringUtils.isNotBlank(password);
     this.notificationsEnabled = notificationsEnabled;
+    // Results were obtained from the previous server, or with the previous credentials
+    forgetCheckForUpdatesResults();
     SonarLintCorePlugin.getServersManager().updateServer(this, username, password);
   }
 
@@ -288,7 +353,14 @@ public class Server implements IServer, StateListener {
 
   @Override
   public synchronized void updateStorage(IProgressMonitor monitor) {
-    UpdateResult updateResult = client.update(getConfig(), new WrappedProgressMonitor(monitor, "Update configuration from server '" + getId() + "'"));
+    UpdateResult updateResult;
+    storageLock.writeLock().lock();
+    try {
+      updateResult = client.update(getConfig(), new WrappedProgressMonitor(monitor, "Update configuration from server '" + getId() + "'"));
+    } finally {
+      storageLock.writeLock().unlock();
+    }
+    globalStorageNeedsUpdate = null;
     Collection<SonarAnalyzer> tooOld = updateResult.analyzers().stream()
       .filter(SonarAnalyzer::sonarlintCompatible)
       .filter(Server::tooOld)
@@ -323,21 +395,39 @@ public class Server implements IServer, StateListener {
 
   @Override
   public List<ISonarLintProject> getBoundProjects() {
-    List<ISonarLintProject> result = new ArrayList<>();
-    for (ISonarLintProject project : ProjectsProviderUtils.allProjects()) {
-      if (project.isOpen()) {
-        SonarLintProjectConfiguration projectConfig = SonarLintProjectConfiguration.read(project.getScopeContext());
-        if (Objects.equals(projectConfig.getServerId(), id)) {
-          result.add(project);
-        }
-      }
+    return SonarLintCorePlugin.getServersManager().getBoundProjects(id);
+  }
+
+  @Override
+  public void updateProjectStorage(String moduleKey, IProgressMonitor monitor) {
+    storageLock.readLock().lock();
+    try {
+      client.updateModule(getConfig(), moduleKey, new WrappedProgressMonitor(monitor, "Update configuration from server '" + getId() + "' for module '" + moduleKey + "'"));
+    } finally {
+      storageLock.readLock().unlock();
     }
-    return result;
+    moduleStorageNeedsUpdate.remove(moduleKey);
+    SonarLintCorePlugin.getInstance().getServerIssueUpdater().invalidateDownloads(getHost(), moduleKey);
   }
 
   @Override
-  public synchronized void updateProjectStorage(String moduleKey, IProgressMonitor monitor) {
-    client.updateModule(getConfig(), moduleKey, new WrappedProgressMonitor(monitor, "Update configuration from server '" + getId() + "' for module '" + moduleKey + "'"));
+  public boolean updateProjectServerIssues(String moduleKey) {
+    storageLock.readLock().lock();
+    try {
+      return SonarLintCorePlugin.getInstance().getServerIssueUpdater().downloadModule(getConfig(), client, moduleKey);
+    } finally {
+      storageLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * To be called before the binding of a project is changed, so that issues of the module it was bound to are downloaded again
+   */
+  public static void invalidateServerIssueDownloads(@Nullable String serverId, @Nullable String moduleKey) {
+    IServer server = serverId != null ? SonarLintCorePlugin.getServersManager().getServer(serverId) : null;
+    if (server != null && moduleKey != null) {
+      SonarLintCorePlugin.getInstance().getServerIssueUpdater().invalidateDownloads(server.getHost(), moduleKey);
+    }
   }
 
   public static IStatus testConnection(String url, @Nullable String organization, @Nullable String username, @Nullable String password) {
@@ -26,6 +26,7 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.eclipse.core.runtime.preferences.DefaultScope;
@@ -41,6 +42,7 @@ import org.osgi.service.prefs.BackingStoreException;
 import org.osgi.service.prefs.Preferences;
 import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
 import org.sonarlint.eclipse.core.internal.utils.StringUtils;
+import org.sonarlint.eclipse.core.resource.ISonarLintProject;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedGlobalConfiguration;
 
 public class ServersManager {
@@ -60,6 +62,10 @@ public class ServersManager {
 
   private final List<IServerLifecycleListener> serverListeners = new ArrayList<>();
 
+  private final ProjectBindingIndex bindingIndex = new ProjectBindingIndex();
+  private final Consumer<IEclipsePreferences> projectConfigurationListener = bindingIndex::configurationChanged;
+  private final Runnable projectsListener = bindingIndex::projectsChanged;
+
   private final IPreferenceChangeListener serverChangeListener = event -> {
     try {
       if (!event.getNode().nodeExists("") || !event.getNode().parent().nodeExists("")) {
@@ -134,6 +140,8 @@ public class ServersManager {
   };
 
   public void init() {
+    SonarLintCorePlugin.getProjectsCache().addProjectsChangeListener(projectsListener);
+    SonarLintCorePlugin.getInstance().getProjectManager().addConfigurationChangeListener(projectConfigurationListener);
     IEclipsePreferences rootNode = getSonarLintPreferenceNode();
     rootNode.addNodeChangeListener(rootNodeChangeListener);
     try {
@@ -154,6 +162,9 @@ public class ServersManager {
   }
 
   public void stop() {
+    SonarLintCorePlugin.getProjectsCache().removeProjectsChangeListener(projectsListener);
+    SonarLintCorePlugin.getInstance().getProjectManager().removeConfigurationChangeListener(projectConfigurationListener);
+    bindingIndex.clear();
     IEclipsePreferences rootNode = getSonarLintPreferenceNode();
     rootNode.removeNodeChangeListener(rootNodeChangeListener);
     try {
@@ -316,6 +327,24 @@ public class ServersManager {
     return serversById.get(id);
   }
 
+  /**
+   * @return open projects bound to the server
+   */
+  public List<ISonarLintProject> getBoundProjects(String serverId) {
+    return bindingIndex.getBoundProjects(serverId);
+  }
+
+  /**
+   * @return open projects bound to the server, grouped by module key
+   */
+  public Map<String, List<ISonarLintProject>> getBoundProjectsPerModuleKey(String serverId) {
+    return bindingIndex.getBoundProjectsPerModuleKey(serverId);
+  }
+
+  public List<ISonarLintProject> getBoundProjects(String serverId, String moduleKey) {
+    return bindingIndex.getBoundProjects(serverId, moduleKey);
+  }
+
   public void updateServer(IServer server, String username, String password) {
     if (server == null) {
       return;
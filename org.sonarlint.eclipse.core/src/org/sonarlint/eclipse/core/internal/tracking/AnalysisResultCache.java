@@ -0,0 +1,326 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonarlint.eclipse.core.SonarLintLogger;
+import org.sonarlint.eclipse.core.internal.markers.TextRange;
+import org.sonarlint.eclipse.core.internal.proto.Sonarlint;
+import org.sonarlint.eclipse.core.resource.ISonarLintProject;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue.Flow;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueLocation;
+import org.sonarsource.sonarlint.core.client.api.connected.objectstore.HashingPathMapper;
+import org.sonarsource.sonarlint.core.client.api.connected.objectstore.PathMapper;
+import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Reader;
+import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Writer;
+import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
+
+/**
+ * Persistent cache of raw analysis results, per file of a project. An entry is only returned if the fingerprint of the file
+ * (content, active rules, analysis properties) is the same as when the result was stored, so that an unchanged file doesn't have
+ * to be analyzed again.
+ */
+public class AnalysisResultCache {
+
+  static final int MAX_ENTRIES = 1000;
+
+  private final Path basePath;
+  private final StringStoreIndex index;
+  private final IndexedObjectStore<String, Sonarlint.AnalysisResult> store;
+  private final int maxEntries;
+
+  // Keys in access order, to evict least recently used entries first. Guarded by this
+  private final Map<String, Boolean> keys = new LinkedHashMap<>(16, 0.75f, true);
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  public AnalysisResultCache(Path storeBasePath, ISonarLintProject project) {
+    this(storeBasePath, project, MAX_ENTRIES);
+  }
+
+  public AnalysisResultCache(Path storeBasePath, ISonarLintProject project, int maxEntries) {
+    this.basePath = storeBasePath;
+    this.maxEntries = maxEntries;
+    FileUtils.mkdirs(storeBasePath);
+    index = new StringStoreIndex(storeBasePath);
+    PathMapper<String> mapper = new HashingPathMapper(storeBasePath, 2);
+    StoreKeyValidator<String> validator = new PathStoreKeyValidator(project);
+    Reader<Sonarlint.AnalysisResult> reader = is -> {
+      try {
+        return Sonarlint.AnalysisResult.parseFrom(is);
+      } catch (IOException e) {
+        throw new IllegalStateException("Failed to read analysis result", e);
+      }
+    };
+    Writer<Sonarlint.AnalysisResult> writer = (os, result) -> {
+      try {
+        result.writeTo(os);
+      } catch (IOException e) {
+        throw new IllegalStateException("Failed to save analysis result", e);
+      }
+    };
+    store = new IndexedObjectStore<>(index, mapper, reader, writer, validator);
+    store.deleteInvalid();
+    index.keys().forEach(k -> keys.put(k, Boolean.TRUE));
+  }
+
+  /**
+   * @return issues of the previous analysis of the file, or null if the file was never analyzed with the same fingerprint
+   */
+  @CheckForNull
+  public synchronized List<CachedIssue> get(String relativePath, String fingerprint) {
+    Optional<Sonarlint.AnalysisResult> result = Optional.empty();
+    // Not containsKey, which doesn't update the access order
+    if (keys.get(relativePath) != null) {
+      try {
+        result = store.read(relativePath);
+      } catch (Exception e) {
+        SonarLintLogger.get().debug("Unable to read cached analysis result of " + relativePath, e);
+      }
+    }
+    if (!result.isPresent() || !result.get().getFingerprint().equals(fingerprint)) {
+      misses.incrementAndGet();
+      return null;
+    }
+    hits.incrementAndGet();
+    return result.get().getIssueList().stream().map(CachedIssue::new).collect(Collectors.toList());
+  }
+
+  public synchronized void put(String relativePath, String fingerprint, Collection<Issue> issues) {
+    Sonarlint.AnalysisResult.Builder builder = Sonarlint.AnalysisResult.newBuilder().setFingerprint(fingerprint);
+    issues.forEach(i -> builder.addIssue(transform(i)));
+    try {
+      store.write(relativePath, builder.build());
+      keys.put(relativePath, Boolean.TRUE);
+    } catch (Exception e) {
+      SonarLintLogger.get().error("Unable to save analysis result of " + relativePath, e);
+      return;
+    }
+    evictIfNeeded();
+  }
+
+  private void evictIfNeeded() {
+    Iterator<String> eldestFirst = keys.keySet().iterator();
+    while (keys.size() > maxEntries && eldestFirst.hasNext()) {
+      String eldest = eldestFirst.next();
+      eldestFirst.remove();
+      evictions.incrementAndGet();
+      try {
+        store.delete(eldest);
+      } catch (IOException e) {
+        SonarLintLogger.get().error("Unable to delete cached analysis result of " + eldest, e);
+      }
+    }
+  }
+
+  public synchronized void clear() {
+    keys.clear();
+    FileUtils.deleteRecursively(basePath);
+    FileUtils.mkdirs(basePath);
+    index.clear();
+  }
+
+  public synchronized int size() {
+    return keys.size();
+  }
+
+  public long getHitCount() {
+    return hits.get();
+  }
+
+  public long getMissCount() {
+    return misses.get();
+  }
+
+  public long getEvictionCount() {
+    return evictions.get();
+  }
+
+  /**
+   * Compute the fingerprint of an input file. Any change of content, language, test status, active rules or analysis
+   * properties results in a different fingerprint.
+   */
+  public static String fingerprint(ClientInputFile inputFile, String rulesFingerprint, Map<String, String> analysisProperties) throws IOException {
+    MessageDigest md = newDigest();
+    update(md, rulesFingerprint);
+    update(md, String.valueOf(inputFile.language()));
+    update(md, String.valueOf(inputFile.isTest()));
+    // Sort properties to not depend on insertion order
+    new TreeMap<>(analysisProperties).forEach((k, v) -> {
+      update(md, k);
+      update(md, v);
+    });
+    update(md, inputFile.contents());
+    StringBuilder sb = new StringBuilder();
+    for (byte b : md.digest()) {
+      sb.append(String.format("%02x", b));
+    }
+    return sb.toString();
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 not available", e);
+    }
+  }
+
+  private static void update(MessageDigest md, @Nullable String value) {
+    if (value != null) {
+      md.update(value.getBytes(StandardCharsets.UTF_8));
+    }
+    // Separator, to not have the same digest for ("ab", "c") and ("a", "bc")
+    md.update((byte) 0);
+  }
+
+  private static Sonarlint.AnalysisResult.RawIssue transform(Issue issue) {
+    Sonarlint.AnalysisResult.RawIssue.Builder builder = Sonarlint.AnalysisResult.RawIssue.newBuilder()
+      .setRuleKey(issue.getRuleKey())
+      .setRuleName(issue.getRuleName())
+      .setSeverity(issue.getSeverity())
+      .setType(issue.getType())
+      .setMessage(issue.getMessage());
+    if (issue.getStartLine() != null) {
+      builder.setLocation(location(issue.getStartLine(), issue.getStartLineOffset(), issue.getEndLine(), issue.getEndLineOffset(), null));
+    }
+    for (Flow flow : issue.flows()) {
+      Sonarlint.AnalysisResult.Flow.Builder flowBuilder = Sonarlint.AnalysisResult.Flow.newBuilder();
+      for (IssueLocation l : flow.locations()) {
+        flowBuilder.addLocation(location(l.getStartLine(), l.getStartLineOffset(), l.getEndLine(), l.getEndLineOffset(), l.getMessage()));
+      }
+      builder.addFlow(flowBuilder);
+    }
+    return builder.build();
+  }
+
+  private static Sonarlint.AnalysisResult.Location location(@Nullable Integer startLine, @Nullable Integer startLineOffset, @Nullable Integer endLine,
+    @Nullable Integer endLineOffset, @Nullable String message) {
+    Sonarlint.AnalysisResult.Location.Builder builder = Sonarlint.AnalysisResult.Location.newBuilder();
+    if (startLine == null) {
+      // Flow locations can be on the whole file
+      builder.setFileLevel(true);
+    } else if (startLineOffset == null || endLine == null || endLineOffset == null) {
+      builder.setStartLine(startLine);
+      builder.setLineOnly(true);
+    } else {
+      builder.setStartLine(startLine)
+        .setStartLineOffset(startLineOffset)
+        .setEndLine(endLine)
+        .setEndLineOffset(endLineOffset);
+    }
+    if (message != null) {
+      builder.setMessage(message);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Issue read back from the cache, with the same information as the one originally reported by the analyzer.
+   */
+  public static class CachedIssue {
+    private final Sonarlint.AnalysisResult.RawIssue issue;
+
+    CachedIssue(Sonarlint.AnalysisResult.RawIssue issue) {
+      this.issue = issue;
+    }
+
+    public String getRuleKey() {
+      return issue.getRuleKey();
+    }
+
+    public String getRuleName() {
+      return issue.getRuleName();
+    }
+
+    public String getSeverity() {
+      return issue.getSeverity();
+    }
+
+    public String getType() {
+      return issue.getType();
+    }
+
+    public String getMessage() {
+      return issue.getMessage();
+    }
+
+    @CheckForNull
+    public TextRange getTextRange() {
+      if (!issue.hasLocation()) {
+        return null;
+      }
+      Sonarlint.AnalysisResult.Location l = issue.getLocation();
+      if (l.getLineOnly()) {
+        return new TextRange(l.getStartLine());
+      }
+      return new TextRange(l.getStartLine(), l.getStartLineOffset(), l.getEndLine(), l.getEndLineOffset());
+    }
+
+    public List<Flow> getFlows() {
+      if (issue.getFlowCount() == 0) {
+        return Collections.emptyList();
+      }
+      List<Flow> flows = new ArrayList<>(issue.getFlowCount());
+      for (Sonarlint.AnalysisResult.Flow f : issue.getFlowList()) {
+        List<IssueLocation> locations = f.getLocationList().stream().map(CachedIssue::toLocation).collect(Collectors.toList());
+        flows.add(new CompactFlow(locations));
+      }
+      return flows;
+    }
+
+    private static IssueLocation toLocation(Sonarlint.AnalysisResult.Location l) {
+      if (l.getFileLevel()) {
+        return new CompactLocation(null, null, null, null, message(l));
+      }
+      if (l.getLineOnly()) {
+        return new CompactLocation(l.getStartLine(), null, null, null, message(l));
+      }
+      return new CompactLocation(l.getStartLine(), l.getStartLineOffset(), l.getEndLine(), l.getEndLineOffset(), message(l));
+    }
+
+    @CheckForNull
+    private static String message(Sonarlint.AnalysisResult.Location l) {
+      return l.getMessage().isEmpty() ? null : l.getMessage();
+    }
+  }
+
+}
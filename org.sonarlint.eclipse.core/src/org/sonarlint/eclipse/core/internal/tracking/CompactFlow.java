@@ -0,0 +1,64 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue.Flow;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueLocation;
+
+/**
+ * Immutable flow of a cached issue, made of {@link CompactLocation}s.
+ */
+final class CompactFlow implements Flow {
+
+  private final List<IssueLocation> locations;
+
+  CompactFlow(List<IssueLocation> locations) {
+    this.locations = Collections.unmodifiableList(locations);
+  }
+
+  static List<Flow> copyOf(@Nullable List<Flow> flows) {
+    if (flows == null || flows.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<Flow> result = new ArrayList<>(flows.size());
+    for (Flow flow : flows) {
+      if (flow instanceof CompactFlow) {
+        result.add(flow);
+        continue;
+      }
+      List<IssueLocation> locations = new ArrayList<>(flow.locations().size());
+      for (IssueLocation location : flow.locations()) {
+        locations.add(CompactLocation.of(location));
+      }
+      result.add(new CompactFlow(locations));
+    }
+    return result;
+  }
+
+  @Override
+  public List<IssueLocation> locations() {
+    return locations;
+  }
+
+}
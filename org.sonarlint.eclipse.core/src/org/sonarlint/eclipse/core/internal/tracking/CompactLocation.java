@@ -0,0 +1,99 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.ClientInputFile;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueLocation;
+
+/**
+ * Immutable flow location of a cached issue. Positions are stored as primitives and the message is interned, and no reference is kept
+ * to the input file or document of the analysis.
+ */
+final class CompactLocation implements IssueLocation {
+
+  private static final int NONE = Integer.MIN_VALUE;
+
+  private final int startLine;
+  private final int startLineOffset;
+  private final int endLine;
+  private final int endLineOffset;
+  @Nullable
+  private final String message;
+
+  CompactLocation(@Nullable Integer startLine, @Nullable Integer startLineOffset, @Nullable Integer endLine, @Nullable Integer endLineOffset,
+    @Nullable String message) {
+    this.startLine = toPrimitive(startLine);
+    this.startLineOffset = toPrimitive(startLineOffset);
+    this.endLine = toPrimitive(endLine);
+    this.endLineOffset = toPrimitive(endLineOffset);
+    this.message = message != null ? message.intern() : null;
+  }
+
+  static CompactLocation of(IssueLocation location) {
+    if (location instanceof CompactLocation) {
+      return (CompactLocation) location;
+    }
+    return new CompactLocation(location.getStartLine(), location.getStartLineOffset(), location.getEndLine(), location.getEndLineOffset(), location.getMessage());
+  }
+
+  private static int toPrimitive(@Nullable Integer value) {
+    return value != null ? value : NONE;
+  }
+
+  @CheckForNull
+  private static Integer toObject(int value) {
+    return value != NONE ? value : null;
+  }
+
+  // Only locations in the file of the issue are kept. No @Override since this method is not declared by all versions of the API.
+  @CheckForNull
+  public ClientInputFile getInputFile() {
+    return null;
+  }
+
+  @Override
+  public Integer getStartLine() {
+    return toObject(startLine);
+  }
+
+  @Override
+  public Integer getStartLineOffset() {
+    return toObject(startLineOffset);
+  }
+
+  @Override
+  public Integer getEndLine() {
+    return toObject(endLine);
+  }
+
+  @Override
+  public Integer getEndLineOffset() {
+    return toObject(endLineOffset);
+  }
+
+  @Override
+  @CheckForNull
+  public String getMessage() {
+    return message;
+  }
+
+}
@@ -0,0 +1,215 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonarlint.eclipse.core.internal.markers.TextRange;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue.Flow;
+
+/**
+ * Copy of a tracked issue, kept in the live cache instead of the trackable produced by the tracking. Unlike {@link RawIssueTrackable},
+ * it doesn't retain the flows of the engine issue, whose locations reference the input file and its document. Positions are stored as
+ * primitives, and rule keys and messages are interned since the same ones are repeated in many files.
+ * <p>
+ * The marker id is the only mutable state, since markers of cached issues are updated after server issues are matched.
+ */
+public class CompactTrackable implements Trackable {
+
+  private static final int NONE = Integer.MIN_VALUE;
+  private static final long NO_MARKER = Long.MIN_VALUE;
+  private static final long NO_CREATION_DATE = Long.MIN_VALUE;
+
+  private static final byte HAS_TEXT_RANGE_HASH = 1;
+  private static final byte HAS_LINE_HASH = 1 << 1;
+  private static final byte RESOLVED = 1 << 2;
+
+  private final String ruleKey;
+  private final String ruleName;
+  private final String message;
+  private final String severity;
+  private final String rawSeverity;
+  private final String type;
+  private final String rawType;
+  private final String assignee;
+  @Nullable
+  private final String serverIssueKey;
+  private final long creationDate;
+  private final int line;
+  private final int textRangeHash;
+  private final int lineHash;
+  private final byte flags;
+  /**
+   * Start line, start line offset, end line and end line offset, or null if the issue has no text range
+   */
+  @Nullable
+  private final int[] textRange;
+  private final List<Flow> flows;
+  private long markerId;
+
+  private CompactTrackable(Trackable trackable) {
+    this.ruleKey = intern(trackable.getRuleKey());
+    this.ruleName = intern(trackable.getRuleName());
+    this.message = intern(trackable.getMessage());
+    this.severity = intern(trackable.getSeverity());
+    this.rawSeverity = intern(trackable.getRawSeverity());
+    this.type = intern(trackable.getType());
+    this.rawType = intern(trackable.getRawType());
+    this.assignee = intern(trackable.getAssignee());
+    this.serverIssueKey = trackable.getServerIssueKey();
+    Long date = trackable.getCreationDate();
+    this.creationDate = date != null ? date : NO_CREATION_DATE;
+    this.line = toPrimitive(trackable.getLine());
+    Integer rangeHash = trackable.getTextRangeHash();
+    Integer lHash = trackable.getLineHash();
+    this.textRangeHash = rangeHash != null ? rangeHash : 0;
+    this.lineHash = lHash != null ? lHash : 0;
+    this.flags = (byte) ((rangeHash != null ? HAS_TEXT_RANGE_HASH : 0) | (lHash != null ? HAS_LINE_HASH : 0) | (trackable.isResolved() ? RESOLVED : 0));
+    TextRange range = trackable.getTextRange();
+    this.textRange = range != null ? new int[] {toPrimitive(range.getStartLine()), toPrimitive(range.getStartLineOffset()), toPrimitive(range.getEndLine()),
+      toPrimitive(range.getEndLineOffset())} : null;
+    this.flows = CompactFlow.copyOf(trackable.getFlows());
+    Long id = trackable.getMarkerId();
+    this.markerId = id != null ? id : NO_MARKER;
+  }
+
+  public static CompactTrackable of(Trackable trackable) {
+    return trackable instanceof CompactTrackable ? (CompactTrackable) trackable : new CompactTrackable(trackable);
+  }
+
+  public static Collection<Trackable> compact(Collection<Trackable> trackables) {
+    List<Trackable> result = new ArrayList<>(trackables.size());
+    for (Trackable trackable : trackables) {
+      result.add(of(trackable));
+    }
+    return result;
+  }
+
+  @CheckForNull
+  private static String intern(@Nullable String string) {
+    return string != null ? string.intern() : null;
+  }
+
+  private static int toPrimitive(@Nullable Integer value) {
+    return value != null ? value : NONE;
+  }
+
+  @CheckForNull
+  private static Integer toObject(int value) {
+    return value != NONE ? value : null;
+  }
+
+  @Override
+  public Long getMarkerId() {
+    return markerId != NO_MARKER ? markerId : null;
+  }
+
+  @Override
+  public void setMarkerId(@Nullable Long id) {
+    this.markerId = id != null ? id : NO_MARKER;
+  }
+
+  @Override
+  public Integer getLine() {
+    return toObject(line);
+  }
+
+  @Override
+  public String getMessage() {
+    return message;
+  }
+
+  @Override
+  public Integer getTextRangeHash() {
+    return (flags & HAS_TEXT_RANGE_HASH) != 0 ? textRangeHash : null;
+  }
+
+  @Override
+  public Integer getLineHash() {
+    return (flags & HAS_LINE_HASH) != 0 ? lineHash : null;
+  }
+
+  @Override
+  public String getRuleKey() {
+    return ruleKey;
+  }
+
+  @Override
+  public String getRuleName() {
+    return ruleName;
+  }
+
+  @Override
+  public Long getCreationDate() {
+    return creationDate != NO_CREATION_DATE ? creationDate : null;
+  }
+
+  @Override
+  public String getServerIssueKey() {
+    return serverIssueKey;
+  }
+
+  @Override
+  public boolean isResolved() {
+    return (flags & RESOLVED) != 0;
+  }
+
+  @Override
+  public String getAssignee() {
+    return assignee;
+  }
+
+  @Override
+  public String getSeverity() {
+    return severity;
+  }
+
+  @Override
+  public String getRawSeverity() {
+    return rawSeverity;
+  }
+
+  @Override
+  public String getType() {
+    return type;
+  }
+
+  @Override
+  public String getRawType() {
+    return rawType;
+  }
+
+  @Override
+  public TextRange getTextRange() {
+    if (textRange == null) {
+      return null;
+    }
+    return new TextRange(toObject(textRange[0]), toObject(textRange[1]), toObject(textRange[2]), toObject(textRange[3]));
+  }
+
+  @Override
+  public List<Flow> getFlows() {
+    return flows;
+  }
+
+}
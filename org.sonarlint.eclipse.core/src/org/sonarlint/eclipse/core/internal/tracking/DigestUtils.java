@@ -19,46 +19,143 @@
  */
 package org.sonarlint.eclipse.core.internal.tracking;
 
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
-
+/**
+ * MD5 of the UTF-8 encoding of a content, ignoring whitespaces. Digests are persisted and compared with the ones computed by
+ * SonarQube, so values must never change.
+ */
 public class DigestUtils {
 
   private static final char[] DIGITS = "0123456789abcdef".toCharArray();
 
-  private static final MessageDigest MD5_DIGEST = DigestUtils.getMd5Digest();
+  /**
+   * MessageDigest is not thread safe, and analyses of different projects can run at the same time
+   */
+  private static final ThreadLocal<Hasher> HASHER = ThreadLocal.withInitial(Hasher::new);
 
   private DigestUtils() {
     // utility class, forbidden constructor
   }
 
   public static String digest(String content) {
-    return encodeHexString(MD5_DIGEST.digest(content.replaceAll("[\\s]", "").getBytes(UTF_8)));
+    byte[] data = HASHER.get().hash(content);
+    char[] out = new char[data.length << 1];
+    for (int i = 0, j = 0; i < data.length; ++i, j += 2) {
+      out[j] = DIGITS[(240 & data[i]) >>> 4];
+      out[j + 1] = DIGITS[15 & data[i]];
+    }
+    return new String(out);
   }
 
-  private static MessageDigest getMd5Digest() {
-    return getDigest("MD5");
+  /**
+   * Same as {@code digest(content).hashCode()}, without creating the hexadecimal string.
+   */
+  public static int digestHashCode(String content) {
+    byte[] data = HASHER.get().hash(content);
+    int result = 0;
+    for (byte b : data) {
+      result = 31 * result + DIGITS[(240 & b) >>> 4];
+      result = 31 * result + DIGITS[15 & b];
+    }
+    return result;
   }
 
-  private static MessageDigest getDigest(String algorithm) {
-    try {
-      return MessageDigest.getInstance(algorithm);
-    } catch (NoSuchAlgorithmException e) {
-      throw new IllegalArgumentException(e);
-    }
+  /**
+   * Same as {@code content.replaceAll("[\\s]", "")}
+   */
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
   }
 
-  private static String encodeHexString(byte[] data) {
-    int length = data.length;
-    char[] out = new char[length << 1];
+  /**
+   * Encodes characters in a reused buffer that is given to the digest when full.
+   */
+  private static class Hasher {
+    private static final int BUFFER_SIZE = 512;
+    /**
+     * Replacement of unpaired surrogates by {@link String#getBytes(java.nio.charset.Charset)}
+     */
+    private static final byte MALFORMED = '?';
 
-    for (int i = 0, j = 0; i < length; ++i, j += 2) {
-      out[j] = DIGITS[(240 & data[i]) >>> 4];
-      out[j + 1] = DIGITS[15 & data[i]];
+    private final MessageDigest md5 = getDigest("MD5");
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private final byte[] result = new byte[md5.getDigestLength()];
+    private int length;
+
+    byte[] hash(String content) {
+      md5.reset();
+      length = 0;
+      // Whitespaces are removed before encoding, so they may separate the two halves of a surrogate pair
+      char pendingHighSurrogate = 0;
+      for (int i = 0; i < content.length(); i++) {
+        char c = content.charAt(i);
+        if (isWhitespace(c)) {
+          continue;
+        }
+        if (pendingHighSurrogate != 0) {
+          if (Character.isLowSurrogate(c)) {
+            writeCodePoint(Character.toCodePoint(pendingHighSurrogate, c));
+            pendingHighSurrogate = 0;
+            continue;
+          }
+          write(MALFORMED);
+          pendingHighSurrogate = 0;
+        }
+        if (Character.isHighSurrogate(c)) {
+          pendingHighSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+          write(MALFORMED);
+        } else {
+          writeCodePoint(c);
+        }
+      }
+      if (pendingHighSurrogate != 0) {
+        write(MALFORMED);
+      }
+      md5.update(buffer, 0, length);
+      try {
+        md5.digest(result, 0, result.length);
+      } catch (DigestException e) {
+        throw new IllegalStateException(e);
+      }
+      return result;
     }
 
-    return new String(out);
+    private void writeCodePoint(int codePoint) {
+      if (length > BUFFER_SIZE - 4) {
+        md5.update(buffer, 0, length);
+        length = 0;
+      }
+      if (codePoint < 0x80) {
+        buffer[length++] = (byte) codePoint;
+      } else if (codePoint < 0x800) {
+        buffer[length++] = (byte) (0xc0 | (codePoint >> 6));
+        buffer[length++] = (byte) (0x80 | (codePoint & 0x3f));
+      } else if (codePoint < 0x10000) {
+        buffer[length++] = (byte) (0xe0 | (codePoint >> 12));
+        buffer[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+        buffer[length++] = (byte) (0x80 | (codePoint & 0x3f));
+      } else {
+        buffer[length++] = (byte) (0xf0 | (codePoint >> 18));
+        buffer[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+        buffer[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+        buffer[length++] = (byte) (0x80 | (codePoint & 0x3f));
+      }
+    }
+
+    private void write(byte b) {
+      writeCodePoint(b);
+    }
+
+    private static MessageDigest getDigest(String algorithm) {
+      try {
+        return MessageDigest.getInstance(algorithm);
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalArgumentException(e);
+      }
+    }
   }
 }
@@ -24,10 +24,10 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Collection;
 import java.util.Optional;
 import org.sonarlint.eclipse.core.SonarLintLogger;
-import org.sonarsource.sonarlint.core.client.api.connected.objectstore.ObjectStore;
 import org.sonarsource.sonarlint.core.client.api.connected.objectstore.PathMapper;
 import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Reader;
 import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Writer;
@@ -38,7 +38,7 @@ import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Writer;
  * @param <K> type of the key to store by and used when reading back; must be hashable
  * @param <V> type of the value to store
  */
-class IndexedObjectStore<K, V> implements ObjectStore<K, V> {
+class IndexedObjectStore<K, V> implements KeyedObjectStore<K, V> {
 
   private final StoreIndex<K> index;
   private final PathMapper<K> pathMapper;
@@ -65,6 +65,7 @@ class IndexedObjectStore<K, V> implements ObjectStore<K, V> {
     }
   }
 
+  @Override
   public boolean contains(K key) {
     Path path = pathMapper.apply(key);
     return path.toFile().exists();
@@ -73,6 +74,7 @@ class IndexedObjectStore<K, V> implements ObjectStore<K, V> {
   /**
    * Deletes all entries in the index that are no longer valid.
    */
+  @Override
   public void deleteInvalid() {
     int counter = 0;
     Collection<K> keys = index.keys();
@@ -105,8 +107,15 @@ class IndexedObjectStore<K, V> implements ObjectStore<K, V> {
     if (!parent.toFile().exists()) {
       Files.createDirectories(parent);
     }
-    try (OutputStream out = Files.newOutputStream(path)) {
-      writer.accept(out, value);
+    // Readers may run concurrently with a writer, so they should never see a partially written file
+    Path tempPath = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+    try {
+      try (OutputStream out = Files.newOutputStream(tempPath)) {
+        writer.accept(out, value);
+      }
+      Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tempPath);
     }
   }
 }
@@ -26,6 +26,10 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.sonarlint.eclipse.core.internal.proto.Sonarlint;
 import org.sonarlint.eclipse.core.resource.ISonarLintProject;
 import org.sonarsource.sonarlint.core.client.api.connected.objectstore.HashingPathMapper;
@@ -35,31 +39,78 @@ import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Writer;
 import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
 
 public class IssueStore {
-  private Path basePath;
-  private IndexedObjectStore<String, Sonarlint.Issues> store;
+  public static final String LAYOUT_PROPERTY_KEY = "sonarlint.issueStore.layout";
+
+  /**
+   * How issues are laid out on disk.
+   */
+  public enum Layout {
+    /**
+     * One file per source file, in a directory tree derived from the hash of the path
+     */
+    FILE_PER_KEY,
+    /**
+     * All source files in a few append-only segment files, see {@link SegmentedObjectStore}
+     */
+    SEGMENTED;
+
+    public static Layout fromSystemProperty() {
+      return "segmented".equals(System.getProperty(LAYOUT_PROPERTY_KEY)) ? SEGMENTED : FILE_PER_KEY;
+    }
+  }
+
+  private static final Reader<Sonarlint.Issues> READER = is -> {
+    try {
+      return Sonarlint.Issues.parseFrom(is);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to read issues", e);
+    }
+  };
+  private static final Writer<Sonarlint.Issues> WRITER = (os, issues) -> {
+    try {
+      issues.writeTo(os);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to save issues", e);
+    }
+  };
+
+  private final Path basePath;
+  private final ISonarLintProject project;
+  private final Layout layout;
+  private volatile KeyedObjectStore<String, Sonarlint.Issues> store;
 
   public IssueStore(Path storeBasePath, ISonarLintProject project) {
+    this(storeBasePath, project, Layout.FILE_PER_KEY);
+  }
+
+  public IssueStore(Path storeBasePath, ISonarLintProject project, Layout layout) {
     this.basePath = storeBasePath;
+    this.project = project;
+    this.layout = layout;
     FileUtils.mkdirs(storeBasePath);
-    StoreIndex<String> index = new StringStoreIndex(storeBasePath);
-    PathMapper<String> mapper = new HashingPathMapper(storeBasePath, 2);
+    store = createStore();
+    store.deleteInvalid();
+  }
+
+  private KeyedObjectStore<String, Sonarlint.Issues> createStore() {
     StoreKeyValidator<String> validator = new PathStoreKeyValidator(project);
-    Reader<Sonarlint.Issues> reader = is -> {
-      try {
-        return Sonarlint.Issues.parseFrom(is);
-      } catch (IOException e) {
-        throw new IllegalStateException("Failed to read issues", e);
-      }
-    };
-    Writer<Sonarlint.Issues> writer = (os, issues) -> {
-      try {
-        issues.writeTo(os);
-      } catch (IOException e) {
-        throw new IllegalStateException("Failed to save issues", e);
+    if (layout == Layout.SEGMENTED) {
+      return new SegmentedObjectStore<>(basePath, READER, WRITER, validator, SegmentedObjectStore.DEFAULT_MAX_SEGMENT_SIZE, IssueStore::runInBackground);
+    }
+    PathMapper<String> mapper = new HashingPathMapper(basePath, 2);
+    return new IndexedObjectStore<>(new StringStoreIndex(basePath), mapper, READER, WRITER, validator);
+  }
+
+  private static void runInBackground(Runnable runnable) {
+    Job job = new Job("Compact SonarLint issue store") {
+      @Override
+      protected IStatus run(IProgressMonitor monitor) {
+        runnable.run();
+        return Status.OK_STATUS;
       }
     };
-    store = new IndexedObjectStore<>(index, mapper, reader, writer, validator);
-    store.deleteInvalid();
+    job.setSystem(true);
+    job.schedule();
   }
 
   public boolean contains(String key) {
@@ -84,8 +135,14 @@ public class IssueStore {
   }
 
   public void clear() {
+    store.close();
     FileUtils.deleteRecursively(basePath);
     FileUtils.mkdirs(basePath);
+    store = createStore();
+  }
+
+  public void close() {
+    store.close();
   }
 
   private static Collection<Trackable> transform(Sonarlint.Issues protoIssues) {
@@ -26,21 +26,35 @@ import java.util.Map;
 
 public class IssueTracker {
 
+  /**
+   * Tracking of a file is serialized, but different files can be tracked at the same time. The lock of a file is picked among a fixed
+   * number of stripes, to not keep one lock per file.
+   */
+  private static final int LOCK_STRIPES = 64;
+
   private final IssueTrackerCache cache;
+  private final Object[] locks = new Object[LOCK_STRIPES];
 
   public IssueTracker(IssueTrackerCache cache) {
     this.cache = cache;
+    for (int i = 0; i < LOCK_STRIPES; i++) {
+      locks[i] = new Object();
+    }
+  }
+
+  private Object lockFor(String file) {
+    return locks[(file.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES];
   }
 
   /**
    * Match a new set of trackables to current state.
    * If this is the first analysis, leave creation date as null.
    */
-  public synchronized Collection<Trackable> matchAndTrackAsNew(String file, Collection<Trackable> rawIssues) {
-    Collection<Trackable> tracked;
-    if (cache.isFirstAnalysis(file)) {
-      tracked = rawIssues;
-    } else {
+  public Collection<Trackable> matchAndTrackAsNew(String file, Collection<Trackable> rawIssues) {
+    synchronized (lockFor(file)) {
+      if (cache.isFirstAnalysis(file)) {
+        return rawIssues;
+      }
       Collection<Trackable> trackedIssues = new ArrayList<>();
       Tracking<Trackable, Trackable> tracking = new Tracker<>().track(() -> rawIssues, () -> cache.getCurrentTrackables(file));
       // Previous issues
@@ -52,28 +66,38 @@ public class IssueTracker {
       for (Trackable raw : tracking.getUnmatchedRaws()) {
         trackedIssues.add(new LeakedTrackable(raw));
       }
-      tracked = trackedIssues;
+      return trackedIssues;
     }
-    return tracked;
   }
 
-  public synchronized void updateCache(String file, Collection<Trackable> tracked) {
-    cache.put(file, tracked);
+  /**
+   * Issues are cached as {@link CompactTrackable}, so that the cache doesn't retain engine issues.
+   *
+   * @return the cached issues, whose marker ids have to be updated instead of the ones of the given issues
+   */
+  public Collection<Trackable> updateCache(String file, Collection<Trackable> tracked) {
+    Collection<Trackable> compacted = CompactTrackable.compact(tracked);
+    synchronized (lockFor(file)) {
+      cache.put(file, compacted);
+    }
+    return compacted;
   }
 
   /**
    * "Rebase" current issues against given server issues.
    *
    */
-  public synchronized Collection<Trackable> matchAndTrackServerIssues(String file, Collection<Trackable> serverIssues) {
-    // store issues (ProtobufIssueTrackable) are of no use since they can't be used in markers. There should have been
-    // an analysis before that set the live issues for the file (even if it is empty)
-    Collection<Trackable> current = cache.getLiveOrFail(file);
-    if (current.isEmpty()) {
-      // whatever is the base, if current is empty, then nothing to do
-      return Collections.emptyList();
+  public Collection<Trackable> matchAndTrackServerIssues(String file, Collection<Trackable> serverIssues) {
+    synchronized (lockFor(file)) {
+      // store issues (ProtobufIssueTrackable) are of no use since they can't be used in markers. There should have been
+      // an analysis before that set the live issues for the file (even if it is empty)
+      Collection<Trackable> current = cache.getLiveOrFail(file);
+      if (current.isEmpty()) {
+        // whatever is the base, if current is empty, then nothing to do
+        return Collections.emptyList();
+      }
+      return matchAndTrackServerIssues(serverIssues, current);
     }
-    return matchAndTrackServerIssues(serverIssues, current);
   }
 
   public static Collection<Trackable> matchAndTrackServerIssues(Collection<Trackable> serverIssues, Collection<Trackable> currentIssues) {
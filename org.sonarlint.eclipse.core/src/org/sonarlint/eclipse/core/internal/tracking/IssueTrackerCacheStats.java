@@ -0,0 +1,78 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+/**
+ * Snapshot of the statistics of the live issue cache of a module.
+ */
+public class IssueTrackerCacheStats {
+  private final long hitCount;
+  private final long missCount;
+  private final long evictionCount;
+  private final int entryCount;
+  private final long estimatedBytes;
+
+  public IssueTrackerCacheStats(long hitCount, long missCount, long evictionCount, int entryCount, long estimatedBytes) {
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.evictionCount = evictionCount;
+    this.entryCount = entryCount;
+    this.estimatedBytes = estimatedBytes;
+  }
+
+  /**
+   * Number of times issues of a file were found in memory
+   */
+  public long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * Number of times issues of a file had to be looked up in the persistent store
+   */
+  public long getMissCount() {
+    return missCount;
+  }
+
+  public double getHitRate() {
+    long requestCount = hitCount + missCount;
+    return requestCount == 0 ? 1.0 : ((double) hitCount / requestCount);
+  }
+
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  public int getEntryCount() {
+    return entryCount;
+  }
+
+  /**
+   * Estimation of the memory retained by the issues in memory
+   */
+  public long getEstimatedBytes() {
+    return estimatedBytes;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d files (~%d KB), hit rate %.1f%%, %d evictions", entryCount, estimatedBytes / 1024, getHitRate() * 100, evictionCount);
+  }
+}
@@ -19,9 +19,9 @@
  */
 package org.sonarlint.eclipse.core.internal.tracking;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import org.sonarlint.eclipse.core.resource.ISonarLintProject;
 
 /**
@@ -30,23 +30,19 @@ import org.sonarlint.eclipse.core.resource.ISonarLintProject;
 public class IssueTrackerRegistry {
 
   // Use project name as key since we don't know if ISonarLintProject instances are implementing hashcode
-  private final Map<String, IssueTracker> registry = new HashMap<>();
+  private final Map<String, IssueTracker> registry = new ConcurrentHashMap<>();
   private final IssueTrackerCacheFactory cacheFactory;
 
   public IssueTrackerRegistry(IssueTrackerCacheFactory cacheFactory) {
     this.cacheFactory = cacheFactory;
   }
 
-  public synchronized IssueTracker getOrCreate(ISonarLintProject project, String localModulePath) {
-    IssueTracker tracker = registry.get(project.getName());
-    if (tracker == null) {
-      tracker = newTracker(project, localModulePath);
-      registry.put(project.getName(), tracker);
-    }
-    return tracker;
+  public IssueTracker getOrCreate(ISonarLintProject project, String localModulePath) {
+    // Only creation of a tracker for the same project is blocking
+    return registry.computeIfAbsent(project.getName(), k -> newTracker(project, localModulePath));
   }
 
-  public synchronized Optional<IssueTracker> get(ISonarLintProject project) {
+  public Optional<IssueTracker> get(ISonarLintProject project) {
     return Optional.ofNullable(registry.get(project.getName()));
   }
 
@@ -0,0 +1,42 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import org.sonarsource.sonarlint.core.client.api.connected.objectstore.ObjectStore;
+
+/**
+ * An ObjectStore that knows the keys it contains, so that entries of keys that are no longer valid can be removed.
+ */
+interface KeyedObjectStore<K, V> extends ObjectStore<K, V> {
+
+  boolean contains(K key);
+
+  /**
+   * Deletes all entries that are no longer valid.
+   */
+  void deleteInvalid();
+
+  /**
+   * Releases the resources held by the store. Nothing to do by default.
+   */
+  default void close() {
+    // Nothing to release
+  }
+}
@@ -20,59 +20,150 @@
 package org.sonarlint.eclipse.core.internal.tracking;
 
 import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.sonarlint.eclipse.core.SonarLintLogger;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue.Flow;
+import org.sonarsource.sonarlint.core.client.api.common.analysis.IssueLocation;
 
 public class PersistentIssueTrackerCache implements IssueTrackerCache {
 
   static final int MAX_ENTRIES = 100;
+  static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+  /**
+   * When more evicted entries are waiting to be written, the thread evicting an entry writes them itself
+   */
+  static final int MAX_PENDING_ENTRIES = MAX_ENTRIES;
+  /**
+   * Delay before modified entries are written in write-behind mode, so that successive analyses of a file are written once
+   */
+  static final long WRITE_BEHIND_DELAY_MS = 5_000;
+
+  // Rough estimations of the shallow size of objects on a 64 bits JVM, used to bound the memory used by the cache
+  private static final long ENTRY_OVERHEAD_BYTES = 96;
+  private static final long TRACKABLE_OVERHEAD_BYTES = 160;
+  private static final long LOCATION_OVERHEAD_BYTES = 64;
+  private static final long STRING_OVERHEAD_BYTES = 40;
 
   private final IssueStore store;
-  private final Map<String, Collection<Trackable>> cache;
+  private final TinyLfuCache<String, Collection<Trackable>> cache;
+  /**
+   * Entries of the cache modified since they were last written
+   */
+  private final Set<String> dirty = new HashSet<>();
+  /**
+   * Entries waiting to be written. Stay here until written, so that they can still be read. Guarded by itself.
+   */
+  private final Map<String, Collection<Trackable>> pendingWrites = new LinkedHashMap<>();
+  /**
+   * Only one thread writes at a time, so that an entry is never overwritten by an older version
+   */
+  private final Object storeWriteLock = new Object();
+  @Nullable
+  private final Job flushJob;
+  private long hitCount;
+  private long missCount;
 
   public PersistentIssueTrackerCache(IssueStore store) {
+    this(store, false);
+  }
+
+  public PersistentIssueTrackerCache(IssueStore store, boolean writeBehind) {
+    this(store, writeBehind, MAX_ENTRIES, DEFAULT_MAX_BYTES);
+  }
+
+  /**
+   * @param writeBehind if true, evicted and modified entries are written by a background job instead of the thread calling {@link #put}
+   * @param maxEntries maximum number of files kept in memory
+   * @param maxBytes maximum estimated memory used by the issues kept in memory
+   */
+  public PersistentIssueTrackerCache(IssueStore store, boolean writeBehind, int maxEntries, long maxBytes) {
     this.store = store;
-    this.cache = new LimitedSizeLinkedHashMap();
+    this.cache = new TinyLfuCache<>(maxEntries, maxBytes, PersistentIssueTrackerCache::estimateRetainedSize, this::onEviction);
+    this.flushJob = writeBehind ? new FlushJob() : null;
   }
 
   /**
-   * Keeps a maximum number of entries in the map. On insertion, if the limit is passed, the entry accessed the longest time ago
-   * is flushed into cache and removed from the map.
+   * Evicted entries are flushed into the store.
    */
-  private class LimitedSizeLinkedHashMap extends LinkedHashMap<String, Collection<Trackable>> {
-    LimitedSizeLinkedHashMap() {
-      super(MAX_ENTRIES, 0.75f, true);
+  private void onEviction(String key, Collection<Trackable> trackables) {
+    if (!dirty.remove(key)) {
+      // Already written, or waiting to be written
+      return;
+    }
+    SonarLintLogger.get().debug("Persisting issues for " + key);
+    boolean full;
+    synchronized (pendingWrites) {
+      pendingWrites.put(key, trackables);
+      full = pendingWrites.size() > MAX_PENDING_ENTRIES;
+    }
+    if (flushJob == null || full) {
+      writePending();
+    } else {
+      flushJob.schedule();
     }
+  }
 
-    @Override
-    protected boolean removeEldestEntry(Map.Entry<String, Collection<Trackable>> eldest) {
-      if (size() <= MAX_ENTRIES) {
-        return false;
+  public static long estimateRetainedSize(Collection<Trackable> trackables) {
+    long size = ENTRY_OVERHEAD_BYTES;
+    for (Trackable trackable : trackables) {
+      size += TRACKABLE_OVERHEAD_BYTES + estimateSize(trackable.getMessage());
+      for (Flow flow : trackable.getFlows()) {
+        for (IssueLocation location : flow.locations()) {
+          size += LOCATION_OVERHEAD_BYTES + estimateSize(location.getMessage());
+        }
       }
+    }
+    return size;
+  }
+
+  private static long estimateSize(@Nullable String string) {
+    return string == null ? 0 : (STRING_OVERHEAD_BYTES + 2L * string.length());
+  }
 
-      String key = eldest.getKey();
-      try {
-        SonarLintLogger.get().debug("Persisting issues for " + key);
-        store.save(key, eldest.getValue());
-      } catch (IOException e) {
-        throw new IllegalStateException(String.format("Error persisting issues for %s", key), e);
+  private class FlushJob extends Job {
+    FlushJob() {
+      super("Persist SonarLint issues");
+      setSystem(true);
+    }
+
+    @Override
+    protected IStatus run(IProgressMonitor monitor) {
+      synchronized (PersistentIssueTrackerCache.this) {
+        queueDirtyEntries();
       }
-      return true;
+      writePending();
+      return Status.OK_STATUS;
     }
   }
 
   @Override
   public boolean isFirstAnalysis(String file) {
-    return !cache.containsKey(file) && !store.contains(file);
+    synchronized (this) {
+      if (cache.containsKey(file)) {
+        return false;
+      }
+    }
+    return getPending(file) == null && !store.contains(file);
   }
 
   @Override
   public synchronized Collection<Trackable> getLiveOrFail(String file) {
     Collection<Trackable> liveTrackables = cache.get(file);
     if (liveTrackables != null) {
+      hitCount++;
       return liveTrackables;
     }
 
@@ -80,13 +171,25 @@ public class PersistentIssueTrackerCache implements IssueTrackerCache {
   }
 
   /**
-   * Read issues from a file that is cached. On cache miss, it won't fallback to the persistent store.
+   * Read issues from a file that is cached, falling back to the persistent store on cache miss.
+   * The store is read outside of the cache monitor, so that a slow read doesn't block the tracking of other files.
    */
   @Override
-  public synchronized Collection<Trackable> getCurrentTrackables(String file) {
-    Collection<Trackable> liveTrackables = cache.get(file);
-    if (liveTrackables != null) {
-      return liveTrackables;
+  public Collection<Trackable> getCurrentTrackables(String file) {
+    synchronized (this) {
+      Collection<Trackable> liveTrackables = cache.get(file);
+      if (liveTrackables != null) {
+        hitCount++;
+        return liveTrackables;
+      }
+      missCount++;
+    }
+
+    // Evicted entries are queued before being written, and only dequeued once written, so checking the queue first is enough to
+    // never miss an entry
+    Collection<Trackable> pendingTrackables = getPending(file);
+    if (pendingTrackables != null) {
+      return Collections.unmodifiableCollection(pendingTrackables);
     }
 
     try {
@@ -103,31 +206,92 @@ public class PersistentIssueTrackerCache implements IssueTrackerCache {
   @Override
   public synchronized void put(String file, Collection<Trackable> trackables) {
     cache.put(file, trackables);
+    dirty.add(file);
+    if (flushJob != null) {
+      flushJob.schedule(WRITE_BEHIND_DELAY_MS);
+    }
   }
 
   @Override
   public synchronized void clear() {
-    store.clear();
+    synchronized (storeWriteLock) {
+      synchronized (pendingWrites) {
+        pendingWrites.clear();
+      }
+      store.clear();
+    }
     cache.clear();
+    dirty.clear();
   }
 
   /**
-   * Flushes all cached entries to disk.
+   * Flushes all modified cached entries to disk, and waits for entries being written in background.
    * It does not clear the cache.
    */
   public synchronized void flushAll() {
     SonarLintLogger.get().debug("Persisting all issues");
-    cache.forEach((path, trackables) -> {
-      try {
-        store.save(path, trackables);
-      } catch (IOException e) {
-        throw new IllegalStateException("Failed to flush cache", e);
-      }
-    });
+    queueDirtyEntries();
+    writePending();
   }
 
   @Override
   public synchronized void shutdown() {
+    if (flushJob != null) {
+      flushJob.cancel();
+    }
     flushAll();
+    store.close();
+    SonarLintLogger.get().debug("Issue cache statistics: " + getStats());
+  }
+
+  public synchronized IssueTrackerCacheStats getStats() {
+    return new IssueTrackerCacheStats(hitCount, missCount, cache.getEvictionCount(), cache.size(), cache.weight());
+  }
+
+  @Nullable
+  private Collection<Trackable> getPending(String file) {
+    synchronized (pendingWrites) {
+      return pendingWrites.get(file);
+    }
+  }
+
+  private void queueDirtyEntries() {
+    synchronized (pendingWrites) {
+      // Not using get(), that would record an access
+      cache.forEach((file, trackables) -> {
+        if (dirty.contains(file)) {
+          pendingWrites.put(file, trackables);
+        }
+      });
+    }
+    dirty.clear();
+  }
+
+  /**
+   * Writes entries waiting to be written, in batches, until there is none left.
+   */
+  private void writePending() {
+    synchronized (storeWriteLock) {
+      while (true) {
+        List<Map.Entry<String, Collection<Trackable>>> batch = new ArrayList<>();
+        synchronized (pendingWrites) {
+          if (pendingWrites.isEmpty()) {
+            return;
+          }
+          pendingWrites.forEach((file, trackables) -> batch.add(new AbstractMap.SimpleImmutableEntry<>(file, trackables)));
+        }
+        for (Map.Entry<String, Collection<Trackable>> entry : batch) {
+          try {
+            store.save(entry.getKey(), entry.getValue());
+          } catch (IOException e) {
+            SonarLintLogger.get().error(String.format("Error persisting issues for %s", entry.getKey()), e);
+          }
+          synchronized (pendingWrites) {
+            // Unless a more recent version was queued in the meantime
+            pendingWrites.remove(entry.getKey(), entry.getValue());
+          }
+        }
+      }
+    }
   }
 }
@@ -25,11 +25,17 @@ import org.sonarlint.eclipse.core.internal.markers.TextRange;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue;
 import org.sonarsource.sonarlint.core.client.api.common.analysis.Issue.Flow;
 
-import static org.sonarlint.eclipse.core.internal.tracking.DigestUtils.digest;
+import static org.sonarlint.eclipse.core.internal.tracking.DigestUtils.digestHashCode;
 
 public class RawIssueTrackable implements Trackable {
 
-  private final Issue issue;
+  private final String ruleKey;
+  private final String ruleName;
+  private final String severity;
+  private final String type;
+  private final String message;
+  private final Integer line;
+  private final List<Flow> flows;
   private final TextRange textRange;
   private final Integer textRangeHash;
   private final Integer lineHash;
@@ -40,7 +46,18 @@ public class RawIssueTrackable implements Trackable {
   }
 
   public RawIssueTrackable(Issue issue, @Nullable TextRange textRange, @Nullable String textRangeContent, @Nullable String lineContent) {
-    this.issue = issue;
+    this(issue.getRuleKey(), issue.getRuleName(), issue.getSeverity(), issue.getType(), issue.getMessage(), issue.getStartLine(), issue.flows(), textRange, textRangeContent, lineContent);
+  }
+
+  public RawIssueTrackable(String ruleKey, String ruleName, String severity, String type, String message, @Nullable Integer line, List<Flow> flows,
+    @Nullable TextRange textRange, @Nullable String textRangeContent, @Nullable String lineContent) {
+    this.ruleKey = ruleKey;
+    this.ruleName = ruleName;
+    this.severity = severity;
+    this.type = type;
+    this.message = message;
+    this.line = line;
+    this.flows = flows;
     this.textRange = textRange;
     this.textRangeHash = textRangeContent != null ? checksum(textRangeContent) : null;
     this.lineHash = lineContent != null ? checksum(lineContent) : null;
@@ -57,17 +74,17 @@ public class RawIssueTrackable implements Trackable {
   }
 
   private static int checksum(String content) {
-    return digest(content).hashCode();
+    return digestHashCode(content);
   }
 
   @Override
   public Integer getLine() {
-    return issue.getStartLine();
+    return line;
   }
 
   @Override
   public String getMessage() {
-    return issue.getMessage();
+    return message;
   }
 
   @Override
@@ -82,32 +99,32 @@ public class RawIssueTrackable implements Trackable {
 
   @Override
   public String getRuleKey() {
-    return issue.getRuleKey();
+    return ruleKey;
   }
 
   @Override
   public String getRuleName() {
-    return issue.getRuleName();
+    return ruleName;
   }
 
   @Override
   public String getSeverity() {
-    return issue.getSeverity();
+    return severity;
   }
 
   @Override
   public String getRawSeverity() {
-    return issue.getSeverity();
+    return severity;
   }
 
   @Override
   public String getType() {
-    return issue.getType();
+    return type;
   }
 
   @Override
   public String getRawType() {
-    return issue.getType();
+    return type;
   }
 
   @Override
@@ -137,7 +154,7 @@ public class RawIssueTrackable implements Trackable {
 
   @Override
   public List<Flow> getFlows() {
-    return issue.flows();
+    return flows;
   }
 
 }
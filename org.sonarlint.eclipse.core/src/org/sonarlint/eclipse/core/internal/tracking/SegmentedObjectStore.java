@@ -0,0 +1,582 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonarlint.eclipse.core.SonarLintLogger;
+import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Reader;
+import org.sonarsource.sonarlint.core.client.api.connected.objectstore.Writer;
+import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
+
+/**
+ * An ObjectStore keeping all values in a few append-only segment files, instead of one file per key.
+ * <p>
+ * A record is made of a header (key length, value length or -1 for a deletion, CRC32 of key and value), followed by the UTF-8 key and
+ * the serialized value. The location of the latest record of each key is kept in memory, and is rebuilt by scanning the segments when
+ * the store is opened. Records are appended to the active segment. Once full, a segment is sealed and memory-mapped for reads.
+ * <p>
+ * Space used by obsolete records is reclaimed by compaction, scheduled in background when they take more space than live records:
+ * live records of all sealed segments are copied to a new pack file, that replaces them. A pack is renamed into place only once complete,
+ * and segments older than the most recent pack are deleted when opening the store, so a crash during compaction loses nothing.
+ * A record truncated by a crash is dropped when opening the store.
+ * <p>
+ * Once closed, the store can't be used anymore, and a compaction scheduled before does nothing.
+ */
+public class SegmentedObjectStore<V> implements KeyedObjectStore<String, V> {
+
+  public static final long DEFAULT_MAX_SEGMENT_SIZE = 8L * 1024 * 1024;
+  static final String SEGMENT_SUFFIX = ".log";
+  static final String PACK_SUFFIX = ".pack";
+  private static final String TEMP_SUFFIX = ".tmp";
+  private static final Pattern FILENAME_PATTERN = Pattern.compile("(\\d{8})(\\.log|\\.pack)(\\.tmp)?");
+  private static final int HEADER_SIZE = 3 * Integer.BYTES;
+  private static final int DELETED = -1;
+  private static final long MIN_OBSOLETE_BYTES_BEFORE_COMPACTION = 1024L * 1024;
+
+  private final Path basePath;
+  private final Reader<V> reader;
+  private final Writer<V> writer;
+  private final StoreKeyValidator<String> validator;
+  private final long maxSegmentSize;
+  private final Executor compactionExecutor;
+  private final Object compactionLock = new Object();
+
+  private final Map<String, RecordLocation> locations = new HashMap<>();
+  private final TreeMap<Integer, Segment> sealedSegments = new TreeMap<>();
+  @Nullable
+  private Segment activeSegment;
+  private int nextSegmentId;
+  private long totalBytes;
+  private long liveBytes;
+  private boolean compactionScheduled;
+  private boolean closed;
+
+  public SegmentedObjectStore(Path basePath, Reader<V> reader, Writer<V> writer, StoreKeyValidator<String> validator, long maxSegmentSize,
+    Executor compactionExecutor) {
+    this.basePath = basePath;
+    this.reader = reader;
+    this.writer = writer;
+    this.validator = validator;
+    this.maxSegmentSize = maxSegmentSize;
+    this.compactionExecutor = compactionExecutor;
+    FileUtils.mkdirs(basePath);
+    try {
+      open();
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to open store " + basePath, e);
+    }
+  }
+
+  private void open() throws IOException {
+    TreeMap<Integer, Path> filesById = new TreeMap<>();
+    int latestPackId = -1;
+    try (Stream<Path> files = Files.list(basePath)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        Matcher matcher = FILENAME_PATTERN.matcher(file.getFileName().toString());
+        if (!matcher.matches()) {
+          continue;
+        }
+        int id = Integer.parseInt(matcher.group(1));
+        if (matcher.group(3) != null) {
+          // Incomplete pack
+          deleteQuietly(file);
+          continue;
+        }
+        filesById.put(id, file);
+        if (PACK_SUFFIX.equals(matcher.group(2))) {
+          latestPackId = Math.max(latestPackId, id);
+        }
+      }
+    }
+
+    for (Map.Entry<Integer, Path> entry : filesById.entrySet()) {
+      if (entry.getKey() < latestPackId) {
+        // Left over by a compaction
+        deleteQuietly(entry.getValue());
+        continue;
+      }
+      Segment segment = new Segment(entry.getKey(), entry.getValue());
+      scan(segment);
+      sealedSegments.put(segment.id, segment);
+      totalBytes += segment.size;
+      nextSegmentId = segment.id + 1;
+    }
+
+    Map.Entry<Integer, Segment> last = sealedSegments.lastEntry();
+    if (last != null && last.getValue().path.toString().endsWith(SEGMENT_SUFFIX) && last.getValue().size < maxSegmentSize) {
+      // Keep appending to the last segment
+      sealedSegments.remove(last.getKey());
+      activeSegment = last.getValue();
+      activeSegment.activate();
+    }
+    for (Segment segment : sealedSegments.values()) {
+      segment.map();
+    }
+  }
+
+  private void scan(Segment segment) throws IOException {
+    long fileSize = Files.size(segment.path);
+    long offset = 0;
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segment.path)))) {
+      while (offset + HEADER_SIZE <= fileSize) {
+        int keyLength = in.readInt();
+        int valueLength = in.readInt();
+        int checksum = in.readInt();
+        if (keyLength < 0 || valueLength < DELETED || offset + HEADER_SIZE + keyLength + Math.max(0, valueLength) > fileSize) {
+          break;
+        }
+        byte[] key = new byte[keyLength];
+        in.readFully(key);
+        byte[] value = valueLength == DELETED ? null : new byte[valueLength];
+        if (value != null) {
+          in.readFully(value);
+        }
+        if (checksum(key, value) != checksum) {
+          break;
+        }
+        RecordLocation location = new RecordLocation(segment, offset, keyLength, valueLength);
+        apply(new String(key, StandardCharsets.UTF_8), location);
+        offset += location.recordLength();
+      }
+    }
+    if (offset < fileSize) {
+      SonarLintLogger.get().debug("Ignoring incomplete record at the end of " + segment.path);
+      try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.WRITE)) {
+        channel.truncate(offset);
+      }
+    }
+    segment.size = offset;
+  }
+
+  @Override
+  public Optional<V> read(String key) throws IOException {
+    InputStream value;
+    synchronized (this) {
+      checkOpen();
+      RecordLocation location = locations.get(key);
+      if (location == null) {
+        return Optional.empty();
+      }
+      value = location.openValue();
+    }
+    return Optional.of(reader.apply(value));
+  }
+
+  @Override
+  public synchronized boolean contains(String key) {
+    return locations.containsKey(key);
+  }
+
+  public synchronized Collection<String> keys() {
+    return new ArrayList<>(locations.keySet());
+  }
+
+  @Override
+  public void deleteInvalid() {
+    int counter = 0;
+    for (String key : keys()) {
+      if (!validator.apply(key)) {
+        try {
+          counter++;
+          delete(key);
+        } catch (IOException e) {
+          SonarLintLogger.get().error("Failed to delete entry in the store", e);
+        }
+      }
+    }
+    SonarLintLogger.get().debug(String.format("%d entries removed from the store", counter));
+  }
+
+  @Override
+  public void write(String key, V value) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    writer.accept(out, value);
+    if (append(key, out.toByteArray())) {
+      compactionExecutor.execute(this::compactInBackground);
+    }
+  }
+
+  @Override
+  public void delete(String key) throws IOException {
+    boolean scheduleCompaction;
+    synchronized (this) {
+      checkOpen();
+      if (!locations.containsKey(key)) {
+        return;
+      }
+      scheduleCompaction = append(key, null);
+    }
+    if (scheduleCompaction) {
+      compactionExecutor.execute(this::compactInBackground);
+    }
+  }
+
+  /**
+   * @return true if a compaction should be scheduled
+   */
+  private synchronized boolean append(String key, @Nullable byte[] value) throws IOException {
+    checkOpen();
+    byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+    ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + keyBytes.length + (value != null ? value.length : 0));
+    record.putInt(keyBytes.length)
+      .putInt(value != null ? value.length : DELETED)
+      .putInt(checksum(keyBytes, value))
+      .put(keyBytes);
+    if (value != null) {
+      record.put(value);
+    }
+    record.flip();
+
+    Segment segment = activeSegment();
+    long offset = segment.size;
+    writeFully(segment.channel, record, offset);
+    segment.size += record.limit();
+    totalBytes += record.limit();
+    apply(key, new RecordLocation(segment, offset, keyBytes.length, value != null ? value.length : DELETED));
+
+    if (segment.size >= maxSegmentSize) {
+      seal(segment);
+    }
+    long obsoleteBytes = totalBytes - liveBytes;
+    if (!compactionScheduled && obsoleteBytes > MIN_OBSOLETE_BYTES_BEFORE_COMPACTION && obsoleteBytes > liveBytes) {
+      compactionScheduled = true;
+      return true;
+    }
+    return false;
+  }
+
+  private void checkOpen() throws IOException {
+    if (closed) {
+      throw new IOException("Store " + basePath + " is closed");
+    }
+  }
+
+  private void apply(String key, RecordLocation location) {
+    RecordLocation previous = location.isDeleted() ? locations.remove(key) : locations.put(key, location);
+    if (previous != null) {
+      liveBytes -= previous.recordLength();
+    }
+    if (!location.isDeleted()) {
+      liveBytes += location.recordLength();
+    }
+  }
+
+  private Segment activeSegment() throws IOException {
+    if (activeSegment == null) {
+      Segment segment = new Segment(nextSegmentId++, segmentPath(nextSegmentId - 1, SEGMENT_SUFFIX));
+      segment.activate();
+      activeSegment = segment;
+    }
+    return activeSegment;
+  }
+
+  private void seal(Segment segment) throws IOException {
+    segment.map();
+    sealedSegments.put(segment.id, segment);
+    activeSegment = null;
+  }
+
+  private Path segmentPath(int id, String suffix) {
+    return basePath.resolve(String.format("%08d%s", id, suffix));
+  }
+
+  private void compactInBackground() {
+    try {
+      compact();
+    } catch (IOException e) {
+      SonarLintLogger.get().error("Failed to compact store " + basePath, e);
+    }
+  }
+
+  /**
+   * Copies all live records of sealed segments to a new pack, then deletes those segments.
+   * Reads and writes are not blocked while records are copied.
+   */
+  public void compact() throws IOException {
+    synchronized (compactionLock) {
+      List<Segment> sources;
+      Map<String, RecordLocation> toCopy;
+      Segment pack;
+      synchronized (this) {
+        compactionScheduled = false;
+        if (closed) {
+          return;
+        }
+        if (activeSegment != null) {
+          // New records must go to a segment more recent than the pack
+          seal(activeSegment);
+        }
+        if (sealedSegments.isEmpty()) {
+          return;
+        }
+        sources = new ArrayList<>(sealedSegments.values());
+        toCopy = new HashMap<>(locations);
+        pack = new Segment(nextSegmentId++, segmentPath(nextSegmentId - 1, PACK_SUFFIX));
+      }
+
+      Map<String, RecordLocation> copied = copy(toCopy, pack);
+
+      synchronized (this) {
+        for (Map.Entry<String, RecordLocation> entry : copied.entrySet()) {
+          // Only keep the copy if the record was not overwritten or deleted in the meantime
+          if (locations.get(entry.getKey()) == toCopy.get(entry.getKey())) {
+            locations.put(entry.getKey(), entry.getValue());
+          }
+        }
+        for (Segment source : sources) {
+          sealedSegments.remove(source.id);
+          totalBytes -= source.size;
+        }
+        sealedSegments.put(pack.id, pack);
+        totalBytes += pack.size;
+      }
+
+      // If not possible now, will be deleted next time the store is opened
+      sources.forEach(source -> deleteQuietly(source.path));
+    }
+  }
+
+  private static Map<String, RecordLocation> copy(Map<String, RecordLocation> toCopy, Segment pack) throws IOException {
+    Map<String, RecordLocation> copied = new HashMap<>(toCopy.size());
+    Path tempPath = pack.path.resolveSibling(pack.path.getFileName() + TEMP_SUFFIX);
+    long offset = 0;
+    try (FileChannel out = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      for (Map.Entry<String, RecordLocation> entry : toCopy.entrySet()) {
+        RecordLocation source = entry.getValue();
+        writeFully(out, source.segment.slice(source.offset, source.recordLength()), offset);
+        copied.put(entry.getKey(), new RecordLocation(pack, offset, source.keyLength, source.valueLength));
+        offset += source.recordLength();
+      }
+      out.force(true);
+    }
+    Files.move(tempPath, pack.path, StandardCopyOption.ATOMIC_MOVE);
+    pack.size = offset;
+    pack.map();
+    return copied;
+  }
+
+  /**
+   * Number of files currently used by the store.
+   */
+  public synchronized int getSegmentCount() {
+    return sealedSegments.size() + (activeSegment != null ? 1 : 0);
+  }
+
+  /**
+   * Space taken by records that are overwritten or deleted, and that compaction would reclaim.
+   */
+  public synchronized long getObsoleteBytes() {
+    return totalBytes - liveBytes;
+  }
+
+  /**
+   * Waits for a running compaction to complete. Mapped buffers are released, so that files can be deleted once they are garbage collected.
+   */
+  @Override
+  public void close() {
+    synchronized (compactionLock) {
+      synchronized (this) {
+        closed = true;
+        if (activeSegment != null) {
+          activeSegment.closeChannel();
+          activeSegment = null;
+        }
+        sealedSegments.values().forEach(Segment::release);
+        sealedSegments.clear();
+        locations.clear();
+        totalBytes = 0;
+        liveBytes = 0;
+      }
+    }
+  }
+
+  private static void deleteQuietly(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      SonarLintLogger.get().debug("Unable to delete " + path, e);
+    }
+  }
+
+  private static int checksum(byte[] key, @Nullable byte[] value) {
+    CRC32 crc = new CRC32();
+    crc.update(key);
+    if (value != null) {
+      crc.update(value);
+    }
+    return (int) crc.getValue();
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+    long current = position;
+    while (buffer.hasRemaining()) {
+      current += channel.write(buffer, current);
+    }
+  }
+
+  private static class Segment {
+    private final int id;
+    private final Path path;
+    private long size;
+    @CheckForNull
+    private FileChannel channel;
+    @CheckForNull
+    private ByteBuffer mapped;
+
+    private Segment(int id, Path path) {
+      this.id = id;
+      this.path = path;
+    }
+
+    private void activate() throws IOException {
+      channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      mapped = null;
+    }
+
+    private void map() throws IOException {
+      try (FileChannel readChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+        mapped = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      }
+      closeChannel();
+    }
+
+    private void release() {
+      closeChannel();
+      mapped = null;
+    }
+
+    private void closeChannel() {
+      if (channel != null) {
+        try {
+          channel.close();
+        } catch (IOException e) {
+          SonarLintLogger.get().debug("Unable to close " + path, e);
+        }
+        channel = null;
+      }
+    }
+
+    /**
+     * Only called on sealed segments, that are never modified.
+     */
+    private ByteBuffer slice(long offset, int length) {
+      ByteBuffer buffer = mapped.duplicate();
+      buffer.position((int) offset);
+      buffer.limit((int) offset + length);
+      return buffer;
+    }
+
+    private ByteBuffer read(long offset, int length) throws IOException {
+      if (mapped != null) {
+        return slice(offset, length);
+      }
+      ByteBuffer buffer = ByteBuffer.allocate(length);
+      long current = offset;
+      while (buffer.hasRemaining()) {
+        int read = channel.read(buffer, current);
+        if (read < 0) {
+          throw new IOException("Unexpected end of file " + path);
+        }
+        current += read;
+      }
+      buffer.flip();
+      return buffer;
+    }
+  }
+
+  private static class RecordLocation {
+    private final Segment segment;
+    private final long offset;
+    private final int keyLength;
+    private final int valueLength;
+
+    private RecordLocation(Segment segment, long offset, int keyLength, int valueLength) {
+      this.segment = segment;
+      this.offset = offset;
+      this.keyLength = keyLength;
+      this.valueLength = valueLength;
+    }
+
+    private boolean isDeleted() {
+      return valueLength == DELETED;
+    }
+
+    private int recordLength() {
+      return HEADER_SIZE + keyLength + Math.max(0, valueLength);
+    }
+
+    private InputStream openValue() throws IOException {
+      return new ByteBufferInputStream(segment.read(offset + HEADER_SIZE + keyLength, valueLength));
+    }
+  }
+
+  private static class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    private ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? (buffer.get() & 0xFF) : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int count = Math.min(len, buffer.remaining());
+      buffer.get(b, off, count);
+      return count;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+}
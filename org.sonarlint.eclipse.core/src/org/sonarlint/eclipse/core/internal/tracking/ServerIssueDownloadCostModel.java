@@ -0,0 +1,265 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.LongSupplier;
+import javax.annotation.Nullable;
+import org.sonarlint.eclipse.core.SonarLintLogger;
+import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
+
+/**
+ * Chooses between downloading server issues of each file, and downloading issues of the whole module with a single request, from the
+ * durations of previous downloads of the same module. The duration of a module download grows with the number of issues of the module,
+ * so it is the measure of its size. Until both durations were measured, issues of the module are downloaded from
+ * {@value #DEFAULT_MODULE_DOWNLOAD_THRESHOLD} files. Since only the chosen strategy is measured, the other one is chosen once after
+ * {@value #REMEASURE_INTERVAL} identical decisions, so that a wrong estimation, like the one of an unusually slow download, is corrected.
+ * <p>
+ * Measures are persisted at most every {@value #SAVE_INTERVAL_MS} ms, and when the plugin is stopped. The last decisions are kept with the
+ * estimations they are based on.
+ */
+public class ServerIssueDownloadCostModel {
+
+  public static final int DEFAULT_MODULE_DOWNLOAD_THRESHOLD = 10;
+  public static final long SAVE_INTERVAL_MS = 5 * 60 * 1000L;
+  public static final int REMEASURE_INTERVAL = 20;
+  /**
+   * Weight of the last measure in the moving average of durations
+   */
+  private static final double SMOOTHING = 0.3;
+  private static final int MAX_DECISIONS = 100;
+  private static final String FILE_SUFFIX = ".file";
+  private static final String MODULE_SUFFIX = ".module";
+
+  @Nullable
+  private final Path statsFile;
+  private final LongSupplier clock;
+
+  // Guarded by this
+  private final Map<String, ModuleStats> statsPerModule = new HashMap<>();
+  private final Deque<Decision> decisions = new ArrayDeque<>();
+  private boolean dirty;
+  private long lastSaveTime;
+
+  /**
+   * @param statsFile where measures are persisted, or null to keep them in memory only
+   */
+  public ServerIssueDownloadCostModel(@Nullable Path statsFile) {
+    this(statsFile, System::currentTimeMillis);
+  }
+
+  public ServerIssueDownloadCostModel(@Nullable Path statsFile, LongSupplier clock) {
+    this.statsFile = statsFile;
+    this.clock = clock;
+    this.lastSaveTime = clock.getAsLong();
+    load();
+  }
+
+  private static class ModuleStats {
+    private double fileDownloadMs = -1;
+    private double moduleDownloadMs = -1;
+    private boolean lastDownloadModule;
+    private int sameDecisions;
+    // The next measure replaces the estimation instead of being averaged with it
+    private boolean remeasureFile;
+    private boolean remeasureModule;
+  }
+
+  public static class Decision {
+    private final String moduleId;
+    private final int fileCount;
+    private final double fileDownloadMs;
+    private final double moduleDownloadMs;
+    private final boolean downloadModule;
+    private final boolean remeasure;
+
+    private Decision(String moduleId, int fileCount, double fileDownloadMs, double moduleDownloadMs, boolean downloadModule, boolean remeasure) {
+      this.moduleId = moduleId;
+      this.fileCount = fileCount;
+      this.fileDownloadMs = fileDownloadMs;
+      this.moduleDownloadMs = moduleDownloadMs;
+      this.downloadModule = downloadModule;
+      this.remeasure = remeasure;
+    }
+
+    public String getModuleId() {
+      return moduleId;
+    }
+
+    public int getFileCount() {
+      return fileCount;
+    }
+
+    public boolean isDownloadModule() {
+      return downloadModule;
+    }
+
+    public boolean isRemeasure() {
+      return remeasure;
+    }
+
+    @Override
+    public String toString() {
+      String estimations = fileDownloadMs < 0 || moduleDownloadMs < 0 ? "not measured yet"
+        : String.format("~%.0f ms per file, ~%.0f ms for the module", fileDownloadMs, moduleDownloadMs);
+      return String.format("%s: %d files (%s), download %s%s", moduleId, fileCount, estimations, downloadModule ? "module" : "each file",
+        remeasure ? " to measure it again" : "");
+    }
+  }
+
+  /**
+   * @param maxConcurrentRequests number of files whose issues can be downloaded at the same time
+   * @return true if issues of the whole module should be downloaded rather than issues of each file
+   */
+  public synchronized boolean shouldDownloadModule(String moduleId, int fileCount, int maxConcurrentRequests) {
+    ModuleStats stats = statsPerModule.get(moduleId);
+    boolean downloadModule;
+    boolean remeasure = false;
+    if (stats == null || stats.fileDownloadMs < 0 || stats.moduleDownloadMs < 0) {
+      downloadModule = fileCount >= DEFAULT_MODULE_DOWNLOAD_THRESHOLD;
+    } else {
+      double fileDownloadsMs = Math.ceil((double) fileCount / Math.max(1, maxConcurrentRequests)) * stats.fileDownloadMs;
+      downloadModule = stats.moduleDownloadMs < fileDownloadsMs;
+      if (downloadModule != stats.lastDownloadModule) {
+        stats.lastDownloadModule = downloadModule;
+        stats.sameDecisions = 1;
+      } else if (stats.sameDecisions < REMEASURE_INTERVAL) {
+        stats.sameDecisions++;
+      } else {
+        // The estimation of the other strategy was not updated for a while
+        remeasure = true;
+        downloadModule = !downloadModule;
+        stats.sameDecisions = 0;
+        stats.remeasureFile = !downloadModule;
+        stats.remeasureModule = downloadModule;
+      }
+    }
+    Decision decision = new Decision(moduleId, fileCount, stats != null ? stats.fileDownloadMs : -1, stats != null ? stats.moduleDownloadMs : -1, downloadModule,
+      remeasure);
+    if (decisions.size() == MAX_DECISIONS) {
+      decisions.removeFirst();
+    }
+    decisions.addLast(decision);
+    SonarLintLogger.get().debug("Server issues of " + decision);
+    return downloadModule;
+  }
+
+  public synchronized void fileDownloaded(String moduleId, long durationMs) {
+    ModuleStats stats = statsPerModule.computeIfAbsent(moduleId, k -> new ModuleStats());
+    stats.fileDownloadMs = stats.remeasureFile ? durationMs : average(stats.fileDownloadMs, durationMs);
+    stats.remeasureFile = false;
+    dirty = true;
+  }
+
+  public synchronized void moduleDownloaded(String moduleId, long durationMs) {
+    ModuleStats stats = statsPerModule.computeIfAbsent(moduleId, k -> new ModuleStats());
+    stats.moduleDownloadMs = stats.remeasureModule ? durationMs : average(stats.moduleDownloadMs, durationMs);
+    stats.remeasureModule = false;
+    dirty = true;
+  }
+
+  private static double average(double previous, long measure) {
+    return previous < 0 ? measure : (SMOOTHING * measure + (1 - SMOOTHING) * previous);
+  }
+
+  /**
+   * Last decisions, oldest first
+   */
+  public synchronized List<Decision> getDecisions() {
+    return new ArrayList<>(decisions);
+  }
+
+  private void load() {
+    if (statsFile == null || !Files.exists(statsFile)) {
+      return;
+    }
+    Properties properties = new Properties();
+    try (InputStream stream = Files.newInputStream(statsFile)) {
+      properties.load(stream);
+    } catch (IOException e) {
+      SonarLintLogger.get().debug("Unable to read " + statsFile, e);
+      return;
+    }
+    for (String key : properties.stringPropertyNames()) {
+      try {
+        double value = Double.parseDouble(properties.getProperty(key));
+        if (key.endsWith(FILE_SUFFIX)) {
+          statsPerModule.computeIfAbsent(key.substring(0, key.length() - FILE_SUFFIX.length()), k -> new ModuleStats()).fileDownloadMs = value;
+        } else if (key.endsWith(MODULE_SUFFIX)) {
+          statsPerModule.computeIfAbsent(key.substring(0, key.length() - MODULE_SUFFIX.length()), k -> new ModuleStats()).moduleDownloadMs = value;
+        }
+      } catch (NumberFormatException e) {
+        // Ignore corrupted entry, it will be measured again
+      }
+    }
+  }
+
+  /**
+   * Persist measures, if they changed and were not persisted for {@value #SAVE_INTERVAL_MS} ms
+   */
+  public synchronized void saveIfDue() {
+    if (clock.getAsLong() - lastSaveTime >= SAVE_INTERVAL_MS) {
+      save();
+    }
+  }
+
+  /**
+   * Persist measures, if they changed since last time
+   */
+  public synchronized void save() {
+    if (statsFile == null || !dirty) {
+      return;
+    }
+    Properties properties = new Properties();
+    statsPerModule.forEach((moduleId, stats) -> {
+      if (stats.fileDownloadMs >= 0) {
+        properties.setProperty(moduleId + FILE_SUFFIX, Double.toString(stats.fileDownloadMs));
+      }
+      if (stats.moduleDownloadMs >= 0) {
+        properties.setProperty(moduleId + MODULE_SUFFIX, Double.toString(stats.moduleDownloadMs));
+      }
+    });
+    FileUtils.mkdirs(statsFile.getParent());
+    Path tempFile = statsFile.resolveSibling(statsFile.getFileName() + ".tmp");
+    try {
+      try (OutputStream stream = Files.newOutputStream(tempFile)) {
+        properties.store(stream, "Durations of server issue downloads");
+      }
+      Files.move(tempFile, statsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      dirty = false;
+      lastSaveTime = clock.getAsLong();
+    } catch (IOException e) {
+      SonarLintLogger.get().debug("Unable to write " + statsFile, e);
+    }
+  }
+
+}
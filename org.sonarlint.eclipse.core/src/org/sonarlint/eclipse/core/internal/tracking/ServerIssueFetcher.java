@@ -0,0 +1,202 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import org.sonarlint.eclipse.core.SonarLintLogger;
+import org.sonarsource.sonarlint.core.client.api.connected.ConnectedSonarLintEngine;
+import org.sonarsource.sonarlint.core.client.api.connected.ServerConfiguration;
+import org.sonarsource.sonarlint.core.client.api.connected.ServerIssue;
+import org.sonarsource.sonarlint.core.client.api.exceptions.DownloadException;
+
+/**
+ * Downloads server issues of a server, with at most a given number of requests in flight. A download requested while the same one
+ * is in flight shares its result. After a failed download, downloads are suspended for a delay that doubles with each consecutive
+ * failure, so that an unavailable server is not flooded.
+ */
+public class ServerIssueFetcher {
+
+  public static final long INITIAL_BACKOFF_MS = 1_000;
+  public static final long MAX_BACKOFF_MS = 60_000;
+
+  private final String serverUrl;
+  private final ThreadPoolExecutor executor;
+  private final LongSupplier clock;
+  private final ServerIssueDownloadCostModel costModel;
+  private final ConcurrentHashMap<String, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+
+  // Guarded by this
+  private long backoffMs;
+  private long suspendedUntil;
+
+  private final AtomicLong requestCount = new AtomicLong();
+  private final AtomicLong sharedCount = new AtomicLong();
+  private final AtomicLong suspendedCount = new AtomicLong();
+
+  public ServerIssueFetcher(String serverUrl, int maxConcurrentRequests, ServerIssueDownloadCostModel costModel) {
+    this(serverUrl, maxConcurrentRequests, costModel, System::currentTimeMillis);
+  }
+
+  public ServerIssueFetcher(String serverUrl, int maxConcurrentRequests, ServerIssueDownloadCostModel costModel, LongSupplier clock) {
+    this.serverUrl = serverUrl;
+    this.costModel = costModel;
+    this.clock = clock;
+    this.executor = new ThreadPoolExecutor(maxConcurrentRequests, maxConcurrentRequests, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+      Thread thread = new Thread(r, "SonarLint server issues of " + serverUrl);
+      thread.setDaemon(true);
+      return thread;
+    });
+    // No idle thread kept once issues are fetched
+    this.executor.allowCoreThreadTimeOut(true);
+  }
+
+  /**
+   * @return future issues of the file, or null if they were not downloaded (download failed or suspended). Completed exceptionally if
+   * the download could not be scheduled, once the fetcher is shut down.
+   */
+  public CompletableFuture<List<ServerIssue>> downloadFile(ServerConfiguration serverConfiguration, ConnectedSonarLintEngine engine, String moduleKey,
+    String fileKey) {
+    // Module keys can contain ':', so keys are prefixed by the kind of download to never share a future of another type
+    return submit("file:" + moduleKey + ":" + fileKey, () -> {
+      SonarLintLogger.get().debug("Download server issues for " + fileKey);
+      long start = System.nanoTime();
+      List<ServerIssue> serverIssues = engine.downloadServerIssues(serverConfiguration, moduleKey, fileKey);
+      costModel.fileDownloaded(ServerIssueUpdater.moduleId(serverUrl, moduleKey), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+      return serverIssues;
+    });
+  }
+
+  /**
+   * @return future true if issues of the whole module were downloaded
+   */
+  public CompletableFuture<Boolean> downloadModule(ServerConfiguration serverConfiguration, ConnectedSonarLintEngine engine, String moduleKey) {
+    return submit("module:" + moduleKey, () -> {
+      SonarLintLogger.get().debug("Download server issues of module " + moduleKey);
+      long start = System.nanoTime();
+      engine.downloadServerIssues(serverConfiguration, moduleKey);
+      costModel.moduleDownloaded(ServerIssueUpdater.moduleId(serverUrl, moduleKey), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+      return Boolean.TRUE;
+    }).thenApply(Boolean.TRUE::equals);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> CompletableFuture<T> submit(String key, Supplier<T> download) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    CompletableFuture<?> existing = inFlight.putIfAbsent(key, future);
+    if (existing != null) {
+      sharedCount.incrementAndGet();
+      return (CompletableFuture<T>) existing;
+    }
+    try {
+      executor.execute(() -> {
+        T result = null;
+        try {
+          result = download(download);
+        } finally {
+          inFlight.remove(key, future);
+          future.complete(result);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // Otherwise the same download requested later would wait forever
+      inFlight.remove(key, future);
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  private <T> T download(Supplier<T> download) {
+    if (isSuspended()) {
+      suspendedCount.incrementAndGet();
+      return null;
+    }
+    requestCount.incrementAndGet();
+    try {
+      T result = download.get();
+      downloadSucceeded();
+      return result;
+    } catch (DownloadException e) {
+      SonarLintLogger.get().info(e.getMessage());
+      downloadFailed();
+      return null;
+    } catch (Exception e) {
+      SonarLintLogger.get().error("Unable to download server issues", e);
+      return null;
+    }
+  }
+
+  private synchronized boolean isSuspended() {
+    return clock.getAsLong() < suspendedUntil;
+  }
+
+  private synchronized void downloadSucceeded() {
+    backoffMs = 0;
+  }
+
+  private synchronized void downloadFailed() {
+    backoffMs = backoffMs == 0 ? INITIAL_BACKOFF_MS : Math.min(MAX_BACKOFF_MS, backoffMs * 2);
+    suspendedUntil = clock.getAsLong() + backoffMs;
+  }
+
+  public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+    if (maxConcurrentRequests > executor.getMaximumPoolSize()) {
+      executor.setMaximumPoolSize(maxConcurrentRequests);
+      executor.setCorePoolSize(maxConcurrentRequests);
+    } else {
+      executor.setCorePoolSize(maxConcurrentRequests);
+      executor.setMaximumPoolSize(maxConcurrentRequests);
+    }
+  }
+
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  /**
+   * Number of download requests sent to the server
+   */
+  public long getRequestCount() {
+    return requestCount.get();
+  }
+
+  /**
+   * Number of downloads that shared the result of the same download in flight
+   */
+  public long getSharedCount() {
+    return sharedCount.get();
+  }
+
+  /**
+   * Number of downloads not sent because of previous failures
+   */
+  public long getSuspendedCount() {
+    return suspendedCount.get();
+  }
+
+}
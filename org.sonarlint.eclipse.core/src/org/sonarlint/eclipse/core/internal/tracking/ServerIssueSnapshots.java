@@ -0,0 +1,126 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Remembers when server issues of a module, or of some files of a module, were last downloaded in the local storage of the engine.
+ * Files requested again within the freshness window are served from the local storage instead of being downloaded again.
+ */
+public class ServerIssueSnapshots {
+
+  public static final long DEFAULT_FRESHNESS_MS = TimeUnit.MINUTES.toMillis(1);
+
+  private final long freshnessMs;
+  private final LongSupplier clock;
+
+  // Guarded by this
+  private final Map<String, ModuleSnapshot> snapshotPerModule = new HashMap<>();
+  private long requestCount;
+  private long savedRequestCount;
+
+  public ServerIssueSnapshots() {
+    this(DEFAULT_FRESHNESS_MS, System::currentTimeMillis);
+  }
+
+  public ServerIssueSnapshots(long freshnessMs, LongSupplier clock) {
+    this.freshnessMs = freshnessMs;
+    this.clock = clock;
+  }
+
+  private static class ModuleSnapshot {
+    private long downloadTime = Long.MIN_VALUE;
+    private final Map<String, Long> downloadTimePerFile = new HashMap<>();
+  }
+
+  public synchronized boolean isFresh(String moduleId, String fileKey) {
+    ModuleSnapshot snapshot = snapshotPerModule.get(moduleId);
+    if (snapshot == null) {
+      return false;
+    }
+    long now = clock.getAsLong();
+    if (isFresh(snapshot.downloadTime, now)) {
+      return true;
+    }
+    Long fileDownloadTime = snapshot.downloadTimePerFile.get(fileKey);
+    return fileDownloadTime != null && isFresh(fileDownloadTime, now);
+  }
+
+  private boolean isFresh(long downloadTime, long now) {
+    return downloadTime != Long.MIN_VALUE && now - downloadTime < freshnessMs;
+  }
+
+  /**
+   * Issues of all files of the module were downloaded
+   */
+  public synchronized void moduleDownloaded(String moduleId) {
+    ModuleSnapshot snapshot = snapshotPerModule.computeIfAbsent(moduleId, k -> new ModuleSnapshot());
+    snapshot.downloadTime = clock.getAsLong();
+    // Superseded by the module download
+    snapshot.downloadTimePerFile.clear();
+    requestCount++;
+  }
+
+  public synchronized void fileDownloaded(String moduleId, String fileKey) {
+    ModuleSnapshot snapshot = snapshotPerModule.computeIfAbsent(moduleId, k -> new ModuleSnapshot());
+    long now = clock.getAsLong();
+    snapshot.downloadTimePerFile.put(fileKey, now);
+    // Forget files that are no longer fresh, so that the map doesn't grow forever
+    snapshot.downloadTimePerFile.values().removeIf(t -> !isFresh(t, now));
+    requestCount++;
+  }
+
+  /**
+   * Files whose issues were served from the local storage, or with a module download, instead of one request per file
+   */
+  public synchronized void requestsSaved(int count) {
+    savedRequestCount += count;
+  }
+
+  /**
+   * Issues of the module have to be downloaded again, for example because the module is bound to other projects or its storage was updated
+   */
+  public synchronized void invalidate(String moduleId) {
+    snapshotPerModule.remove(moduleId);
+  }
+
+  public synchronized void clear() {
+    snapshotPerModule.clear();
+  }
+
+  /**
+   * Number of download requests sent to the server
+   */
+  public synchronized long getRequestCount() {
+    return requestCount;
+  }
+
+  /**
+   * Number of download requests that would have been sent when downloading issues of each file separately, but were not
+   */
+  public synchronized long getSavedRequestCount() {
+    return savedRequestCount;
+  }
+
+}
@@ -22,41 +22,104 @@ package org.sonarlint.eclipse.core.internal.tracking;
 import java.io.File;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntSupplier;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import javax.annotation.CheckForNull;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
 import org.eclipse.jface.text.IDocument;
 import org.sonarlint.eclipse.core.SonarLintLogger;
 import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
+import org.sonarlint.eclipse.core.internal.StoragePathManager;
 import org.sonarlint.eclipse.core.internal.TriggerType;
 import org.sonarlint.eclipse.core.internal.jobs.AsyncServerMarkerUpdaterJob;
+import org.sonarlint.eclipse.core.internal.jobs.InFlightAnalyses;
+import org.sonarlint.eclipse.core.internal.utils.PreferencesUtils;
 import org.sonarlint.eclipse.core.resource.ISonarLintFile;
 import org.sonarlint.eclipse.core.resource.ISonarLintIssuable;
 import org.sonarlint.eclipse.core.resource.ISonarLintProject;
 import org.sonarsource.sonarlint.core.client.api.connected.ConnectedSonarLintEngine;
 import org.sonarsource.sonarlint.core.client.api.connected.ServerConfiguration;
 import org.sonarsource.sonarlint.core.client.api.connected.ServerIssue;
-import org.sonarsource.sonarlint.core.client.api.exceptions.DownloadException;
 
 public class ServerIssueUpdater {
 
   public static final String PATH_SEPARATOR_PATTERN = Pattern.quote(File.separator);
 
   private final IssueTrackerRegistry issueTrackerRegistry;
+  private final ServerIssueSnapshots snapshots;
+  private final ServerIssueDownloadCostModel costModel;
+  private final IntSupplier maxConcurrentRequestsPerServer;
+  private final Map<String, ServerIssueFetcher> fetcherPerServerUrl = new ConcurrentHashMap<>();
 
   public ServerIssueUpdater(IssueTrackerRegistry issueTrackerRegistry) {
+    this(issueTrackerRegistry, new ServerIssueSnapshots(), new ServerIssueDownloadCostModel(StoragePathManager.getServerIssueDownloadStatsFile()),
+      PreferencesUtils::getServerIssueFetchConcurrency);
+  }
+
+  public ServerIssueUpdater(IssueTrackerRegistry issueTrackerRegistry, ServerIssueSnapshots snapshots, ServerIssueDownloadCostModel costModel,
+    IntSupplier maxConcurrentRequestsPerServer) {
     this.issueTrackerRegistry = issueTrackerRegistry;
+    this.snapshots = snapshots;
+    this.costModel = costModel;
+    this.maxConcurrentRequestsPerServer = maxConcurrentRequestsPerServer;
+  }
+
+  public ServerIssueSnapshots getSnapshots() {
+    return snapshots;
+  }
+
+  public ServerIssueDownloadCostModel getCostModel() {
+    return costModel;
+  }
+
+  static String moduleId(String serverUrl, String moduleKey) {
+    return serverUrl + " " + moduleKey;
   }
 
+  /**
+   * Next requests for issues of the module download them again, instead of using the ones recently downloaded
+   */
+  public void invalidateDownloads(String serverUrl, String moduleKey) {
+    snapshots.invalidate(moduleId(serverUrl, moduleKey));
+  }
+
+  /**
+   * Requests of all modules bound to the same server share the same limit
+   */
+  private ServerIssueFetcher getFetcher(ServerConfiguration serverConfiguration) {
+    ServerIssueFetcher fetcher = fetcherPerServerUrl.computeIfAbsent(serverConfiguration.getUrl(),
+      url -> new ServerIssueFetcher(url, maxConcurrentRequestsPerServer.getAsInt(), costModel));
+    fetcher.setMaxConcurrentRequests(maxConcurrentRequestsPerServer.getAsInt());
+    return fetcher;
+  }
+
+  public void shutdown() {
+    fetcherPerServerUrl.values().forEach(ServerIssueFetcher::shutdown);
+    fetcherPerServerUrl.clear();
+    costModel.save();
+  }
+
+  /**
+   * @param analysis job that analyzed the files, which are handed over to the update so that it is superseded by newer analyses of the same files
+   */
   public void updateAsync(ServerConfiguration serverConfiguration, ConnectedSonarLintEngine engine, ISonarLintProject project, String localModuleKey,
-    String serverModuleKey, Collection<ISonarLintIssuable> issuables, Map<ISonarLintFile, IDocument> docPerFile, TriggerType triggerType) {
-    new IssueUpdateJob(serverConfiguration, engine, project, localModuleKey, serverModuleKey, issuables, docPerFile, triggerType).schedule();
+    String serverModuleKey, Collection<ISonarLintFile> files, Map<ISonarLintFile, IDocument> docPerFile, TriggerType triggerType, Job analysis) {
+    IssueUpdateJob job = new IssueUpdateJob(serverConfiguration, engine, project, localModuleKey, serverModuleKey, files, docPerFile, triggerType);
+    InFlightAnalyses.get().handOver(analysis, job, triggerType.isOnTheFly(), files);
+    job.schedule();
   }
 
   private class IssueUpdateJob extends Job {
@@ -64,13 +127,13 @@ public class ServerIssueUpdater {
     private final ConnectedSonarLintEngine engine;
     private final String localModuleKey;
     private final String serverModuleKey;
-    private final Collection<ISonarLintIssuable> issuables;
+    private final Collection<ISonarLintFile> files;
     private final ISonarLintProject project;
     private final Map<ISonarLintFile, IDocument> docPerFile;
     private final TriggerType triggerType;
 
     private IssueUpdateJob(ServerConfiguration serverConfiguration, ConnectedSonarLintEngine engine, ISonarLintProject project, String localModuleKey,
-      String serverModuleKey, Collection<ISonarLintIssuable> issuables, Map<ISonarLintFile, IDocument> docPerFile,
+      String serverModuleKey, Collection<ISonarLintFile> files, Map<ISonarLintFile, IDocument> docPerFile,
       TriggerType triggerType) {
       super("Fetch server issues for " + project.getName());
       this.docPerFile = docPerFile;
@@ -81,29 +144,48 @@ public class ServerIssueUpdater {
       this.project = project;
       this.localModuleKey = localModuleKey;
       this.serverModuleKey = serverModuleKey;
-      this.issuables = issuables;
+      this.files = files;
+      addJobChangeListener(new JobChangeAdapter() {
+        @Override
+        public void done(IJobChangeEvent event) {
+          InFlightAnalyses.get().unregister(IssueUpdateJob.this);
+        }
+      });
+    }
+
+    private boolean isSuperseded(ISonarLintFile file) {
+      return InFlightAnalyses.get().isSuperseded(this, triggerType.isOnTheFly(), file);
     }
 
     @Override
     protected IStatus run(IProgressMonitor monitor) {
       Map<ISonarLintIssuable, Collection<Trackable>> trackedIssues = new HashMap<>();
       try {
-        for (ISonarLintIssuable issuable : issuables) {
+        List<String> fileKeys = files.stream()
+          .filter(f -> !isSuperseded(f))
+          .map(ISonarLintFile::getProjectRelativePath)
+          .collect(Collectors.toList());
+        Map<String, List<ServerIssue>> serverIssuesPerFileKey = fetchServerIssues(serverConfiguration, engine, serverModuleKey, fileKeys);
+        for (ISonarLintFile file : files) {
           if (monitor.isCanceled()) {
             return Status.CANCEL_STATUS;
           }
-          if (issuable instanceof ISonarLintFile) {
-            String relativePath = ((ISonarLintFile) issuable).getProjectRelativePath();
-            IssueTracker issueTracker = issueTrackerRegistry.getOrCreate(project, localModuleKey);
-            List<ServerIssue> serverIssues = fetchServerIssues(serverConfiguration, engine, serverModuleKey, (ISonarLintFile) issuable);
-            Collection<Trackable> serverIssuesTrackable = serverIssues.stream().map(ServerIssueTrackable::new).collect(Collectors.toList());
-            Collection<Trackable> tracked = issueTracker.matchAndTrackServerIssues(relativePath, serverIssuesTrackable);
-            issueTracker.updateCache(relativePath, tracked);
-            trackedIssues.put(issuable, tracked);
+          if (isSuperseded(file)) {
+            // A more recent analysis of this file tracks its issues again
+            continue;
           }
+          String relativePath = file.getProjectRelativePath();
+          IssueTracker issueTracker = issueTrackerRegistry.getOrCreate(project, localModuleKey);
+          List<ServerIssue> serverIssues = serverIssuesPerFileKey.get(relativePath);
+          Collection<Trackable> serverIssuesTrackable = serverIssues.stream().map(ServerIssueTrackable::new).collect(Collectors.toList());
+          Collection<Trackable> tracked = issueTracker.matchAndTrackServerIssues(relativePath, serverIssuesTrackable);
+          // Markers are updated on the cached issues, so that their marker ids stay up to date
+          trackedIssues.put(file, issueTracker.updateCache(relativePath, tracked));
         }
         if (!trackedIssues.isEmpty()) {
-          new AsyncServerMarkerUpdaterJob(project, trackedIssues, docPerFile, triggerType).schedule();
+          AsyncServerMarkerUpdaterJob markerUpdate = new AsyncServerMarkerUpdaterJob(project, trackedIssues, docPerFile, triggerType);
+          InFlightAnalyses.get().handOver(this, markerUpdate, triggerType.isOnTheFly(), files);
+          markerUpdate.schedule();
         }
         return Status.OK_STATUS;
       } catch (Throwable t) {
@@ -115,15 +197,99 @@ public class ServerIssueUpdater {
 
   }
 
-  public static List<ServerIssue> fetchServerIssues(ServerConfiguration serverConfiguration, ConnectedSonarLintEngine engine, String moduleKey, ISonarLintFile resource) {
-    String fileKey = resource.getProjectRelativePath();
+  /**
+   * Get server issues of some files of a module, downloading them only if they were not downloaded recently. When the cost model
+   * estimates it is cheaper, issues of the whole module are downloaded with a single request instead of one request per stale file.
+   */
+  public Map<String, List<ServerIssue>> fetchServerIssues(ServerConfiguration serverConfiguration, ConnectedSonarLintEngine engine, String moduleKey,
+    Collection<String> fileKeys) {
+    String moduleId = moduleId(serverConfiguration.getUrl(), moduleKey);
+    List<String> staleFileKeys = fileKeys.stream().filter(k -> !snapshots.isFresh(moduleId, k)).collect(Collectors.toList());
+    Map<String, List<ServerIssue>> result = new HashMap<>();
+    if (!staleFileKeys.isEmpty() && shouldDownloadModule(serverConfiguration, moduleKey, staleFileKeys.size())) {
+      if (downloadModule(serverConfiguration, engine, moduleKey)) {
+        snapshots.requestsSaved(staleFileKeys.size() - 1);
+      }
+    } else {
+      result.putAll(downloadServerIssues(serverConfiguration, engine, moduleKey, staleFileKeys));
+    }
+    snapshots.requestsSaved(fileKeys.size() - staleFileKeys.size());
+    for (String fileKey : fileKeys) {
+      // Up to date in the local storage, or fallback when download failed
+      result.computeIfAbsent(fileKey, k -> engine.getServerIssues(moduleKey, k));
+    }
+    SonarLintLogger.get().debug(String.format("Server issues: %d requests, %d saved", snapshots.getRequestCount(), snapshots.getSavedRequestCount()));
+    costModel.saveIfDue();
+    return result;
+  }
+
+  /**
+   * @return true if issues of the whole module should be downloaded rather than issues of each of the given number of files
+   */
+  public boolean shouldDownloadModule(ServerConfiguration serverConfiguration, String moduleKey, int fileCount) {
+    return costModel.shouldDownloadModule(moduleId(serverConfiguration.getUrl(), moduleKey), fileCount, maxConcurrentRequestsPerServer.getAsInt());
+  }
+
+  /**
+   * Download issues of the whole module with a single request.
+   *
+   * @return false if the download failed, in which case issues in the local storage are left unchanged
+   */
+  public boolean downloadModule(ServerConfiguration serverConfiguration, ConnectedSonarLintEngine engine, String moduleKey) {
+    boolean downloaded = Boolean.TRUE.equals(joinQuietly(getFetcher(serverConfiguration).downloadModule(serverConfiguration, engine, moduleKey)));
+    if (downloaded) {
+      snapshots.moduleDownloaded(moduleId(serverConfiguration.getUrl(), moduleKey));
+    }
+    return downloaded;
+  }
+
+  /**
+   * Download server issues of some files concurrently, within the limit of concurrent requests to the server.
+   *
+   * @return issues of each file, from the local storage for files whose issues could not be downloaded
+   */
+  public Map<String, List<ServerIssue>> fetchServerIssuesConcurrently(ServerConfiguration serverConfiguration, ConnectedSonarLintEngine engine, String moduleKey,
+    Collection<String> fileKeys) {
+    Map<String, List<ServerIssue>> result = downloadServerIssues(serverConfiguration, engine, moduleKey, fileKeys);
+    for (String fileKey : fileKeys) {
+      result.computeIfAbsent(fileKey, k -> engine.getServerIssues(moduleKey, k));
+    }
+    costModel.saveIfDue();
+    return result;
+  }
 
+  /**
+   * @return issues of each file successfully downloaded
+   */
+  private Map<String, List<ServerIssue>> downloadServerIssues(ServerConfiguration serverConfiguration, ConnectedSonarLintEngine engine, String moduleKey,
+    Collection<String> fileKeys) {
+    String moduleId = moduleId(serverConfiguration.getUrl(), moduleKey);
+    ServerIssueFetcher fetcher = getFetcher(serverConfiguration);
+    Map<String, CompletableFuture<List<ServerIssue>>> futurePerFileKey = new LinkedHashMap<>();
+    for (String fileKey : fileKeys) {
+      futurePerFileKey.put(fileKey, fetcher.downloadFile(serverConfiguration, engine, moduleKey, fileKey));
+    }
+    Map<String, List<ServerIssue>> result = new HashMap<>();
+    futurePerFileKey.forEach((fileKey, future) -> {
+      List<ServerIssue> serverIssues = joinQuietly(future);
+      if (serverIssues != null) {
+        snapshots.fileDownloaded(moduleId, fileKey);
+        result.put(fileKey, serverIssues);
+      }
+    });
+    return result;
+  }
+
+  /**
+   * @return null if the download could not be scheduled
+   */
+  @CheckForNull
+  private static <T> T joinQuietly(CompletableFuture<T> future) {
     try {
-      SonarLintLogger.get().debug("Download server issues for " + resource.getName());
-      return engine.downloadServerIssues(serverConfiguration, moduleKey, fileKey);
-    } catch (DownloadException e) {
-      SonarLintLogger.get().info(e.getMessage());
-      return engine.getServerIssues(moduleKey, fileKey);
+      return future.join();
+    } catch (CompletionException e) {
+      SonarLintLogger.get().debug("Server issues not downloaded: " + e.getCause().getMessage());
+      return null;
     }
   }
 
@@ -24,62 +24,142 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
+import org.sonarlint.eclipse.core.SonarLintLogger;
 import org.sonarlint.eclipse.core.internal.proto.Sonarlint;
 import org.sonarsource.sonarlint.core.client.api.util.FileUtils;
 
-class StringStoreIndex implements StoreIndex<String> {
+/**
+ * Index kept in memory, and persisted as a snapshot ({@value #INDEX_FILENAME}) plus a journal of changes applied since the snapshot
+ * was written ({@value #JOURNAL_FILENAME}). Each change only appends a record to the journal. The journal is compacted into a new
+ * snapshot when it grows bigger than the index itself.
+ * <p>
+ * Crash safety: the snapshot is replaced atomically, and replaying the journal is idempotent, so a crash between writing the
+ * snapshot and truncating the journal is harmless. A record truncated by a crash is ignored when loading.
+ */
+public class StringStoreIndex implements StoreIndex<String> {
   public static final String INDEX_FILENAME = "index.pb";
+  public static final String JOURNAL_FILENAME = "index.journal";
+  private static final int MIN_JOURNAL_ENTRIES_BEFORE_COMPACTION = 100;
+
   private final Path storeBasePath;
   private final Path indexFilePath;
+  private final Path journalFilePath;
+  private final Map<String, String> mappedPathByKey;
+  private int journalEntries;
 
   public StringStoreIndex(Path storeBasePath) {
     this.storeBasePath = storeBasePath;
     this.indexFilePath = storeBasePath.resolve(INDEX_FILENAME);
-  }
-
-  @Override
-  public Collection<String> keys() {
-    return load().keySet();
+    this.journalFilePath = storeBasePath.resolve(JOURNAL_FILENAME);
+    this.mappedPathByKey = load();
   }
 
   private Map<String, String> load() {
-    if (!indexFilePath.toFile().exists()) {
-      return Collections.emptyMap();
+    Map<String, String> result = new HashMap<>();
+    if (indexFilePath.toFile().exists()) {
+      try (InputStream stream = Files.newInputStream(indexFilePath)) {
+        result.putAll(Sonarlint.StorageIndex.parseFrom(stream).getMappedPathByKeyMap());
+      } catch (IOException e) {
+        throw new IllegalStateException("Failed to read local issue store index", e);
+      }
+    }
+    if (journalFilePath.toFile().exists()) {
+      boolean corrupted = replayJournal(result);
+      if (corrupted) {
+        // Get rid of the incomplete record, otherwise records appended after it would be lost
+        compact(result);
+      }
     }
-    try (InputStream stream = Files.newInputStream(indexFilePath)) {
-      return Sonarlint.StorageIndex.parseFrom(stream).getMappedPathByKeyMap();
+    return result;
+  }
+
+  /**
+   * @return true if the journal ends with an incomplete record
+   */
+  private boolean replayJournal(Map<String, String> index) {
+    try (InputStream stream = Files.newInputStream(journalFilePath)) {
+      Sonarlint.StorageIndexChange change;
+      while ((change = Sonarlint.StorageIndexChange.parseDelimitedFrom(stream)) != null) {
+        apply(index, change);
+        journalEntries++;
+      }
+      return false;
     } catch (IOException e) {
-      throw new IllegalStateException("Failed to read local issue store index", e);
+      SonarLintLogger.get().debug("Ignoring incomplete record at the end of " + journalFilePath, e);
+      return true;
+    }
+  }
+
+  private static void apply(Map<String, String> index, Sonarlint.StorageIndexChange change) {
+    if (change.getDeleted()) {
+      index.remove(change.getKey());
+    } else {
+      index.put(change.getKey(), change.getMappedPath());
     }
   }
 
   @Override
-  public void save(String storageKey, Path path) {
+  public synchronized Collection<String> keys() {
+    return new ArrayList<>(mappedPathByKey.keySet());
+  }
+
+  @Override
+  public synchronized void save(String storageKey, Path path) {
     String relativeMappedPath = storeBasePath.relativize(path).toString();
-    Sonarlint.StorageIndex.Builder builder = Sonarlint.StorageIndex.newBuilder();
-    builder.putAllMappedPathByKey(load());
-    builder.putMappedPathByKey(storageKey, relativeMappedPath);
-    save(builder.build());
+    if (relativeMappedPath.equals(mappedPathByKey.put(storageKey, relativeMappedPath))) {
+      return;
+    }
+    append(Sonarlint.StorageIndexChange.newBuilder().setKey(storageKey).setMappedPath(relativeMappedPath).build());
   }
 
   @Override
-  public void delete(String storageKey) {
-    Sonarlint.StorageIndex.Builder builder = Sonarlint.StorageIndex.newBuilder();
-    builder.putAllMappedPathByKey(load());
-    builder.removeMappedPathByKey(storageKey);
-    save(builder.build());
+  public synchronized void delete(String storageKey) {
+    if (mappedPathByKey.remove(storageKey) == null) {
+      return;
+    }
+    append(Sonarlint.StorageIndexChange.newBuilder().setKey(storageKey).setDeleted(true).build());
+  }
+
+  /**
+   * To be called when the store folder was deleted.
+   */
+  synchronized void clear() {
+    mappedPathByKey.clear();
+    journalEntries = 0;
   }
 
-  private void save(Sonarlint.StorageIndex index) {
+  private void append(Sonarlint.StorageIndexChange change) {
     // In case folder was deleted while Eclipse was live
+    FileUtils.mkdirs(journalFilePath.getParent());
+    try (OutputStream stream = Files.newOutputStream(journalFilePath, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+      change.writeDelimitedTo(stream);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to write local issue store index", e);
+    }
+    journalEntries++;
+    if (journalEntries > Math.max(MIN_JOURNAL_ENTRIES_BEFORE_COMPACTION, mappedPathByKey.size())) {
+      compact(mappedPathByKey);
+    }
+  }
+
+  private void compact(Map<String, String> index) {
     FileUtils.mkdirs(indexFilePath.getParent());
-    try (OutputStream stream = Files.newOutputStream(indexFilePath)) {
-      index.writeTo(stream);
+    Path tempFilePath = indexFilePath.resolveSibling(INDEX_FILENAME + ".tmp");
+    try {
+      try (OutputStream stream = Files.newOutputStream(tempFilePath)) {
+        Sonarlint.StorageIndex.newBuilder().putAllMappedPathByKey(index).build().writeTo(stream);
+      }
+      Files.move(tempFilePath, indexFilePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      Files.deleteIfExists(journalFilePath);
     } catch (IOException e) {
       throw new IllegalStateException("Failed to write local issue store index", e);
     }
+    journalEntries = 0;
   }
 }
@@ -0,0 +1,246 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.tracking;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.ToLongFunction;
+import javax.annotation.CheckForNull;
+
+/**
+ * Map bounded by a number of entries and by a total weight, with a W-TinyLFU eviction policy.
+ * <p>
+ * New entries go to a small LRU window. Entries leaving the window are candidates to enter the main space (segmented LRU: probation,
+ * then protected once accessed again). When the cache is full, a candidate is only admitted if it was accessed more often recently than
+ * the victim it would replace, according to a {@link FrequencySketch}. So a burst of entries used once, like when analyzing all files,
+ * does not evict entries used frequently.
+ * <p>
+ * The most recently added entry is never evicted, even if it is heavier than the maximum weight.
+ * Not thread safe.
+ */
+public class TinyLfuCache<K, V> {
+  private static final int WINDOW_PERCENT = 20;
+  private static final int PROTECTED_PERCENT = 80;
+
+  private final long maxEntries;
+  private final long maxWeight;
+  private final long maxWindowEntries;
+  private final long maxWindowWeight;
+  private final long maxProtectedEntries;
+  private final ToLongFunction<V> weigher;
+  private final BiConsumer<K, V> evictionListener;
+  private final FrequencySketch sketch;
+
+  private final Segment window = new Segment();
+  private final Segment probation = new Segment();
+  private final Segment protectedSegment = new Segment();
+  private final Deque<K> candidates = new ArrayDeque<>();
+  private long evictionCount;
+
+  /**
+   * @param evictionListener called for each evicted entry
+   */
+  public TinyLfuCache(int maxEntries, long maxWeight, ToLongFunction<V> weigher, BiConsumer<K, V> evictionListener) {
+    this.maxEntries = maxEntries;
+    this.maxWeight = maxWeight;
+    this.maxWindowEntries = Math.max(1, maxEntries * WINDOW_PERCENT / 100);
+    this.maxWindowWeight = maxWeight / 100 * WINDOW_PERCENT;
+    this.maxProtectedEntries = (maxEntries - maxWindowEntries) * PROTECTED_PERCENT / 100;
+    this.weigher = weigher;
+    this.evictionListener = evictionListener;
+    this.sketch = new FrequencySketch(maxEntries);
+  }
+
+  /**
+   * Returns the value and records an access.
+   */
+  @CheckForNull
+  public V get(K key) {
+    sketch.increment(key);
+    Node<V> node = window.entries.get(key);
+    if (node == null) {
+      node = protectedSegment.entries.get(key);
+    }
+    if (node == null) {
+      node = probation.remove(key);
+      if (node != null) {
+        promote(key, node);
+      }
+    }
+    return node != null ? node.value : null;
+  }
+
+  /**
+   * Does not record an access.
+   */
+  public boolean containsKey(K key) {
+    return window.entries.containsKey(key) || probation.entries.containsKey(key) || protectedSegment.entries.containsKey(key);
+  }
+
+  public void put(K key, V value) {
+    sketch.increment(key);
+    Node<V> node = new Node<>(value, weigher.applyAsLong(value));
+    if (probation.remove(key) != null) {
+      promote(key, node);
+    } else if (protectedSegment.entries.containsKey(key)) {
+      protectedSegment.put(key, node);
+    } else {
+      window.put(key, node);
+    }
+    evict(key);
+  }
+
+  public void clear() {
+    window.clear();
+    probation.clear();
+    protectedSegment.clear();
+    candidates.clear();
+  }
+
+  /**
+   * Iterates over all entries, without recording accesses.
+   */
+  public void forEach(BiConsumer<K, V> action) {
+    window.entries.forEach((k, node) -> action.accept(k, node.value));
+    probation.entries.forEach((k, node) -> action.accept(k, node.value));
+    protectedSegment.entries.forEach((k, node) -> action.accept(k, node.value));
+  }
+
+  public int size() {
+    return window.entries.size() + probation.entries.size() + protectedSegment.entries.size();
+  }
+
+  public long weight() {
+    return window.weight + probation.weight + protectedSegment.weight;
+  }
+
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  private void promote(K key, Node<V> node) {
+    protectedSegment.put(key, node);
+    while (protectedSegment.entries.size() > maxProtectedEntries && !protectedSegment.entries.isEmpty()) {
+      // Demoted entries get another chance in probation
+      Map.Entry<K, Node<V>> eldest = protectedSegment.removeEldest();
+      probation.put(eldest.getKey(), eldest.getValue());
+    }
+  }
+
+  private void evict(K lastAdded) {
+    while (window.entries.size() > 1 && (window.entries.size() > maxWindowEntries || window.weight > maxWindowWeight)) {
+      Map.Entry<K, Node<V>> eldest = window.removeEldest();
+      probation.put(eldest.getKey(), eldest.getValue());
+      candidates.addLast(eldest.getKey());
+    }
+    while (size() > maxEntries || weight() > maxWeight) {
+      Segment victimSegment = !probation.entries.isEmpty() ? probation : protectedSegment;
+      Iterator<K> victims = victimSegment.entries.keySet().iterator();
+      if (!victims.hasNext()) {
+        // Only the window is left
+        return;
+      }
+      K victim = victims.next();
+      K candidate = nextCandidate();
+      K evicted = victim;
+      if (candidate != null && !candidate.equals(victim) && sketch.frequency(candidate) <= sketch.frequency(victim)) {
+        evicted = candidate;
+      }
+      if (evicted.equals(lastAdded)) {
+        return;
+      }
+      Node<V> node = probation.remove(evicted);
+      if (node == null) {
+        node = protectedSegment.remove(evicted);
+      }
+      candidates.remove(evicted);
+      evictionCount++;
+      evictionListener.accept(evicted, node.value);
+    }
+    candidates.clear();
+  }
+
+  /**
+   * Oldest entry that left the window and is still waiting in probation
+   */
+  @CheckForNull
+  private K nextCandidate() {
+    while (!candidates.isEmpty()) {
+      K candidate = candidates.peekFirst();
+      if (probation.entries.containsKey(candidate)) {
+        return candidate;
+      }
+      candidates.removeFirst();
+    }
+    return null;
+  }
+
+  private static class Node<V> {
+    private final V value;
+    private final long weight;
+
+    private Node(V value, long weight) {
+      this.value = value;
+      this.weight = weight;
+    }
+  }
+
+  /**
+   * Entries in LRU order, with their total weight
+   */
+  private class Segment {
+    private final LinkedHashMap<K, Node<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    private void put(K key, Node<V> node) {
+      Node<V> previous = entries.put(key, node);
+      if (previous != null) {
+        weight -= previous.weight;
+      }
+      weight += node.weight;
+    }
+
+    @CheckForNull
+    private Node<V> remove(K key) {
+      Node<V> node = entries.remove(key);
+      if (node != null) {
+        weight -= node.weight;
+      }
+      return node;
+    }
+
+    private Map.Entry<K, Node<V>> removeEldest() {
+      Iterator<Map.Entry<K, Node<V>>> it = entries.entrySet().iterator();
+      Map.Entry<K, Node<V>> eldest = it.next();
+      it.remove();
+      weight -= eldest.getValue().weight;
+      return eldest;
+    }
+
+    private void clear() {
+      entries.clear();
+      weight = 0;
+    }
+  }
+}
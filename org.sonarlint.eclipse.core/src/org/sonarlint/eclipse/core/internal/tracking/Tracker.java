@@ -19,389 +19,287 @@
  */
 package org.sonarlint.eclipse.core.internal.tracking;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.List;
+import java.util.IdentityHashMap;
 import java.util.Map;
-import java.util.Objects;
-import java.util.function.Function;
 import javax.annotation.Nullable;
 import org.sonarlint.eclipse.core.internal.utils.StringUtils;
 
+/**
+ * Matches raw issues with base issues in several passes, each pass comparing less fields than the previous one.
+ * <p>
+ * Fields of all issues are read once, and the index of each pass is an open addressing hash table keyed by a 64 bits fingerprint
+ * of the compared fields, whose arrays are reused by all passes. Since different keys can share a fingerprint, candidates are always
+ * compared field by field. Issues having the same key are chained in their original order, and the first one is matched, so that
+ * results don't depend on the hashing.
+ */
 public class Tracker<RAW extends Trackable, BASE extends Trackable> {
 
+  private static final int RULE_KEY = 1;
+  private static final int LINE = 1 << 1;
+  private static final int MESSAGE = 1 << 2;
+  private static final int TEXT_RANGE_HASH = 1 << 3;
+  private static final int LINE_HASH = 1 << 4;
+  private static final int SERVER_ISSUE_KEY = 1 << 5;
+
   public Tracking<RAW, BASE> track(Input<RAW> rawInput, Input<BASE> baseInput) {
     Tracking<RAW, BASE> tracking = new Tracking<>(rawInput, baseInput);
+    Matcher<RAW, BASE> matcher = new Matcher<>(tracking);
 
     // 1. match issues with same rule, same line and same text range hash, but not necessarily with same message
-    match(tracking, LineAndTextRangeHashKeyFactory.INSTANCE);
+    matcher.match(RULE_KEY | LINE | TEXT_RANGE_HASH);
 
     // 2. match issues with same rule, same message and same text range hash
-    match(tracking, TextRangeHashAndMessageKeyFactory.INSTANCE);
+    matcher.match(RULE_KEY | MESSAGE | TEXT_RANGE_HASH);
 
     // 3. match issues with same rule, same line and same message
-    match(tracking, LineAndMessageKeyFactory.INSTANCE);
+    matcher.match(RULE_KEY | LINE | MESSAGE);
 
     // 4. match issues with same rule and same text range hash but different line and different message.
     // See SONAR-2812
-    match(tracking, TextRangeHashKeyFactory.INSTANCE);
+    matcher.match(RULE_KEY | TEXT_RANGE_HASH);
 
     // 5. match issues with same rule, same line and same line hash
-    match(tracking, LineAndLineHashKeyFactory.INSTANCE);
+    matcher.match(RULE_KEY | LINE | LINE_HASH);
 
     // 6. match issues with same rule and same same line hash
-    match(tracking, LineHashKeyFactory.INSTANCE);
+    matcher.match(RULE_KEY | LINE_HASH);
 
     // 7. match issues with same server issue key
-    match(tracking, ServerIssueSearchKeyFactory.INSTANCE);
+    matcher.match(SERVER_ISSUE_KEY);
 
     return tracking;
   }
 
-  private void match(Tracking<RAW, BASE> tracking, SearchKeyFactory factory) {
-    if (tracking.isComplete()) {
-      return;
-    }
-
-    Map<SearchKey, List<BASE>> baseSearch = new HashMap<>();
-    for (BASE base : tracking.getUnmatchedBases()) {
-      SearchKey searchKey = factory.apply(base);
-      if (!baseSearch.containsKey(searchKey)) {
-        baseSearch.put(searchKey, new ArrayList<>());
+  /**
+   * Fields of trackables, read once. Null integers are stored as {@link #NULL}, that can't be the value of an integer.
+   */
+  private static class Fields {
+    private static final long NULL = Long.MIN_VALUE;
+
+    private final String[] ruleKeys;
+    private final String[] messages;
+    private final String[] serverIssueKeys;
+    private final long[] lines;
+    private final long[] textRangeHashes;
+    private final long[] lineHashes;
+
+    Fields(Trackable[] trackables) {
+      int size = trackables.length;
+      ruleKeys = new String[size];
+      messages = new String[size];
+      serverIssueKeys = new String[size];
+      lines = new long[size];
+      textRangeHashes = new long[size];
+      lineHashes = new long[size];
+      for (int i = 0; i < size; i++) {
+        Trackable trackable = trackables[i];
+        ruleKeys[i] = trackable.getRuleKey();
+        messages[i] = trackable.getMessage();
+        serverIssueKeys[i] = trackable.getServerIssueKey();
+        lines[i] = toLong(trackable.getLine());
+        textRangeHashes[i] = toLong(trackable.getTextRangeHash());
+        lineHashes[i] = toLong(trackable.getLineHash());
       }
-      baseSearch.get(searchKey).add(base);
     }
 
-    for (RAW raw : tracking.getUnmatchedRaws()) {
-      SearchKey rawKey = factory.apply(raw);
-      Collection<BASE> bases = baseSearch.get(rawKey);
-      if (bases != null && !bases.isEmpty()) {
-        // TODO taking the first one. Could be improved if there are more than 2 issues on the same line.
-        // Message could be checked to take the best one.
-        BASE match = bases.iterator().next();
-        tracking.match(raw, match);
-        baseSearch.get(rawKey).remove(match);
-      }
+    private static long toLong(@Nullable Integer value) {
+      return value != null ? value : NULL;
     }
-  }
-
-  private interface SearchKey {
-  }
-
-  @FunctionalInterface
-  private interface SearchKeyFactory extends Function<Trackable, SearchKey> {
-    @Override
-    SearchKey apply(Trackable trackable);
-  }
-
-  private static class LineAndTextRangeHashKey implements SearchKey {
-    private final String ruleKey;
-    private final Integer textRangeHash;
-    private final Integer line;
 
-    LineAndTextRangeHashKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.line = trackable.getLine();
-      this.textRangeHash = trackable.getTextRangeHash();
+    /**
+     * Issues without server issue key are never matched by key, not even between themselves
+     */
+    boolean isSearchable(int i, int fields) {
+      return (fields & SERVER_ISSUE_KEY) == 0 || !StringUtils.isBlank(serverIssueKeys[i]);
     }
 
-    @Override
-    public boolean equals(@Nullable Object o) {
-      if (this == o) {
-        return true;
+    long fingerprint(int i, int fields) {
+      long h = fields;
+      if ((fields & RULE_KEY) != 0) {
+        h = mix(h, ruleKeys[i].hashCode());
       }
-      if (o == null) {
-        return false;
+      if ((fields & LINE) != 0) {
+        h = mix(h, lines[i]);
       }
-      if (this.getClass() != o.getClass()) {
-        return false;
+      if ((fields & MESSAGE) != 0) {
+        h = mix(h, messages[i].hashCode());
       }
-      LineAndTextRangeHashKey that = (LineAndTextRangeHashKey) o;
-      // start with most discriminant field
-      return Objects.equals(line, that.line)
-        && Objects.equals(textRangeHash, that.textRangeHash)
-        && ruleKey.equals(that.ruleKey);
-    }
-
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + (textRangeHash != null ? textRangeHash.hashCode() : 0);
-      result = 31 * result + (line != null ? line.hashCode() : 0);
-      return result;
-    }
-  }
-
-  private enum LineAndTextRangeHashKeyFactory implements SearchKeyFactory {
-    INSTANCE;
-
-    @Override
-    public SearchKey apply(Trackable t) {
-      return new LineAndTextRangeHashKey(t);
-    }
-  }
-
-  private static class LineAndLineHashKey implements SearchKey {
-    private final String ruleKey;
-    private final Integer line;
-    private final Integer lineHash;
-
-    LineAndLineHashKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.line = trackable.getLine();
-      this.lineHash = trackable.getLineHash();
-    }
-
-    @Override
-    public boolean equals(@Nullable Object o) {
-      if (this == o) {
-        return true;
+      if ((fields & TEXT_RANGE_HASH) != 0) {
+        h = mix(h, textRangeHashes[i]);
       }
-      if (o == null) {
-        return false;
+      if ((fields & LINE_HASH) != 0) {
+        h = mix(h, lineHashes[i]);
       }
-      if (this.getClass() != o.getClass()) {
-        return false;
+      if ((fields & SERVER_ISSUE_KEY) != 0) {
+        h = mix(h, serverIssueKeys[i].hashCode());
       }
-      LineAndLineHashKey that = (LineAndLineHashKey) o;
-      // start with most discriminant field
-      return Objects.equals(line, that.line)
-        && Objects.equals(lineHash, that.lineHash)
-        && ruleKey.equals(that.ruleKey);
+      return h;
     }
 
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + (lineHash != null ? lineHash.hashCode() : 0);
-      result = 31 * result + (line != null ? line.hashCode() : 0);
-      return result;
+    private static long mix(long h, long value) {
+      long result = (h ^ value) * 0x9E3779B97F4A7C15L;
+      return result ^ (result >>> 29);
     }
-  }
 
-  private enum LineAndLineHashKeyFactory implements SearchKeyFactory {
-    INSTANCE;
-
-    @Override
-    public SearchKey apply(Trackable t) {
-      return new LineAndLineHashKey(t);
+    // start with most discriminant fields
+    boolean sameFields(int i, Fields other, int j, int fields) {
+      return ((fields & LINE) == 0 || lines[i] == other.lines[j])
+        && ((fields & TEXT_RANGE_HASH) == 0 || textRangeHashes[i] == other.textRangeHashes[j])
+        && ((fields & LINE_HASH) == 0 || lineHashes[i] == other.lineHashes[j])
+        && ((fields & MESSAGE) == 0 || messages[i].equals(other.messages[j]))
+        && ((fields & RULE_KEY) == 0 || ruleKeys[i].equals(other.ruleKeys[j]))
+        && ((fields & SERVER_ISSUE_KEY) == 0 || serverIssueKeys[i].equals(other.serverIssueKeys[j]));
     }
   }
 
-  private static class LineHashKey implements SearchKey {
-    private final String ruleKey;
-    private final Integer lineHash;
-
-    LineHashKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.lineHash = trackable.getLineHash();
-    }
-
-    @Override
-    public boolean equals(@Nullable Object o) {
-      if (this == o) {
-        return true;
-      }
-      if (o == null) {
-        return false;
-      }
-      if (this.getClass() != o.getClass()) {
-        return false;
-      }
-      LineHashKey that = (LineHashKey) o;
-      // start with most discriminant field
-      return Objects.equals(lineHash, that.lineHash)
-        && ruleKey.equals(that.ruleKey);
-    }
-
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + (lineHash != null ? lineHash.hashCode() : 0);
-      return result;
+  private static class Matcher<RAW extends Trackable, BASE extends Trackable> {
+    /**
+     * Slot never used in the current pass
+     */
+    private static final int FREE = -1;
+    /**
+     * End of a chain of bases
+     */
+    private static final int END = -2;
+
+    private final Tracking<RAW, BASE> tracking;
+    private final Trackable[] raws;
+    private final Trackable[] bases;
+    private final Fields rawFields;
+    private final Fields baseFields;
+    /**
+     * The same instance may be given several times. Its occurrences share the matching state of the first one.
+     */
+    private final int[] rawFirstOccurrences;
+    private final int[] baseFirstOccurrences;
+    /**
+     * Pass in which the issue was matched, or 0
+     */
+    private final int[] rawMatchingPasses;
+    private final int[] baseMatchingPasses;
+    private int pass;
+
+    private final int mask;
+    private final long[] slotFingerprints;
+    private final int[] slotHeads;
+    private final int[] slotTails;
+    private final int[] nextBases;
+
+    Matcher(Tracking<RAW, BASE> tracking) {
+      this.tracking = tracking;
+      this.raws = toArray(tracking.getRaws());
+      this.bases = toArray(tracking.getBases());
+      this.rawFields = new Fields(raws);
+      this.baseFields = new Fields(bases);
+      this.rawFirstOccurrences = firstOccurrences(raws);
+      this.baseFirstOccurrences = firstOccurrences(bases);
+      this.rawMatchingPasses = new int[raws.length];
+      this.baseMatchingPasses = new int[bases.length];
+      // Load factor is at most 0.5, so that probing sequences stay short
+      int capacity = Integer.highestOneBit(Math.max(1, bases.length) * 2 - 1) << 1;
+      this.mask = capacity - 1;
+      this.slotFingerprints = new long[capacity];
+      this.slotHeads = new int[capacity];
+      this.slotTails = new int[capacity];
+      this.nextBases = new int[bases.length];
     }
-  }
-
-  private enum LineHashKeyFactory implements SearchKeyFactory {
-    INSTANCE;
 
-    @Override
-    public SearchKey apply(Trackable t) {
-      return new LineHashKey(t);
+    private static Trackable[] toArray(Collection<? extends Trackable> trackables) {
+      return trackables.toArray(new Trackable[trackables.size()]);
     }
-  }
 
-  private static class TextRangeHashAndMessageKey implements SearchKey {
-    private final String ruleKey;
-    private final String message;
-    private final Integer textRangeHash;
-
-    TextRangeHashAndMessageKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.message = trackable.getMessage();
-      this.textRangeHash = trackable.getTextRangeHash();
-    }
-
-    @Override
-    public boolean equals(@Nullable Object o) {
-      if (this == o) {
-        return true;
-      }
-      if (o == null) {
-        return false;
-      }
-      if (this.getClass() != o.getClass()) {
-        return false;
+    private static int[] firstOccurrences(Trackable[] trackables) {
+      Map<Trackable, Integer> firstOccurrenceByTrackable = new IdentityHashMap<>(trackables.length);
+      int[] result = new int[trackables.length];
+      for (int i = 0; i < trackables.length; i++) {
+        Integer firstOccurrence = firstOccurrenceByTrackable.putIfAbsent(trackables[i], i);
+        result[i] = firstOccurrence != null ? firstOccurrence : i;
       }
-      TextRangeHashAndMessageKey that = (TextRangeHashAndMessageKey) o;
-      // start with most discriminant field
-      return Objects.equals(textRangeHash, that.textRangeHash)
-        && message.equals(that.message)
-        && ruleKey.equals(that.ruleKey);
-    }
-
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + message.hashCode();
-      result = 31 * result + (textRangeHash != null ? textRangeHash.hashCode() : 0);
       return result;
     }
-  }
-
-  private enum TextRangeHashAndMessageKeyFactory implements SearchKeyFactory {
-    INSTANCE;
-
-    @Override
-    public SearchKey apply(Trackable t) {
-      return new TextRangeHashAndMessageKey(t);
-    }
-  }
-
-  private static class LineAndMessageKey implements SearchKey {
-    private final String ruleKey;
-    private final String message;
-    private final Integer line;
-
-    LineAndMessageKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.message = trackable.getMessage();
-      this.line = trackable.getLine();
-    }
 
-    @Override
-    public boolean equals(@Nullable Object o) {
-      if (this == o) {
-        return true;
-      }
-      if (o == null) {
-        return false;
-      }
-      if (this.getClass() != o.getClass()) {
-        return false;
+    void match(int fields) {
+      if (tracking.isComplete()) {
+        return;
       }
-      LineAndMessageKey that = (LineAndMessageKey) o;
-      // start with most discriminant field
-      return Objects.equals(line, that.line)
-        && message.equals(that.message)
-        && ruleKey.equals(that.ruleKey);
-    }
-
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + message.hashCode();
-      result = 31 * result + (line != null ? line.hashCode() : 0);
-      return result;
-    }
-  }
-
-  private enum LineAndMessageKeyFactory implements SearchKeyFactory {
-    INSTANCE;
-
-    @Override
-    public SearchKey apply(Trackable t) {
-      return new LineAndMessageKey(t);
-    }
-  }
-
-  private static class TextRangeHashKey implements SearchKey {
-    private final String ruleKey;
-    private final Integer textRangeHash;
-
-    TextRangeHashKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.textRangeHash = trackable.getTextRangeHash();
-    }
-
-    @Override
-    public boolean equals(@Nullable Object o) {
-      if (this == o) {
-        return true;
+      pass++;
+      Arrays.fill(slotHeads, FREE);
+      boolean anyUnmatchedBase = false;
+      for (int b = 0; b < bases.length; b++) {
+        if (baseMatchingPasses[baseFirstOccurrences[b]] == 0 && baseFields.isSearchable(b, fields)) {
+          index(b, baseFields.fingerprint(b, fields));
+          anyUnmatchedBase = true;
+        }
       }
-      if (o == null) {
-        return false;
+      if (!anyUnmatchedBase) {
+        return;
       }
-      if (this.getClass() != o.getClass()) {
-        return false;
+      for (int r = 0; r < raws.length; r++) {
+        // Like the bases, occurrences of a raw issue matched during this pass are still looked up
+        int matchingPass = rawMatchingPasses[rawFirstOccurrences[r]];
+        if ((matchingPass == 0 || matchingPass == pass) && rawFields.isSearchable(r, fields)) {
+          matchRaw(r, fields);
+        }
       }
-      TextRangeHashKey that = (TextRangeHashKey) o;
-      // start with most discriminant field
-      return Objects.equals(textRangeHash, that.textRangeHash)
-        && ruleKey.equals(that.ruleKey);
     }
 
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + (textRangeHash != null ? textRangeHash.hashCode() : 0);
-      return result;
+    private int slotOf(long fingerprint) {
+      int slot = (int) (fingerprint ^ (fingerprint >>> 32)) & mask;
+      while (slotHeads[slot] != FREE && slotFingerprints[slot] != fingerprint) {
+        slot = (slot + 1) & mask;
+      }
+      return slot;
     }
-  }
-
-  private enum TextRangeHashKeyFactory implements SearchKeyFactory {
-    INSTANCE;
 
-    @Override
-    public SearchKey apply(Trackable t) {
-      return new TextRangeHashKey(t);
+    private void index(int base, long fingerprint) {
+      int slot = slotOf(fingerprint);
+      nextBases[base] = END;
+      if (slotHeads[slot] == FREE) {
+        slotFingerprints[slot] = fingerprint;
+        slotHeads[slot] = base;
+      } else {
+        nextBases[slotTails[slot]] = base;
+      }
+      slotTails[slot] = base;
     }
-  }
-
-  private static class ServerIssueSearchKey implements SearchKey {
-    private final String serverIssueKey;
 
-    ServerIssueSearchKey(Trackable trackable) {
-      serverIssueKey = trackable.getServerIssueKey();
+    private void matchRaw(int raw, int fields) {
+      int slot = slotOf(rawFields.fingerprint(raw, fields));
+      int previous = END;
+      for (int base = slotHeads[slot]; base >= 0; base = nextBases[base]) {
+        if (rawFields.sameFields(raw, baseFields, base, fields)) {
+          unlink(slot, previous, base);
+          rawMatchingPasses[rawFirstOccurrences[raw]] = pass;
+          baseMatchingPasses[baseFirstOccurrences[base]] = pass;
+          tracking.match(asRaw(raws[raw]), asBase(bases[base]));
+          return;
+        }
+        previous = base;
+      }
     }
 
-    @Override
-    public boolean equals(Object o) {
-      if (this == o) {
-        return true;
+    private void unlink(int slot, int previous, int base) {
+      int next = nextBases[base];
+      if (previous == END) {
+        slotHeads[slot] = next;
+      } else {
+        nextBases[previous] = next;
       }
-      if (o == null || getClass() != o.getClass()) {
-        return false;
+      if (next == END) {
+        slotTails[slot] = previous;
       }
-
-      ServerIssueSearchKey that = (ServerIssueSearchKey) o;
-
-      return !StringUtils.isBlank(serverIssueKey) && !StringUtils.isBlank(that.serverIssueKey) && serverIssueKey.equals(that.serverIssueKey);
     }
 
-    @Override
-    public int hashCode() {
-      return serverIssueKey != null ? serverIssueKey.hashCode() : 0;
+    @SuppressWarnings("unchecked")
+    private RAW asRaw(Trackable trackable) {
+      return (RAW) trackable;
     }
-  }
-
-  private enum ServerIssueSearchKeyFactory implements SearchKeyFactory {
-    INSTANCE;
 
-    @Override
-    public SearchKey apply(Trackable trackable) {
-      return new ServerIssueSearchKey(trackable);
+    @SuppressWarnings("unchecked")
+    private BASE asBase(Trackable trackable) {
+      return (BASE) trackable;
     }
   }
 }
@@ -77,6 +77,14 @@ public class Tracking<RAW extends Trackable, BASE extends Trackable> {
     return result;
   }
 
+  Collection<RAW> getRaws() {
+    return raws;
+  }
+
+  Collection<BASE> getBases() {
+    return bases;
+  }
+
   boolean containsUnmatchedBase(BASE base) {
     return !baseToRaw.containsKey(base);
   }
@@ -0,0 +1,142 @@
+/*
+ * SonarLint for Eclipse
+ * Copyright (C) 2015-2018 SonarSource SA
+ * sonarlint@sonarsource.com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarlint.eclipse.core.internal.utils;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+import org.sonarsource.sonarlint.core.client.api.common.FileExclusions;
+
+/**
+ * File, directory and glob exclusions compiled into a tree of path segments. A path only walks down the nodes of its own
+ * segments: directory exclusions are found on the way, and a glob is only matched against paths starting with its literal
+ * prefix (the segments before the first one containing a wildcard). Globs without literal prefix, like <code>**&#47;*.js</code>,
+ * stay at the root and are matched against every path.
+ * <p>
+ * Matching of each kind of exclusion is the same as {@link FileExclusions}. Instances are immutable once built.
+ */
+public class ExclusionTrie implements Predicate<String> {
+
+  private static final String GLOB_SPECIAL_CHARS = "*?[]{}\\";
+  /**
+   * Paths and globs are compared ignoring case on Windows
+   */
+  private static final boolean IGNORE_CASE = File.separatorChar == '\\';
+
+  private final Set<String> fileExclusions;
+  private final Node root = new Node();
+
+  public ExclusionTrie(Collection<String> fileExclusions, Collection<String> directoryExclusions, Collection<String> globExclusions) {
+    this.fileExclusions = new HashSet<>(fileExclusions);
+    for (String directory : directoryExclusions) {
+      String[] segments = segments(directory);
+      if (segments.length > 0) {
+        nodeOf(segments, segments.length).excludedDirectory = true;
+      }
+    }
+    for (String glob : globExclusions) {
+      String[] segments = segments(glob);
+      int literalPrefixLength = 0;
+      // Last segment is never part of the prefix, so that a glob matching a single file still needs a match
+      while (literalPrefixLength < segments.length - 1 && !isGlob(segments[literalPrefixLength])) {
+        literalPrefixLength++;
+      }
+      nodeOf(segments, literalPrefixLength).globs.add(glob);
+    }
+    root.compile();
+  }
+
+  private static class Node {
+    private final Map<String, Node> children = new HashMap<>();
+    private final Set<String> globs = new HashSet<>();
+    private boolean excludedDirectory;
+    @Nullable
+    private FileExclusions compiledGlobs;
+
+    private void compile() {
+      if (!globs.isEmpty()) {
+        compiledGlobs = new FileExclusions(globs);
+      }
+      children.values().forEach(Node::compile);
+    }
+  }
+
+  private Node nodeOf(String[] segments, int length) {
+    Node node = root;
+    for (int i = 0; i < length; i++) {
+      node = node.children.computeIfAbsent(key(segments[i]), k -> new Node());
+    }
+    return node;
+  }
+
+  @Override
+  public boolean test(String relativePath) {
+    if (fileExclusions.contains(relativePath)) {
+      return true;
+    }
+    Node node = root;
+    int start = 0;
+    int length = relativePath.length();
+    while (true) {
+      if (node.excludedDirectory || (node.compiledGlobs != null && node.compiledGlobs.test(relativePath))) {
+        return true;
+      }
+      while (start < length && relativePath.charAt(start) == '/') {
+        start++;
+      }
+      if (start == length) {
+        return false;
+      }
+      int end = relativePath.indexOf('/', start);
+      if (end < 0) {
+        end = length;
+      }
+      node = node.children.get(key(relativePath.substring(start, end)));
+      if (node == null) {
+        return false;
+      }
+      start = end;
+    }
+  }
+
+  private static String[] segments(String path) {
+    return path.replaceAll("^/+", "").split("/+");
+  }
+
+  private static String key(String segment) {
+    return IGNORE_CASE ? segment.toLowerCase(Locale.ROOT) : segment;
+  }
+
+  private static boolean isGlob(String segment) {
+    for (int i = 0; i < segment.length(); i++) {
+      if (GLOB_SPECIAL_CHARS.indexOf(segment.charAt(i)) >= 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+}
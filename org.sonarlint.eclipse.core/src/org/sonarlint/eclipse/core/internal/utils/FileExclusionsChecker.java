@@ -19,13 +19,16 @@
  */
 package org.sonarlint.eclipse.core.internal.utils;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import javax.annotation.Nullable;
 import org.sonarlint.eclipse.core.SonarLintLogger;
 import org.sonarlint.eclipse.core.internal.SonarLintCorePlugin;
 import org.sonarlint.eclipse.core.internal.jobs.SonarLintMarkerUpdater;
@@ -36,57 +39,132 @@ import org.sonarlint.eclipse.core.internal.resources.SonarLintProjectConfigurati
 import org.sonarlint.eclipse.core.internal.server.Server;
 import org.sonarlint.eclipse.core.resource.ISonarLintFile;
 import org.sonarlint.eclipse.core.resource.ISonarLintProject;
-import org.sonarsource.sonarlint.core.client.api.common.FileExclusions;
 
+/**
+ * Exclusions of a project, compiled once from the settings read at creation. Use {@link SonarLintCorePlugin#getFileExclusionsChecker(ISonarLintProject)}
+ * to get a checker that is up to date with the current settings.
+ * <p>
+ * Server exclusions can only be evaluated by the engine, so their results are cached per file, until the storage of the bound module
+ * is updated.
+ */
 public class FileExclusionsChecker {
-  private FileExclusions projectExclusions;
-  private FileExclusions globalExclusions;
+  private final ExclusionTrie projectExclusions;
+  private final ExclusionTrie globalExclusions;
+  @Nullable
+  private final String serverId;
+  @Nullable
+  private final String moduleKey;
+  private final String settingsStamp;
+
+  // Guarded by this
+  private final Map<String, Boolean> serverExclusionPerPath = new HashMap<>();
+  @Nullable
+  private String serverStorageFingerprint;
 
   public FileExclusionsChecker(ISonarLintProject project) {
-    SonarLintProjectConfiguration projectConfiguration = SonarLintProjectConfiguration.read(project.getScopeContext());
-    List<ExclusionItem> globalExclusionItems = PreferencesUtils.getGlobalExclusions();
-    List<ExclusionItem> projectExclusionItems = projectConfiguration.getFileExclusions();
+    // Read the stamp first, so that a concurrent change of settings is at worst compiled twice
+    this(readSettingsStamp(project), SonarLintProjectConfiguration.read(project.getScopeContext()));
+  }
 
-    Set<String> projectFileExclusions = getExclusionsOfType(projectExclusionItems, Type.FILE);
-    Set<String> projectDirectoryExclusions = getExclusionsOfType(projectExclusionItems, Type.DIRECTORY);
-    Set<String> projectGlobExclusions = getExclusionsOfType(projectExclusionItems, Type.GLOB);
-    Set<String> globalGlobExclusions = getExclusionsOfType(globalExclusionItems, Type.GLOB);
+  private FileExclusionsChecker(String settingsStamp, SonarLintProjectConfiguration projectConfiguration) {
+    this(PreferencesUtils.getGlobalExclusions(), projectConfiguration.getFileExclusions(),
+      projectConfiguration.isBound() ? projectConfiguration.getServerId() : null,
+      projectConfiguration.isBound() ? projectConfiguration.getModuleKey() : null,
+      settingsStamp);
+  }
 
-    projectExclusions = new FileExclusions(projectFileExclusions, projectDirectoryExclusions, projectGlobExclusions);
-    globalExclusions = new FileExclusions(globalGlobExclusions);
+  /**
+   * Checker of local exclusions only
+   */
+  public FileExclusionsChecker(List<ExclusionItem> globalExclusionItems, List<ExclusionItem> projectExclusionItems) {
+    this(globalExclusionItems, projectExclusionItems, null, null, "");
+  }
+
+  private FileExclusionsChecker(List<ExclusionItem> globalExclusionItems, List<ExclusionItem> projectExclusionItems, @Nullable String serverId,
+    @Nullable String moduleKey, String settingsStamp) {
+    this.projectExclusions = new ExclusionTrie(getExclusionsOfType(projectExclusionItems, Type.FILE), getExclusionsOfType(projectExclusionItems, Type.DIRECTORY),
+      getExclusionsOfType(projectExclusionItems, Type.GLOB));
+    this.globalExclusions = new ExclusionTrie(Collections.emptySet(), Collections.emptySet(), getExclusionsOfType(globalExclusionItems, Type.GLOB));
+    this.serverId = serverId;
+    this.moduleKey = moduleKey;
+    this.settingsStamp = settingsStamp;
+  }
+
+  /**
+   * Summary of all the settings exclusions depend on, cheap to read compared to parsing them
+   */
+  public static String readSettingsStamp(ISonarLintProject project) {
+    return PreferencesUtils.getExclusionSettingsStamp() + "|" + SonarLintCorePlugin.getInstance().getProjectManager().readExclusionSettingsStamp(project.getScopeContext());
+  }
+
+  public String getSettingsStamp() {
+    return settingsStamp;
   }
 
   public Collection<ISonarLintFile> filterExcludedFiles(ISonarLintProject project, Collection<ISonarLintFile> files) {
     return filterExcludedFiles(project, files, true);
   }
 
+  /**
+   * Evaluate exclusions of all files at once, with a single call to the engine for server exclusions.
+   */
   public Collection<ISonarLintFile> filterExcludedFiles(ISonarLintProject project, Collection<ISonarLintFile> files, boolean log) {
-    Server server = null;
-    SonarLintProjectConfiguration projectConfiguration = SonarLintProjectConfiguration.read(project.getScopeContext());
-    Stream<ISonarLintFile> fileStream = files.stream().filter(file -> shouldAnalyze(file, log));
-
-    if (project.isBound()) {
-      server = (Server) SonarLintCorePlugin.getServersManager().getServer(projectConfiguration.getServerId());
-      if (server == null) {
-        SonarLintLogger.get().error("Project '" + project.getName() + "' is bound to an unknown SonarQube server: '" + projectConfiguration.getServerId()
-          + "'. Please fix project binding or unbind project.");
-        return Collections.emptyList();
-      }
-      Map<String, ISonarLintFile> filePerRelativePath = fileStream
-        .collect(Collectors.toMap(ISonarLintFile::getProjectRelativePath, f -> f));
-      TestFileClassifier testFileClassifier = TestFileClassifier.get();
-      Set<String> serverFileExclusions = server.getServerFileExclusions(projectConfiguration.getModuleKey(), filePerRelativePath.keySet(),
-        path -> testFileClassifier.isTest(filePerRelativePath.get(path)));
-      serverFileExclusions.forEach(fileRelativePath -> {
-        filePerRelativePath.remove(fileRelativePath);
+    List<ISonarLintFile> notExcludedFiles = files.stream().filter(file -> shouldAnalyze(file, log)).collect(Collectors.toList());
+    if (serverId == null || moduleKey == null) {
+      return notExcludedFiles;
+    }
+    Server server = (Server) SonarLintCorePlugin.getServersManager().getServer(serverId);
+    if (server == null) {
+      SonarLintLogger.get().error("Project '" + project.getName() + "' is bound to an unknown SonarQube server: '" + serverId
+        + "'. Please fix project binding or unbind project.");
+      return Collections.emptyList();
+    }
+    Set<String> serverFileExclusions = getServerFileExclusions(server, moduleKey, notExcludedFiles);
+    if (serverFileExclusions.isEmpty()) {
+      return notExcludedFiles;
+    }
+    List<ISonarLintFile> result = new ArrayList<>(notExcludedFiles.size());
+    for (ISonarLintFile file : notExcludedFiles) {
+      String fileRelativePath = file.getProjectRelativePath();
+      if (serverFileExclusions.contains(fileRelativePath)) {
         if (log) {
           SonarLintLogger.get().debug("File excluded from analysis due to exclusions configured in SonarQube: " + fileRelativePath);
         }
-      });
-      return filePerRelativePath.values();
-    } else {
-      return fileStream.collect(Collectors.toList());
+      } else {
+        result.add(file);
+      }
+    }
+    return result;
+  }
+
+  private synchronized Set<String> getServerFileExclusions(Server server, String moduleKey, Collection<ISonarLintFile> files) {
+    String fingerprint = server.getAnalysisStorageFingerprint(moduleKey);
+    if (fingerprint == null || !fingerprint.equals(serverStorageFingerprint)) {
+      serverExclusionPerPath.clear();
+      serverStorageFingerprint = fingerprint;
+    }
+    Set<String> excludedPaths = new HashSet<>();
+    Map<String, ISonarLintFile> filePerRelativePathToEvaluate = new HashMap<>();
+    for (ISonarLintFile file : files) {
+      String path = file.getProjectRelativePath();
+      Boolean excluded = serverExclusionPerPath.get(path);
+      if (excluded == null) {
+        filePerRelativePathToEvaluate.put(path, file);
+      } else if (excluded) {
+        excludedPaths.add(path);
+      }
+    }
+    if (!filePerRelativePathToEvaluate.isEmpty()) {
+      TestFileClassifier testFileClassifier = TestFileClassifier.get();
+      Set<String> newlyExcludedPaths = server.getServerFileExclusions(moduleKey, filePerRelativePathToEvaluate.keySet(),
+        path -> testFileClassifier.isTest(filePerRelativePathToEvaluate.get(path)));
+      excludedPaths.addAll(newlyExcludedPaths);
+      if (fingerprint != null) {
+        // Not cached until the storage was updated, since results would change
+        filePerRelativePathToEvaluate.keySet().forEach(path -> serverExclusionPerPath.put(path, newlyExcludedPaths.contains(path)));
+      }
     }
+    return excludedPaths;
   }
 
   public boolean isExcluded(ISonarLintFile file, boolean log) {
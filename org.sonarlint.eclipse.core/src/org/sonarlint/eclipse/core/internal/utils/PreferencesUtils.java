@@ -42,6 +42,16 @@ public class PreferencesUtils {
   public static final String PREF_DEFAULT = ""; //$NON-NLS-1$
   public static final String PREF_TEST_FILE_REGEXPS = "testFileRegexps"; //$NON-NLS-1$
   public static final String PREF_TEST_FILE_REGEXPS_DEFAULT = "**/*Test.*,**/test/**/*"; //$NON-NLS-1$
+  public static final String PREF_ANALYSIS_PARALLELISM = "analysisParallelism"; //$NON-NLS-1$
+  public static final int PREF_ANALYSIS_PARALLELISM_DEFAULT = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+  public static final String PREF_ANALYSIS_DEBOUNCE_DELAY = "analysisDebounceDelay"; //$NON-NLS-1$
+  public static final int PREF_ANALYSIS_DEBOUNCE_DELAY_DEFAULT = 300;
+  public static final String PREF_ISSUE_CACHE_MAX_ENTRIES = "issueCacheMaxEntries"; //$NON-NLS-1$
+  public static final int PREF_ISSUE_CACHE_MAX_ENTRIES_DEFAULT = 500;
+  public static final String PREF_ISSUE_CACHE_MAX_MEMORY = "issueCacheMaxMemory"; //$NON-NLS-1$
+  public static final int PREF_ISSUE_CACHE_MAX_MEMORY_DEFAULT = 32;
+  public static final String PREF_SERVER_ISSUE_FETCH_CONCURRENCY = "serverIssueFetchConcurrency"; //$NON-NLS-1$
+  public static final int PREF_SERVER_ISSUE_FETCH_CONCURRENCY_DEFAULT = 4;
 
   private PreferencesUtils() {
     // Utility class
@@ -55,6 +65,43 @@ public class PreferencesUtils {
     return Platform.getPreferencesService().getInt(SonarLintCorePlugin.UI_PLUGIN_ID, PREF_MARKER_SEVERITY, PREF_MARKER_SEVERITY_DEFAULT, null);
   }
 
+  /**
+   * Maximum number of projects analyzed at the same time by a multi-project analysis.
+   */
+  public static int getAnalysisParallelism() {
+    return Math.max(1, Platform.getPreferencesService().getInt(SonarLintCorePlugin.UI_PLUGIN_ID, PREF_ANALYSIS_PARALLELISM, PREF_ANALYSIS_PARALLELISM_DEFAULT, null));
+  }
+
+  /**
+   * Delay in milliseconds without new on-the-fly analysis request before pending requests are actually analyzed.
+   */
+  public static int getAnalysisDebounceDelay() {
+    return Math.max(0, Platform.getPreferencesService().getInt(SonarLintCorePlugin.UI_PLUGIN_ID, PREF_ANALYSIS_DEBOUNCE_DELAY, PREF_ANALYSIS_DEBOUNCE_DELAY_DEFAULT, null));
+  }
+
+  /**
+   * Maximum number of files per module for which issues are kept in memory
+   */
+  public static int getIssueCacheMaxEntries() {
+    return Math.max(1, Platform.getPreferencesService().getInt(SonarLintCorePlugin.UI_PLUGIN_ID, PREF_ISSUE_CACHE_MAX_ENTRIES, PREF_ISSUE_CACHE_MAX_ENTRIES_DEFAULT, null));
+  }
+
+  /**
+   * Maximum estimated memory used by issues kept in memory per module, in bytes
+   */
+  public static long getIssueCacheMaxMemory() {
+    int megabytes = Platform.getPreferencesService().getInt(SonarLintCorePlugin.UI_PLUGIN_ID, PREF_ISSUE_CACHE_MAX_MEMORY, PREF_ISSUE_CACHE_MAX_MEMORY_DEFAULT, null);
+    return Math.max(1, megabytes) * 1024L * 1024L;
+  }
+
+  /**
+   * Maximum number of requests downloading server issues sent at the same time to a server
+   */
+  public static int getServerIssueFetchConcurrency() {
+    return Math.max(1,
+      Platform.getPreferencesService().getInt(SonarLintCorePlugin.UI_PLUGIN_ID, PREF_SERVER_ISSUE_FETCH_CONCURRENCY, PREF_SERVER_ISSUE_FETCH_CONCURRENCY_DEFAULT, null));
+  }
+
   public static List<SonarLintProperty> getExtraPropertiesForLocalAnalysis(ISonarLintProject project) {
     List<SonarLintProperty> props = new ArrayList<>();
     // First add all global properties
@@ -110,6 +157,13 @@ public class PreferencesUtils {
     return deserializeFileExclusions(props);
   }
 
+  /**
+   * Raw values of the global settings file exclusions depend on, to detect their changes without parsing them
+   */
+  public static String getExclusionSettingsStamp() {
+    return getPreferenceString(PREF_FILE_EXCLUSIONS) + "|" + getTestFileRegexps();
+  }
+
   private static String getPreferenceString(String key) {
     return Platform.getPreferencesService().getString(SonarLintCorePlugin.UI_PLUGIN_ID, key, PREF_DEFAULT, null);
   }
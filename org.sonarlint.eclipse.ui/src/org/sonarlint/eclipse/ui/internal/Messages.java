@@ -38,6 +38,11 @@ public final class Messages extends NLS {
   public static String SonarPreferencePage_label_marker_severity;
   public static String SonarPreferencePage_label_extra_args;
   public static String SonarPreferencePage_label_test_file_regexps;
+  public static String SonarPreferencePage_label_analysis_parallelism;
+  public static String SonarPreferencePage_label_analysis_debounce_delay;
+  public static String SonarPreferencePage_label_issue_cache_max_entries;
+  public static String SonarPreferencePage_label_issue_cache_max_memory;
+  public static String SonarPreferencePage_label_server_issue_fetch_concurrency;
   public static String SonarProjectPropertyBlock_label_override_workspace_settings;
 
   public static String SonarConsoleRemoveAction_tooltip;
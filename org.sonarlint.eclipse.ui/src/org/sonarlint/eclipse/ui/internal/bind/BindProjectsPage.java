@@ -72,6 +72,7 @@ import org.sonarlint.eclipse.core.internal.jobs.ProjectUpdateJob;
 import org.sonarlint.eclipse.core.internal.resources.SonarLintProjectConfiguration;
 import org.sonarlint.eclipse.core.internal.server.IServer;
 import org.sonarlint.eclipse.core.internal.server.IServerLifecycleListener;
+import org.sonarlint.eclipse.core.internal.server.Server;
 import org.sonarlint.eclipse.core.internal.utils.StringUtils;
 import org.sonarlint.eclipse.core.resource.ISonarLintProject;
 import org.sonarlint.eclipse.ui.internal.Messages;
@@ -457,6 +458,7 @@ public class BindProjectsPage extends WizardPage {
     ISonarLintProject project = projectBinding.getProject();
     SonarLintProjectConfiguration projectConfig = SonarLintProjectConfiguration.read(project.getScopeContext());
     String oldServerId = projectConfig.getServerId();
+    String oldModuleKey = projectConfig.getModuleKey();
     if (!Objects.equals(projectBinding.getServerId(), oldServerId)) {
       projectConfig.setServerId(projectBinding.getServerId());
       changed = true;
@@ -471,6 +473,7 @@ public class BindProjectsPage extends WizardPage {
     }
     if (changed) {
       SonarLintUiPlugin.unsubscribeToNotifications(project);
+      Server.invalidateServerIssueDownloads(oldServerId, oldModuleKey);
       projectConfig.save();
       updateProjectBinding(project, oldServerId);
     }
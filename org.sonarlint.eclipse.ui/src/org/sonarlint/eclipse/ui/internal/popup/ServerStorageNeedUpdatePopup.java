@@ -60,7 +60,7 @@ public class ServerStorageNeedUpdatePopup extends AbstractNotificationPopup {
     updateServerLink.addSelectionListener(new SelectionAdapter() {
       @Override
       public void widgetSelected(SelectionEvent e) {
-        Job job = new ServerUpdateJob(server);
+        Job job = new ServerUpdateJob(server, true);
         JobUtils.scheduleAnalysisOfOpenFilesInBoundProjects(job, server, TriggerType.BINDING_CHANGE);
         job.schedule();
         ServerStorageNeedUpdatePopup.this.close();
@@ -22,6 +22,7 @@ package org.sonarlint.eclipse.ui.internal.preferences;
 import org.eclipse.core.resources.IMarker;
 import org.eclipse.jface.preference.ComboFieldEditor;
 import org.eclipse.jface.preference.FieldEditorPreferencePage;
+import org.eclipse.jface.preference.IntegerFieldEditor;
 import org.eclipse.jface.preference.StringFieldEditor;
 import org.eclipse.ui.IWorkbench;
 import org.eclipse.ui.IWorkbenchPreferencePage;
@@ -57,6 +58,26 @@ public class SonarLintPreferencePage extends FieldEditorPreferencePage implement
       getFieldEditorParent()));
     addField(new StringFieldEditor(PreferencesUtils.PREF_TEST_FILE_REGEXPS,
       Messages.SonarPreferencePage_label_test_file_regexps, getFieldEditorParent()));
+    IntegerFieldEditor parallelismEditor = new IntegerFieldEditor(PreferencesUtils.PREF_ANALYSIS_PARALLELISM,
+      Messages.SonarPreferencePage_label_analysis_parallelism, getFieldEditorParent());
+    parallelismEditor.setValidRange(1, 64);
+    addField(parallelismEditor);
+    IntegerFieldEditor debounceEditor = new IntegerFieldEditor(PreferencesUtils.PREF_ANALYSIS_DEBOUNCE_DELAY,
+      Messages.SonarPreferencePage_label_analysis_debounce_delay, getFieldEditorParent());
+    debounceEditor.setValidRange(0, 10_000);
+    addField(debounceEditor);
+    IntegerFieldEditor issueCacheEntriesEditor = new IntegerFieldEditor(PreferencesUtils.PREF_ISSUE_CACHE_MAX_ENTRIES,
+      Messages.SonarPreferencePage_label_issue_cache_max_entries, getFieldEditorParent());
+    issueCacheEntriesEditor.setValidRange(10, 100_000);
+    addField(issueCacheEntriesEditor);
+    IntegerFieldEditor issueCacheMemoryEditor = new IntegerFieldEditor(PreferencesUtils.PREF_ISSUE_CACHE_MAX_MEMORY,
+      Messages.SonarPreferencePage_label_issue_cache_max_memory, getFieldEditorParent());
+    issueCacheMemoryEditor.setValidRange(1, 1024);
+    addField(issueCacheMemoryEditor);
+    IntegerFieldEditor serverIssueFetchEditor = new IntegerFieldEditor(PreferencesUtils.PREF_SERVER_ISSUE_FETCH_CONCURRENCY,
+      Messages.SonarPreferencePage_label_server_issue_fetch_concurrency, getFieldEditorParent());
+    serverIssueFetchEditor.setValidRange(1, 16);
+    addField(serverIssueFetchEditor);
   }
 
   @Override
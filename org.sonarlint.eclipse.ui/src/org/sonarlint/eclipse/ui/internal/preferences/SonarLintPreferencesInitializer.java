@@ -36,6 +36,11 @@ public class SonarLintPreferencesInitializer extends AbstractPreferenceInitializ
     node.putInt(PreferencesUtils.PREF_MARKER_SEVERITY, PreferencesUtils.PREF_MARKER_SEVERITY_DEFAULT);
     node.put(PreferencesUtils.PREF_EXTRA_ARGS, PreferencesUtils.PREF_DEFAULT);
     node.put(PreferencesUtils.PREF_TEST_FILE_REGEXPS, PreferencesUtils.PREF_TEST_FILE_REGEXPS_DEFAULT);
+    node.putInt(PreferencesUtils.PREF_ANALYSIS_PARALLELISM, PreferencesUtils.PREF_ANALYSIS_PARALLELISM_DEFAULT);
+    node.putInt(PreferencesUtils.PREF_ANALYSIS_DEBOUNCE_DELAY, PreferencesUtils.PREF_ANALYSIS_DEBOUNCE_DELAY_DEFAULT);
+    node.putInt(PreferencesUtils.PREF_ISSUE_CACHE_MAX_ENTRIES, PreferencesUtils.PREF_ISSUE_CACHE_MAX_ENTRIES_DEFAULT);
+    node.putInt(PreferencesUtils.PREF_ISSUE_CACHE_MAX_MEMORY, PreferencesUtils.PREF_ISSUE_CACHE_MAX_MEMORY_DEFAULT);
+    node.putInt(PreferencesUtils.PREF_SERVER_ISSUE_FETCH_CONCURRENCY, PreferencesUtils.PREF_SERVER_ISSUE_FETCH_CONCURRENCY_DEFAULT);
   }
 
 }
@@ -83,7 +83,7 @@ public class ServerUpdateAction extends SelectionProviderAction {
 
     if (servers != null) {
       for (final IServer server : servers) {
-        Job job = new ServerUpdateJob(server);
+        Job job = new ServerUpdateJob(server, true);
         // note: this is only necessary for projects bound before SQ 6.6
         JobUtils.scheduleAfterSuccess(job, () -> server.getBoundProjects().forEach(SonarLintUiPlugin::subscribeToNotifications));
         JobUtils.scheduleAnalysisOfOpenFilesInBoundProjects(job, server, TriggerType.BINDING_CHANGE);
@@ -197,7 +197,7 @@ public class ServerConnectionWizard extends Wizard implements INewWizard, IPageC
       editedServer.updateConfig(model.getServerUrl(), model.getOrganization(), model.getUsername(), model.getPassword(), model.getNotificationsEnabled());
       server = editedServer;
 
-      Job job = new ServerUpdateJob(server);
+      Job job = new ServerUpdateJob(server, true);
 
       List<ISonarLintProject> boundProjects = server.getBoundProjects();
       if (model.getNotificationsSupported() && model.getNotificationsEnabled() && !boundProjects.isEmpty()) {
@@ -225,7 +225,7 @@ public class ServerConnectionWizard extends Wizard implements INewWizard, IPageC
       }
     }
 
-    Job j = new ServerUpdateJob(server);
+    Job j = new ServerUpdateJob(server, true);
     j.addJobChangeListener(new JobChangeAdapter() {
       @Override
       public void done(IJobChangeEvent event) {